@@ -1,5 +1,6 @@
 package com.smbsoft.health;
 
+import com.smbsoft.health.config.ApplicationProperties;
 import com.smbsoft.health.config.DefaultProfileUtil;
 
 import io.github.jhipster.config.JHipsterConstants;
@@ -22,7 +23,7 @@ import java.util.Collection;
 
 @ComponentScan
 @EnableAutoConfiguration(exclude = {MetricFilterAutoConfiguration.class, MetricRepositoryAutoConfiguration.class})
-@EnableConfigurationProperties(LiquibaseProperties.class)
+@EnableConfigurationProperties({ LiquibaseProperties.class, ApplicationProperties.class })
 public class Application {
 
     private static final Logger log = LoggerFactory.getLogger(Application.class);
@@ -2,6 +2,9 @@ package com.smbsoft.health.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Properties specific to JHipster.
  *
@@ -12,4 +15,377 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final Search search = new Search();
+
+    private final Security security = new Security();
+
+    private final Cache cache = new Cache();
+
+    private final BulkImport bulkImport = new BulkImport();
+
+    private final Export export = new Export();
+
+    private final Leaderboard leaderboard = new Leaderboard();
+
+    private final GoalReminder goalReminder = new GoalReminder();
+
+    public Search getSearch() {
+        return search;
+    }
+
+    public Security getSecurity() {
+        return security;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public BulkImport getBulkImport() {
+        return bulkImport;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public Leaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    public GoalReminder getGoalReminder() {
+        return goalReminder;
+    }
+
+    public static class Search {
+
+        private final Indexing indexing = new Indexing();
+
+        public Indexing getIndexing() {
+            return indexing;
+        }
+
+        public static class Indexing {
+
+            private boolean async = true;
+
+            private int batchSize = 500;
+
+            private long relayDelay = 1000;
+
+            private long retryBackoff = 1000;
+
+            private long maxRetryBackoff = 60000;
+
+            private int retentionDays = 7;
+
+            public boolean isAsync() {
+                return async;
+            }
+
+            public void setAsync(boolean async) {
+                this.async = async;
+            }
+
+            public int getBatchSize() {
+                return batchSize;
+            }
+
+            public void setBatchSize(int batchSize) {
+                this.batchSize = batchSize;
+            }
+
+            public long getRelayDelay() {
+                return relayDelay;
+            }
+
+            public void setRelayDelay(long relayDelay) {
+                this.relayDelay = relayDelay;
+            }
+
+            public long getRetryBackoff() {
+                return retryBackoff;
+            }
+
+            public void setRetryBackoff(long retryBackoff) {
+                this.retryBackoff = retryBackoff;
+            }
+
+            public long getMaxRetryBackoff() {
+                return maxRetryBackoff;
+            }
+
+            public void setMaxRetryBackoff(long maxRetryBackoff) {
+                this.maxRetryBackoff = maxRetryBackoff;
+            }
+
+            public int getRetentionDays() {
+                return retentionDays;
+            }
+
+            public void setRetentionDays(int retentionDays) {
+                this.retentionDays = retentionDays;
+            }
+        }
+    }
+
+    public static class Security {
+
+        private final TokenCache tokenCache = new TokenCache();
+
+        private final PasswordHashing passwordHashing = new PasswordHashing();
+
+        public TokenCache getTokenCache() {
+            return tokenCache;
+        }
+
+        public PasswordHashing getPasswordHashing() {
+            return passwordHashing;
+        }
+
+        public static class TokenCache {
+
+            private int maxSize = 10000;
+
+            public int getMaxSize() {
+                return maxSize;
+            }
+
+            public void setMaxSize(int maxSize) {
+                this.maxSize = maxSize;
+            }
+        }
+
+        public static class PasswordHashing {
+
+            private int threads = Runtime.getRuntime().availableProcessors();
+
+            private int queueCapacity = 100;
+
+            public int getThreads() {
+                return threads;
+            }
+
+            public void setThreads(int threads) {
+                this.threads = threads;
+            }
+
+            public int getQueueCapacity() {
+                return queueCapacity;
+            }
+
+            public void setQueueCapacity(int queueCapacity) {
+                this.queueCapacity = queueCapacity;
+            }
+        }
+    }
+
+    /**
+     * The Ehcache configuration of the caches, with defaults overridden by region.
+     * <p>
+     * The regions are keyed by entity name, such as "Points", and the collection regions of an entity use its settings.
+     * </p>
+     */
+    public static class Cache {
+
+        private long timeToLiveSeconds = 3600;
+
+        private long heapEntries = 100;
+
+        private long offHeapMegabytes = 0;
+
+        private final Map<String, Region> regions = new HashMap<>();
+
+        private final Invalidation invalidation = new Invalidation();
+
+        public long getTimeToLiveSeconds() {
+            return timeToLiveSeconds;
+        }
+
+        public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+            this.timeToLiveSeconds = timeToLiveSeconds;
+        }
+
+        public long getHeapEntries() {
+            return heapEntries;
+        }
+
+        public void setHeapEntries(long heapEntries) {
+            this.heapEntries = heapEntries;
+        }
+
+        public long getOffHeapMegabytes() {
+            return offHeapMegabytes;
+        }
+
+        public void setOffHeapMegabytes(long offHeapMegabytes) {
+            this.offHeapMegabytes = offHeapMegabytes;
+        }
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public Invalidation getInvalidation() {
+            return invalidation;
+        }
+
+        public static class Region {
+
+            private Long timeToLiveSeconds;
+
+            private Long heapEntries;
+
+            private Long offHeapMegabytes;
+
+            public Long getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Long timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public Long getHeapEntries() {
+                return heapEntries;
+            }
+
+            public void setHeapEntries(Long heapEntries) {
+                this.heapEntries = heapEntries;
+            }
+
+            public Long getOffHeapMegabytes() {
+                return offHeapMegabytes;
+            }
+
+            public void setOffHeapMegabytes(Long offHeapMegabytes) {
+                this.offHeapMegabytes = offHeapMegabytes;
+            }
+        }
+
+        /**
+         * The broadcast of the cache invalidations to the other nodes of the cluster.
+         * <p>
+         * The bus is "loopback", which only delivers the invalidations to the node which published them, or
+         * "database", which writes them to a table polled by all the nodes.
+         * </p>
+         */
+        public static class Invalidation {
+
+            private String bus = "loopback";
+
+            private long pollDelay = 1000;
+
+            private int retentionMinutes = 60;
+
+            public String getBus() {
+                return bus;
+            }
+
+            public void setBus(String bus) {
+                this.bus = bus;
+            }
+
+            public long getPollDelay() {
+                return pollDelay;
+            }
+
+            public void setPollDelay(long pollDelay) {
+                this.pollDelay = pollDelay;
+            }
+
+            public int getRetentionMinutes() {
+                return retentionMinutes;
+            }
+
+            public void setRetentionMinutes(int retentionMinutes) {
+                this.retentionMinutes = retentionMinutes;
+            }
+        }
+    }
+
+    /**
+     * The bulk import of the readings of a user, inserted by chunks, each in its own transaction.
+     */
+    public static class BulkImport {
+
+        private int chunkSize = 500;
+
+        private int maxRows = 10000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getMaxRows() {
+            return maxRows;
+        }
+
+        public void setMaxRows(int maxRows) {
+            this.maxRows = maxRows;
+        }
+    }
+
+    public static class Export {
+
+        private int fetchSize = 500;
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+    }
+
+    public static class Leaderboard {
+
+        private int weeks = 12;
+
+        private int maxTop = 100;
+
+        public int getWeeks() {
+            return weeks;
+        }
+
+        public void setWeeks(int weeks) {
+            this.weeks = weeks;
+        }
+
+        public int getMaxTop() {
+            return maxTop;
+        }
+
+        public void setMaxTop(int maxTop) {
+            this.maxTop = maxTop;
+        }
+    }
+
+    public static class GoalReminder {
+
+        private int batchSize = 500;
+
+        private int maxConcurrentSends = 4;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxConcurrentSends() {
+            return maxConcurrentSends;
+        }
+
+        public void setMaxConcurrentSends(int maxConcurrentSends) {
+            this.maxConcurrentSends = maxConcurrentSends;
+        }
+    }
 }
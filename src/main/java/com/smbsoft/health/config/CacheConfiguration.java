@@ -1,25 +1,112 @@
 package com.smbsoft.health.config;
 
+import com.smbsoft.health.security.DomainUserDetailsService;
+import com.smbsoft.health.service.TrendService;
+import com.smbsoft.health.service.UserQueryCache;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.expiry.Duration;
+import org.ehcache.expiry.Expirations;
+import org.ehcache.impl.serialization.PlainJavaSerializer;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.spi.serialization.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.*;
 
 import javax.cache.CacheManager;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Configuration of the caches, which are created with the tiers and time to live of their region in the application
+ * properties.
+ */
 @Configuration
 @EnableCaching
 @AutoConfigureAfter(value = { MetricsConfiguration.class })
 @AutoConfigureBefore(value = { WebConfigurer.class, DatabaseConfiguration.class })
 public class CacheConfiguration {
 
+    private static final String DOMAIN_PACKAGE = "com.smbsoft.health.domain.";
+
     private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
 
-    private CacheManager cacheManager;
+    private final ApplicationProperties.Cache cache;
+
+    public CacheConfiguration(ApplicationProperties applicationProperties) {
+        this.cache = applicationProperties.getCache();
+    }
+
+    @Bean
+    public JCacheManagerCustomizer cacheManagerCustomizer() {
+        return cm -> {
+            createCache(cm, com.smbsoft.health.domain.User.class.getName());
+            createCache(cm, com.smbsoft.health.domain.Authority.class.getName());
+            createCache(cm, com.smbsoft.health.domain.User.class.getName() + ".authorities");
+            createCache(cm, com.smbsoft.health.domain.Points.class.getName());
+            createCache(cm, com.smbsoft.health.domain.Weight.class.getName());
+            createCache(cm, com.smbsoft.health.domain.BloodPressure.class.getName());
+            createCache(cm, com.smbsoft.health.domain.UserSettings.class.getName());
+            createCache(cm, DomainUserDetailsService.USERS_BY_LOGIN_CACHE);
+            createCache(cm, UserQueryCache.POINTS_BY_USER);
+            createCache(cm, UserQueryCache.WEIGHTS_BY_USER);
+            createCache(cm, UserQueryCache.BLOOD_PRESSURES_BY_USER);
+            createCache(cm, TrendService.TRENDS_BY_USER);
+            // jhipster-needle-ehcache-add-entry
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private void createCache(CacheManager cm, String name) {
+        ApplicationProperties.Cache.Region region = cache.getRegions().get(regionKey(name));
+        long timeToLiveSeconds = region != null && region.getTimeToLiveSeconds() != null ?
+            region.getTimeToLiveSeconds() : cache.getTimeToLiveSeconds();
+        long heapEntries = region != null && region.getHeapEntries() != null ?
+            region.getHeapEntries() : cache.getHeapEntries();
+        long offHeapMegabytes = region != null && region.getOffHeapMegabytes() != null ?
+            region.getOffHeapMegabytes() : cache.getOffHeapMegabytes();
+        log.debug("Creating cache {} with {} heap entries, {} MB off-heap and a time to live of {}s",
+            name, heapEntries, offHeapMegabytes, timeToLiveSeconds);
+
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder()
+            .heap(heapEntries, EntryUnit.ENTRIES);
+        CacheConfigurationBuilder<Object, Object> configuration;
+        if (offHeapMegabytes > 0) {
+            // The off-heap tier stores serialized entries, and Ehcache has no default serializer for Object
+            Serializer<Object> serializer = (Serializer<Object>) (Serializer<?>)
+                new PlainJavaSerializer<>(CacheConfiguration.class.getClassLoader());
+            configuration = CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                resourcePools.offheap(offHeapMegabytes, MemoryUnit.MB))
+                .withKeySerializer(serializer)
+                .withValueSerializer(serializer);
+        } else {
+            configuration = CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                resourcePools);
+        }
+        cm.createCache(name, Eh107Configuration.fromEhcacheCacheConfiguration(configuration
+            .withExpiry(Expirations.timeToLiveExpiration(Duration.of(timeToLiveSeconds, TimeUnit.SECONDS)))
+            .build()));
+        // The statistics are read by the CacheStatisticsService and the jcache.statistics gauges
+        cm.enableStatistics(name, true);
+    }
 
-    public CacheConfiguration(CacheManager cacheManager) {
-        this.cacheManager = cacheManager;
+    /**
+     * The key of the region of a cache: the entity name for the entity and collection caches, and the cache name
+     * otherwise.
+     */
+    static String regionKey(String cacheName) {
+        if (!cacheName.startsWith(DOMAIN_PACKAGE)) {
+            return cacheName;
+        }
+        String entityName = cacheName.substring(DOMAIN_PACKAGE.length());
+        int collection = entityName.indexOf('.');
+        return collection < 0 ? entityName : entityName.substring(0, collection);
     }
 }
@@ -3,6 +3,7 @@ package com.smbsoft.health.config;
 import com.smbsoft.health.security.*;
 import com.smbsoft.health.security.jwt.*;
 
+import com.codahale.metrics.MetricRegistry;
 import io.github.jhipster.security.*;
 
 import org.springframework.beans.factory.BeanInitializationException;
@@ -18,7 +19,6 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.data.repository.query.SecurityEvaluationContextExtension;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.filter.CorsFilter;
@@ -38,14 +38,20 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     private final CorsFilter corsFilter;
 
+    private final ApplicationProperties applicationProperties;
+
+    private final MetricRegistry metricRegistry;
+
     public SecurityConfiguration(AuthenticationManagerBuilder authenticationManagerBuilder, UserDetailsService userDetailsService,
             TokenProvider tokenProvider,
-        CorsFilter corsFilter) {
+        CorsFilter corsFilter, ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
 
         this.authenticationManagerBuilder = authenticationManagerBuilder;
         this.userDetailsService = userDetailsService;
         this.tokenProvider = tokenProvider;
         this.corsFilter = corsFilter;
+        this.applicationProperties = applicationProperties;
+        this.metricRegistry = metricRegistry;
     }
 
     @PostConstruct
@@ -64,9 +70,11 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         return new Http401UnauthorizedEntryPoint();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public BoundedPasswordEncoder passwordEncoder() {
+        ApplicationProperties.Security.PasswordHashing passwordHashing = applicationProperties.getSecurity().getPasswordHashing();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), passwordHashing.getThreads(),
+            passwordHashing.getQueueCapacity(), metricRegistry);
     }
 
     @Override
@@ -0,0 +1,93 @@
+package com.smbsoft.health.domain;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * An invalidation of a cache entry, published by a node through the DatabaseCacheInvalidationBus, and polled by the
+ * other nodes.
+ */
+@Entity
+@Table(name = "cache_invalidation")
+public class CacheInvalidationEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "node_id", length = 36, nullable = false)
+    private String nodeId;
+
+    @Column(name = "cache_name", length = 255, nullable = false)
+    private String cacheName;
+
+    @Column(name = "cache_key", length = 255, nullable = false)
+    private String cacheKey;
+
+    @Column(name = "created_date", nullable = false)
+    private ZonedDateTime createdDate = ZonedDateTime.now();
+
+    public CacheInvalidationEvent() {
+    }
+
+    public CacheInvalidationEvent(String nodeId, String cacheName, String cacheKey) {
+        this.nodeId = nodeId;
+        this.cacheName = cacheName;
+        this.cacheKey = cacheKey;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public ZonedDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CacheInvalidationEvent cacheInvalidationEvent = (CacheInvalidationEvent) o;
+        if (cacheInvalidationEvent.id == null || id == null) {
+            return false;
+        }
+        return Objects.equals(id, cacheInvalidationEvent.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheInvalidationEvent{" +
+            "id=" + id +
+            ", nodeId='" + nodeId + "'" +
+            ", cacheName='" + cacheName + "'" +
+            ", cacheKey='" + cacheKey + "'" +
+            ", createdDate='" + createdDate + "'" +
+            '}';
+    }
+}
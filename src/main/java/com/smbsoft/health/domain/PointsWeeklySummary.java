@@ -0,0 +1,159 @@
+package com.smbsoft.health.domain;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * The points of a user summed over an ISO week (starting on Monday).
+ * <p>
+ * Rows are maintained incrementally by the PointsService whenever a Points is created, updated or deleted.
+ * </p>
+ */
+@Entity
+@Table(name = "points_weekly_summary")
+@IdClass(PointsWeeklySummary.PointsWeeklySummaryId.class)
+public class PointsWeeklySummary implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Id
+    @Column(name = "week_start", nullable = false)
+    private LocalDate weekStart;
+
+    @Column(name = "exercise", nullable = false)
+    private int exercise;
+
+    @Column(name = "meals", nullable = false)
+    private int meals;
+
+    @Column(name = "alcohol", nullable = false)
+    private int alcohol;
+
+    /**
+     * Number of Points rows summed in this week, so that the row can be removed once it is back to zero.
+     */
+    @Column(name = "entries", nullable = false)
+    private int entries;
+
+    public PointsWeeklySummary() {
+    }
+
+    public PointsWeeklySummary(Long userId, LocalDate weekStart) {
+        this.userId = userId;
+        this.weekStart = weekStart;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDate getWeekStart() {
+        return weekStart;
+    }
+
+    public int getExercise() {
+        return exercise;
+    }
+
+    public int getMeals() {
+        return meals;
+    }
+
+    public int getAlcohol() {
+        return alcohol;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public int getPoints() {
+        return exercise + meals + alcohol;
+    }
+
+    /**
+     * Apply a delta to the sums of this week.
+     */
+    public PointsWeeklySummary add(int exercise, int meals, int alcohol, int entries) {
+        this.exercise += exercise;
+        this.meals += meals;
+        this.alcohol += alcohol;
+        this.entries += entries;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PointsWeeklySummary summary = (PointsWeeklySummary) o;
+        if (summary.userId == null || summary.weekStart == null) {
+            return false;
+        }
+        return Objects.equals(userId, summary.userId) && Objects.equals(weekStart, summary.weekStart);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, weekStart);
+    }
+
+    @Override
+    public String toString() {
+        return "PointsWeeklySummary{" +
+            "userId=" + userId +
+            ", weekStart='" + weekStart + "'" +
+            ", exercise='" + exercise + "'" +
+            ", meals='" + meals + "'" +
+            ", alcohol='" + alcohol + "'" +
+            ", entries='" + entries + "'" +
+            '}';
+    }
+
+    /**
+     * Composite primary key of a PointsWeeklySummary.
+     */
+    public static class PointsWeeklySummaryId implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private Long userId;
+
+        private LocalDate weekStart;
+
+        public PointsWeeklySummaryId() {
+        }
+
+        public PointsWeeklySummaryId(Long userId, LocalDate weekStart) {
+            this.userId = userId;
+            this.weekStart = weekStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PointsWeeklySummaryId id = (PointsWeeklySummaryId) o;
+            return Objects.equals(userId, id.userId) && Objects.equals(weekStart, id.weekStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, weekStart);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.smbsoft.health.domain;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+/**
+ * A change of an indexed entity, written in the same transaction as the change itself, and relayed to
+ * Elasticsearch by the SearchOutboxRelay.
+ * <p>
+ * Only the entity and its id are recorded: the relay indexes the state of the entity at the time it runs.
+ * </p>
+ */
+@Entity
+@Table(name = "search_outbox")
+public class SearchOutboxEvent implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "entity_name", length = 100, nullable = false)
+    private String entityName;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "created_date", nullable = false)
+    private ZonedDateTime createdDate = ZonedDateTime.now();
+
+    @Column(name = "processed_date")
+    private ZonedDateTime processedDate;
+
+    public SearchOutboxEvent() {
+    }
+
+    public SearchOutboxEvent(String entityName, Long entityId) {
+        this.entityName = entityName;
+        this.entityId = entityId;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public ZonedDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public ZonedDateTime getProcessedDate() {
+        return processedDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SearchOutboxEvent searchOutboxEvent = (SearchOutboxEvent) o;
+        if (searchOutboxEvent.id == null || id == null) {
+            return false;
+        }
+        return Objects.equals(id, searchOutboxEvent.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchOutboxEvent{" +
+            "id=" + id +
+            ", entityName='" + entityName + "'" +
+            ", entityId='" + entityId + "'" +
+            ", createdDate='" + createdDate + "'" +
+            ", processedDate='" + processedDate + "'" +
+            '}';
+    }
+}
@@ -1,7 +1,11 @@
 package com.smbsoft.health.domain;
 
+import com.smbsoft.health.domain.enumeration.WeightUnits;
+
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.data.elasticsearch.annotations.Document;
 
 import javax.persistence.*;
@@ -11,6 +15,10 @@ import java.util.Objects;
 
 /**
  * A Weight.
+ * <p>
+ * The weight is given in a unit, and stored in grams as well, so that weights can be converted and compared whatever
+ * their unit.
+ * </p>
  */
 @Entity
 @Table(name = "weight")
@@ -20,9 +28,19 @@ public class Weight implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The unit of the weights saved without a unit, when the settings of the user are not known.
+     */
+    public static final WeightUnits DEFAULT_UNIT = WeightUnits.kg;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
-    @SequenceGenerator(name = "sequenceGenerator")
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weightSequenceGenerator")
+    @GenericGenerator(name = "weightSequenceGenerator", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+        parameters = {
+            @Parameter(name = "sequence_name", value = "weight_seq"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+        })
     private Long id;
 
     @Column(name = "date")
@@ -31,6 +49,13 @@ public class Weight implements Serializable {
     @Column(name = "weight")
     private Integer weight;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "unit")
+    private WeightUnits unit;
+
+    @Column(name = "grams")
+    private Long grams;
+
     @ManyToOne
     private User user;
 
@@ -68,6 +93,35 @@ public class Weight implements Serializable {
         this.weight = weight;
     }
 
+    public WeightUnits getUnit() {
+        return unit;
+    }
+
+    public Weight unit(WeightUnits unit) {
+        this.unit = unit;
+        return this;
+    }
+
+    public void setUnit(WeightUnits unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * @return the weight in grams, computed from the weight and its unit whenever it is saved
+     */
+    public Long getGrams() {
+        return grams;
+    }
+
+    public Weight grams(Long grams) {
+        this.grams = grams;
+        return this;
+    }
+
+    public void setGrams(Long grams) {
+        this.grams = grams;
+    }
+
     public User getUser() {
         return user;
     }
@@ -81,6 +135,18 @@ public class Weight implements Serializable {
         this.user = user;
     }
 
+    /**
+     * Compute the weight in grams, from the weight and its unit, {@link #DEFAULT_UNIT} if it has none.
+     */
+    @PrePersist
+    @PreUpdate
+    public void computeGrams() {
+        if (unit == null) {
+            unit = DEFAULT_UNIT;
+        }
+        grams = weight != null ? unit.toGrams(weight) : null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -107,6 +173,8 @@ public class Weight implements Serializable {
             "id=" + id +
             ", date='" + date + "'" +
             ", weight='" + weight + "'" +
+            ", unit='" + unit + "'" +
+            ", grams='" + grams + "'" +
             '}';
     }
 }
@@ -1,8 +1,30 @@
 package com.smbsoft.health.domain.enumeration;
 
 /**
- * The WeightUnits enumeration.
+ * The WeightUnits enumeration, with the number of grams of each unit.
  */
 public enum WeightUnits {
-    kg,lb,g
+    kg(1000), lb(453.59237), g(1);
+
+    private final double grams;
+
+    WeightUnits(double grams) {
+        this.grams = grams;
+    }
+
+    /**
+     * @param value a weight in this unit
+     * @return the weight in grams, rounded to the gram
+     */
+    public long toGrams(double value) {
+        return Math.round(value * grams);
+    }
+
+    /**
+     * @param grams a weight in grams
+     * @return the weight in this unit
+     */
+    public double fromGrams(long grams) {
+        return grams / this.grams;
+    }
 }
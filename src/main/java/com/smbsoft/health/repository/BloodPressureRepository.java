@@ -2,9 +2,15 @@ package com.smbsoft.health.repository;
 
 import com.smbsoft.health.domain.BloodPressure;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Spring Data JPA repository for the BloodPressure entity.
@@ -15,4 +21,23 @@ public interface BloodPressureRepository extends JpaRepository<BloodPressure,Lon
     @Query("select bloodPressure from BloodPressure bloodPressure where bloodPressure.user.login = ?#{principal.username}")
     List<BloodPressure> findByUserIsCurrentUser();
 
+    Page<BloodPressure> findByUserLoginAndDateBetweenOrderByDateDescIdDesc(String login, LocalDate from, LocalDate to, Pageable pageable);
+
+    List<BloodPressure> findByUserLoginAndDateBetweenOrderByDateAscIdAsc(String login, LocalDate from, LocalDate to);
+
+    Optional<BloodPressure> findFirstByUserLoginAndDateLessThanEqualOrderByDateDescIdDesc(String login, LocalDate date);
+
+    /**
+     * Keyset pagination: get the rows of a user whose (date, id) key is lower than the given one, most recent first.
+     * <p>
+     * No count query is issued, and the cost of a page does not depend on its depth.
+     * </p>
+     */
+    @Query("select bloodPressure from BloodPressure bloodPressure where bloodPressure.user.login = :login and bloodPressure.date between :from and :to " +
+        "and (bloodPressure.date < :date or (bloodPressure.date = :date and bloodPressure.id < :id)) order by bloodPressure.date desc, bloodPressure.id desc")
+    Slice<BloodPressure> findByUserLoginAndDateBetweenAfterKey(@Param("login") String login,
+                                                               @Param("from") LocalDate from, @Param("to") LocalDate to,
+                                                               @Param("date") LocalDate date, @Param("id") Long id,
+                                                               Pageable pageable);
+
 }
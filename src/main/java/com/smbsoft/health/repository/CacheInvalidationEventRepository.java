@@ -0,0 +1,28 @@
+package com.smbsoft.health.repository;
+
+import com.smbsoft.health.domain.CacheInvalidationEvent;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the CacheInvalidationEvent entity.
+ */
+public interface CacheInvalidationEventRepository extends JpaRepository<CacheInvalidationEvent, Long> {
+
+    List<CacheInvalidationEvent> findByIdGreaterThanOrderById(Long id, Pageable pageable);
+
+    List<CacheInvalidationEvent> findByIdIn(Collection<Long> ids);
+
+    @Query("select max(event.id) from CacheInvalidationEvent event")
+    Long findMaxId();
+
+    @Modifying
+    @Query("delete from CacheInvalidationEvent event where event.createdDate < :date")
+    int deleteCreatedBefore(@Param("date") ZonedDateTime date);
+}
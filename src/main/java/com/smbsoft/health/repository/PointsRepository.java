@@ -1,10 +1,17 @@
 package com.smbsoft.health.repository;
 
 import com.smbsoft.health.domain.Points;
+import com.smbsoft.health.service.dto.PointsPerPeriodDTO;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Spring Data JPA repository for the Points entity.
@@ -15,4 +22,40 @@ public interface PointsRepository extends JpaRepository<Points,Long> {
     @Query("select points from Points points where points.user.login = ?#{principal.username}")
     List<Points> findByUserIsCurrentUser();
 
+    Page<Points> findByUserLoginAndDateBetweenOrderByDateDescIdDesc(String login, LocalDate from, LocalDate to, Pageable pageable);
+
+    /**
+     * Keyset pagination: get the rows of a user whose (date, id) key is lower than the given one, most recent first.
+     * <p>
+     * No count query is issued, and the cost of a page does not depend on its depth.
+     * </p>
+     */
+    @Query("select points from Points points where points.user.login = :login and points.date between :from and :to " +
+        "and (points.date < :date or (points.date = :date and points.id < :id)) order by points.date desc, points.id desc")
+    Slice<Points> findByUserLoginAndDateBetweenAfterKey(@Param("login") String login,
+                                                        @Param("from") LocalDate from, @Param("to") LocalDate to,
+                                                        @Param("date") LocalDate date, @Param("id") Long id,
+                                                        Pageable pageable);
+
+    /**
+     * Sum the points of a user per day, so that weekly and monthly totals can be folded from at most one row per day.
+     */
+    @Query("select new com.smbsoft.health.service.dto.PointsPerPeriodDTO(points.date, " +
+        "sum(points.exercise), sum(points.meals), sum(points.alcohol)) " +
+        "from Points points where points.user.login = :login and points.date between :from and :to " +
+        "group by points.date order by points.date")
+    List<PointsPerPeriodDTO> sumPointsPerDayByUserLogin(@Param("login") String login,
+                                                        @Param("from") LocalDate from,
+                                                        @Param("to") LocalDate to);
+
+    /**
+     * Sum the points of every user per day, ordered by user and date, to rebuild the weekly rollup in one pass.
+     *
+     * @return a stream of [user id, date, exercise, meals, alcohol, entries] rows, to be closed by the caller
+     */
+    @Query("select points.user.id, points.date, sum(points.exercise), sum(points.meals), sum(points.alcohol), count(points) " +
+        "from Points points where points.user is not null and points.date is not null " +
+        "group by points.user.id, points.date order by points.user.id, points.date")
+    Stream<Object[]> streamPointsPerUserAndDay();
+
 }
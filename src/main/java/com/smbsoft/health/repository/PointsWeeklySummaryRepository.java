@@ -0,0 +1,36 @@
+package com.smbsoft.health.repository;
+
+import com.smbsoft.health.domain.PointsWeeklySummary;
+import com.smbsoft.health.domain.PointsWeeklySummary.PointsWeeklySummaryId;
+
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the PointsWeeklySummary entity.
+ */
+public interface PointsWeeklySummaryRepository extends JpaRepository<PointsWeeklySummary, PointsWeeklySummaryId> {
+
+    /**
+     * Lock the summary of a week, so that concurrent writes of the same user apply their deltas one after the other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select summary from PointsWeeklySummary summary where summary.userId = :userId and summary.weekStart = :weekStart")
+    PointsWeeklySummary findOneForUpdate(@Param("userId") Long userId, @Param("weekStart") LocalDate weekStart);
+
+    @Query("select summary from PointsWeeklySummary summary, User user where user.id = summary.userId " +
+        "and user.login = :login and summary.weekStart between :from and :to order by summary.weekStart")
+    List<PointsWeeklySummary> findAllByUserLoginAndWeekStartBetween(@Param("login") String login,
+                                                                    @Param("from") LocalDate from,
+                                                                    @Param("to") LocalDate to);
+
+    List<PointsWeeklySummary> findAllByWeekStart(LocalDate weekStart);
+
+    @Modifying
+    @Query("delete from PointsWeeklySummary summary")
+    int deleteAllInBulk();
+}
@@ -0,0 +1,39 @@
+package com.smbsoft.health.repository;
+
+import com.smbsoft.health.domain.SearchOutboxEvent;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the SearchOutboxEvent entity.
+ */
+public interface SearchOutboxEventRepository extends JpaRepository<SearchOutboxEvent, Long> {
+
+    List<SearchOutboxEvent> findByProcessedDateIsNullOrderById(Pageable pageable);
+
+    long countByProcessedDateIsNull();
+
+    @Query("select max(event.id) from SearchOutboxEvent event")
+    Long findMaxId();
+
+    @Modifying
+    @Query("update SearchOutboxEvent event set event.processedDate = :date where event.id in :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("date") ZonedDateTime date);
+
+    /**
+     * Mark the events from an offset as not processed, so that the relay writes their entities again.
+     */
+    @Modifying
+    @Query("update SearchOutboxEvent event set event.processedDate = null where event.id >= :offset")
+    int markPendingFrom(@Param("offset") Long offset);
+
+    @Modifying
+    @Query("delete from SearchOutboxEvent event where event.processedDate < :date")
+    int deleteProcessedBefore(@Param("date") ZonedDateTime date);
+}
@@ -5,6 +5,7 @@ import com.smbsoft.health.domain.UserSettings;
 import org.springframework.data.jpa.repository.*;
 
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Spring Data JPA repository for the UserSettings entity.
@@ -12,4 +13,7 @@ import java.util.List;
 @SuppressWarnings("unused")
 public interface UserSettingsRepository extends JpaRepository<UserSettings,Long> {
 
+    Optional<UserSettings> findOneByUserLogin(String login);
+
+    Optional<UserSettings> findOneByUserId(Long userId);
 }
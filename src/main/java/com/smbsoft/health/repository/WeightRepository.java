@@ -2,9 +2,15 @@ package com.smbsoft.health.repository;
 
 import com.smbsoft.health.domain.Weight;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Spring Data JPA repository for the Weight entity.
@@ -15,4 +21,23 @@ public interface WeightRepository extends JpaRepository<Weight,Long> {
     @Query("select weight from Weight weight where weight.user.login = ?#{principal.username}")
     List<Weight> findByUserIsCurrentUser();
 
+    Page<Weight> findByUserLoginAndDateBetweenOrderByDateDescIdDesc(String login, LocalDate from, LocalDate to, Pageable pageable);
+
+    List<Weight> findByUserLoginAndDateBetweenOrderByDateAscIdAsc(String login, LocalDate from, LocalDate to);
+
+    Optional<Weight> findFirstByUserLoginAndDateLessThanEqualOrderByDateDescIdDesc(String login, LocalDate date);
+
+    /**
+     * Keyset pagination: get the rows of a user whose (date, id) key is lower than the given one, most recent first.
+     * <p>
+     * No count query is issued, and the cost of a page does not depend on its depth.
+     * </p>
+     */
+    @Query("select weight from Weight weight where weight.user.login = :login and weight.date between :from and :to " +
+        "and (weight.date < :date or (weight.date = :date and weight.id < :id)) order by weight.date desc, weight.id desc")
+    Slice<Weight> findByUserLoginAndDateBetweenAfterKey(@Param("login") String login,
+                                                        @Param("from") LocalDate from, @Param("to") LocalDate to,
+                                                        @Param("date") LocalDate date, @Param("id") Long id,
+                                                        Pageable pageable);
+
 }
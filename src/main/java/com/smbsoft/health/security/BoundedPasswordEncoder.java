@@ -0,0 +1,94 @@
+package com.smbsoft.health.security;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+
+/**
+ * A password encoder running the hashing of its delegate on a dedicated, bounded pool.
+ * <p>
+ * BCrypt takes tens of milliseconds of CPU per password, so a burst of logins would otherwise occupy all the request
+ * threads. The pool limits the number of passwords hashed at the same time, and when its queue is full the calls fail
+ * right away with a {@link PasswordHashingRejectedException}, instead of queueing more requests.
+ * </p>
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final Logger log = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private final PasswordEncoder delegate;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Timer hashing;
+
+    private final Timer queueWait;
+
+    private final Meter rejections;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                  MetricRegistry metricRegistry) {
+        this.delegate = delegate;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>(),
+            new CustomizableThreadFactory("password-hashing-"), new ThreadPoolExecutor.AbortPolicy());
+        this.hashing = metricRegistry.timer(MetricRegistry.name(BoundedPasswordEncoder.class, "hashing"));
+        this.queueWait = metricRegistry.timer(MetricRegistry.name(BoundedPasswordEncoder.class, "queue-wait"));
+        this.rejections = metricRegistry.meter(MetricRegistry.name(BoundedPasswordEncoder.class, "rejections"));
+        metricRegistry.register(MetricRegistry.name(BoundedPasswordEncoder.class, "queue-size"),
+            (Gauge<Integer>) () -> executor.getQueue().size());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T submit(Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWait.update(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                Timer.Context context = hashing.time();
+                try {
+                    return task.call();
+                } finally {
+                    context.stop();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.mark();
+            log.warn("Password hashing rejected, {} passwords are queued", executor.getQueue().size());
+            throw new PasswordHashingRejectedException("Too many passwords are being hashed", e);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing a password", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
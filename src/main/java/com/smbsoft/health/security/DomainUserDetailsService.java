@@ -2,8 +2,12 @@ package com.smbsoft.health.security;
 
 import com.smbsoft.health.domain.User;
 import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.service.CacheStatisticsService;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,23 +21,52 @@ import java.util.stream.Collectors;
 
 /**
  * Authenticate a user from the database.
+ * <p>
+ * The resolved users are cached by login, in the {@link #USERS_BY_LOGIN_CACHE} cache, which is evicted by the
+ * UserService when a user is changed.
+ * </p>
  */
 @Component("userDetailsService")
 public class DomainUserDetailsService implements UserDetailsService {
 
     private final Logger log = LoggerFactory.getLogger(DomainUserDetailsService.class);
 
+    public static final String USERS_BY_LOGIN_CACHE = "usersByLogin";
+
     private final UserRepository userRepository;
 
-    public DomainUserDetailsService(UserRepository userRepository) {
+    private final Cache usersByLogin;
+
+    private final CacheStatisticsService cacheStatisticsService;
+
+    public DomainUserDetailsService(UserRepository userRepository, CacheManager cacheManager,
+                                    CacheStatisticsService cacheStatisticsService) {
         this.userRepository = userRepository;
+        this.usersByLogin = cacheManager.getCache(USERS_BY_LOGIN_CACHE);
+        this.cacheStatisticsService = cacheStatisticsService;
     }
 
+    /**
+     * Load a user, from the cache if it was already resolved.
+     * <p>
+     * A copy of the cached user is returned, as Spring Security erases the password of the user it authenticated.
+     * </p>
+     */
     @Override
     @Transactional
     public UserDetails loadUserByUsername(final String login) {
         log.debug("Authenticating {}", login);
         String lowercaseLogin = login.toLowerCase(Locale.ENGLISH);
+        UserDetails user = usersByLogin.get(lowercaseLogin, UserDetails.class);
+        if (user == null) {
+            user = cacheStatisticsService.load(USERS_BY_LOGIN_CACHE, () -> loadUserFromDatabase(lowercaseLogin));
+            usersByLogin.put(lowercaseLogin, user);
+        }
+        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(),
+            user.getAuthorities());
+    }
+
+    private UserDetails loadUserFromDatabase(String lowercaseLogin) {
         Optional<User> userFromDatabase = userRepository.findOneWithAuthoritiesByLogin(lowercaseLogin);
         return userFromDatabase.map(user -> {
             if (!user.getActivated()) {
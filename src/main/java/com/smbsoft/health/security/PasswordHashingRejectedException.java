@@ -0,0 +1,13 @@
+package com.smbsoft.health.security;
+
+/**
+ * This exception is thrown when the password hashing pool is saturated, and a password can not be hashed or checked.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingRejectedException(String message, Throwable t) {
+        super(message, t);
+    }
+}
@@ -0,0 +1,151 @@
+package com.smbsoft.health.security.jwt;
+
+import org.springframework.security.core.Authentication;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of the authentications of verified tokens, until the tokens expire.
+ * <p>
+ * The tokens are keyed by their SHA-256 digest, so the cache does not keep the bearer tokens themselves. The cache is
+ * split in segments, each one a map in access order behind its own lock: when a segment is full, its least recently
+ * used token is evicted, so a new token is always cached and a lookup never scans the cache.
+ * </p>
+ */
+class TokenAuthenticationCache {
+
+    private static final int SEGMENTS = 16;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    });
+
+    private final Segment[] segments;
+
+    TokenAuthenticationCache(int maxSize) {
+        this(maxSize, SEGMENTS);
+    }
+
+    TokenAuthenticationCache(int maxSize, int segmentCount) {
+        int count = Math.max(0, Math.min(segmentCount, maxSize));
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            // The first segments take the remainder, so that the capacities add up to maxSize
+            segments[i] = new Segment(maxSize / count + (i < maxSize % count ? 1 : 0));
+        }
+    }
+
+    /**
+     * Get the authentication of a token.
+     *
+     * @param token the token
+     * @param now the current time, in milliseconds
+     * @return the authentication, or null if the token is not cached or has expired
+     */
+    Authentication get(String token, long now) {
+        if (segments.length == 0) {
+            return null;
+        }
+        ByteBuffer key = digest(token);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry entry = segment.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiration <= now) {
+                segment.remove(key);
+                return null;
+            }
+            return entry.authentication;
+        }
+    }
+
+    /**
+     * Cache the authentication of a verified token, evicting the least recently used token of its segment if the
+     * segment is full.
+     *
+     * @param token the token
+     * @param authentication the authentication of the token
+     * @param expiration the expiration time of the token, in milliseconds
+     * @param now the current time, in milliseconds
+     */
+    void put(String token, Authentication authentication, long expiration, long now) {
+        if (segments.length == 0 || expiration <= now) {
+            return;
+        }
+        ByteBuffer key = digest(token);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, new Entry(authentication, expiration));
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    private Segment segmentFor(ByteBuffer key) {
+        // The digest is uniformly distributed, so its first bytes pick a segment evenly
+        return segments[(key.getInt(0) & Integer.MAX_VALUE) % segments.length];
+    }
+
+    private static ByteBuffer digest(String token) {
+        return ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * A map of at most maxSize entries, in access order, which evicts its least recently used entry when it is full.
+     */
+    private static final class Segment extends LinkedHashMap<ByteBuffer, Entry> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxSize;
+
+        private Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Entry> eldest) {
+            return size() > maxSize;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Authentication authentication;
+
+        private final long expiration;
+
+        private Entry(Authentication authentication, long expiration) {
+            this.authentication = authentication;
+            this.expiration = expiration;
+        }
+    }
+}
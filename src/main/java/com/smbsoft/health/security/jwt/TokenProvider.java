@@ -1,10 +1,17 @@
 package com.smbsoft.health.security.jwt;
 
+import com.smbsoft.health.config.ApplicationProperties;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import io.github.jhipster.config.JHipsterProperties;
 
+import java.security.Key;
 import java.util.*;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
+import javax.crypto.spec.SecretKeySpec;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +23,7 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
 
 @Component
 public class TokenProvider {
@@ -24,7 +32,11 @@ public class TokenProvider {
 
     private static final String AUTHORITIES_KEY = "auth";
 
-    private String secretKey;
+    private static final SignatureAlgorithm SIGNATURE_ALGORITHM = SignatureAlgorithm.HS512;
+
+    private Key secretKey;
+
+    private JwtParser parser;
 
     private long tokenValidityInMilliseconds;
 
@@ -32,14 +44,34 @@ public class TokenProvider {
 
     private final JHipsterProperties jHipsterProperties;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties) {
+    private final TokenAuthenticationCache cache;
+
+    private final Meter cacheHits;
+
+    private final Meter cacheMisses;
+
+    public TokenProvider(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties,
+                         MetricRegistry metricRegistry) {
         this.jHipsterProperties = jHipsterProperties;
+        this.cache = new TokenAuthenticationCache(applicationProperties.getSecurity().getTokenCache().getMaxSize());
+        this.cacheHits = metricRegistry.meter(MetricRegistry.name(TokenProvider.class, "cache", "hits"));
+        this.cacheMisses = metricRegistry.meter(MetricRegistry.name(TokenProvider.class, "cache", "misses"));
+        metricRegistry.register(MetricRegistry.name(TokenProvider.class, "cache", "size"), (Gauge<Integer>) cache::size);
     }
 
+    /**
+     * Build the signing key and the parser once.
+     * <p>
+     * The secret is decoded from Base64, as jjwt does for String keys, so the tokens issued before keep validating.
+     * The parser is not modified after this method, and is shared by all the requests.
+     * </p>
+     */
     @PostConstruct
     public void init() {
-        this.secretKey =
-            jHipsterProperties.getSecurity().getAuthentication().getJwt().getSecret();
+        this.secretKey = new SecretKeySpec(
+            TextCodec.BASE64.decode(jHipsterProperties.getSecurity().getAuthentication().getJwt().getSecret()),
+            SIGNATURE_ALGORITHM.getJcaName());
+        this.parser = Jwts.parser().setSigningKey(secretKey);
 
         this.tokenValidityInMilliseconds =
             1000 * jHipsterProperties.getSecurity().getAuthentication().getJwt().getTokenValidityInSeconds();
@@ -63,34 +95,70 @@ public class TokenProvider {
         return Jwts.builder()
             .setSubject(authentication.getName())
             .claim(AUTHORITIES_KEY, authorities)
-            .signWith(SignatureAlgorithm.HS512, secretKey)
+            .signWith(SIGNATURE_ALGORITHM, secretKey)
             .setExpiration(validity)
             .compact();
     }
 
-    public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parser()
-            .setSigningKey(secretKey)
-            .parseClaimsJws(token)
-            .getBody();
-
-        Collection<? extends GrantedAuthority> authorities =
-            Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
-
-        User principal = new User(claims.getSubject(), "", authorities);
+    /**
+     * Get the authentication of a token, verifying the token only the first time it is seen.
+     * <p>
+     * The authentication is then cached until the token expires, so the following requests with the same token do not
+     * verify its signature nor decode its claims again.
+     * </p>
+     *
+     * @param token the token
+     * @return the authentication, or null if the signature of the token is not valid
+     * @throws ExpiredJwtException if the token has expired
+     */
+    public Authentication resolveAuthentication(String token) {
+        long now = System.currentTimeMillis();
+        Authentication authentication = cache.get(token, now);
+        if (authentication != null) {
+            cacheHits.mark();
+            return authentication;
+        }
+        cacheMisses.mark();
+        Claims claims;
+        try {
+            claims = parseClaims(token);
+        } catch (SignatureException e) {
+            log.info("Invalid JWT signature: " + e.getMessage());
+            return null;
+        }
+        authentication = toAuthentication(claims);
+        if (claims.getExpiration() != null) {
+            cache.put(token, authentication, claims.getExpiration().getTime(), now);
+        }
+        return authentication;
+    }
 
-        return new UsernamePasswordAuthenticationToken(principal, "", authorities);
+    public Authentication getAuthentication(String token) {
+        return toAuthentication(parseClaims(token));
     }
 
     public boolean validateToken(String authToken) {
         try {
-            Jwts.parser().setSigningKey(secretKey).parseClaimsJws(authToken);
+            parseClaims(authToken);
             return true;
         } catch (SignatureException e) {
             log.info("Invalid JWT signature: " + e.getMessage());
             return false;
         }
     }
+
+    private Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private Authentication toAuthentication(Claims claims) {
+        Collection<? extends GrantedAuthority> authorities =
+            Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
+                .map(SimpleGrantedAuthority::new)
+                .collect(Collectors.toList());
+
+        User principal = new User(claims.getSubject(), "", authorities);
+
+        return new UsernamePasswordAuthenticationToken(principal, "", authorities);
+    }
 }
@@ -0,0 +1,68 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.domain.BloodPressure;
+import com.smbsoft.health.repository.BloodPressureRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Service Implementation for managing BloodPressure.
+ */
+@Service
+@Transactional
+public class BloodPressureService {
+
+    private final Logger log = LoggerFactory.getLogger(BloodPressureService.class);
+
+    private final BloodPressureRepository bloodPressureRepository;
+
+    private final SearchIndexingService searchIndexingService;
+
+    public BloodPressureService(BloodPressureRepository bloodPressureRepository,
+                                SearchIndexingService searchIndexingService) {
+        this.bloodPressureRepository = bloodPressureRepository;
+        this.searchIndexingService = searchIndexingService;
+    }
+
+    /**
+     * Save a bloodPressure.
+     *
+     * @param bloodPressure the entity to save
+     * @return the persisted entity
+     */
+    public BloodPressure save(BloodPressure bloodPressure) {
+        log.debug("Request to save BloodPressure : {}", bloodPressure);
+        BloodPressure result = bloodPressureRepository.save(bloodPressure);
+        searchIndexingService.index(result);
+        return result;
+    }
+
+    /**
+     * Save new bloodPressures in bulk.
+     *
+     * @param bloodPressures the new entities to save
+     * @return the persisted entities
+     */
+    public List<BloodPressure> saveAll(List<BloodPressure> bloodPressures) {
+        log.debug("Request to save {} BloodPressures", bloodPressures.size());
+        List<BloodPressure> result = bloodPressureRepository.save(bloodPressures);
+        searchIndexingService.indexAll(result);
+        return result;
+    }
+
+    /**
+     * Delete the bloodPressure by id.
+     *
+     * @param id the id of the entity
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete BloodPressure : {}", id);
+        bloodPressureRepository.delete(id);
+        searchIndexingService.delete(BloodPressure.class, id);
+    }
+}
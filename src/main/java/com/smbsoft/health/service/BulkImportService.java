@@ -0,0 +1,168 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.security.SecurityUtils;
+import com.smbsoft.health.service.dto.BulkImportResultDTO;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Service for importing the readings of the current user in bulk.
+ * <p>
+ * The rows are read one at a time from a JSON array, or from a stream of JSON documents such as NDJSON, so an import
+ * is never held in memory as a whole. Invalid rows are rejected, and the valid ones are saved by chunks, each in its
+ * own transaction, where Hibernate sends the inserts in JDBC batches and the entities are indexed in one bulk
+ * request. A chunk which cannot be saved does not roll back the chunks before it.
+ * </p>
+ */
+@Service
+public class BulkImportService {
+
+    /**
+     * The media type of newline delimited JSON, with one row per line.
+     */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+
+    private final ObjectMapper objectMapper;
+
+    private final UserRepository userRepository;
+
+    private final PersistenceUnitUtil persistenceUnitUtil;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.BulkImport properties;
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final Timer chunks;
+
+    public BulkImportService(ObjectMapper objectMapper, UserRepository userRepository,
+                             EntityManagerFactory entityManagerFactory, PlatformTransactionManager transactionManager,
+                             ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.objectMapper = objectMapper;
+        this.userRepository = userRepository;
+        this.persistenceUnitUtil = entityManagerFactory.getPersistenceUnitUtil();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getBulkImport();
+        this.chunks = metricRegistry.timer(MetricRegistry.name(BulkImportService.class, "chunks"));
+    }
+
+    /**
+     * Import new rows for the current user.
+     *
+     * @param input the rows, as a JSON array or as JSON documents separated by whitespace
+     * @param type the class of the rows
+     * @param owner the setter of the user of a row
+     * @param save the saving of a chunk of rows, in its transaction
+     * @return the outcome of every row, in the order of the import
+     * @throws IOException if the input cannot be read
+     */
+    public <T> BulkImportResultDTO importAll(InputStream input, Class<T> type, BiConsumer<T, User> owner,
+                                            Function<List<T>, List<T>> save) throws IOException {
+        String login = SecurityUtils.getCurrentUserLogin();
+        User user = userRepository.findOneByLogin(login)
+            .orElseThrow(() -> new UsernameNotFoundException("User " + login + " was not found in the database"));
+        log.debug("Request to import {} rows for user {}", type.getSimpleName(), login);
+        BulkImportResultDTO result = new BulkImportResultDTO();
+        List<T> chunk = new ArrayList<>(properties.getChunkSize());
+        List<Integer> chunkIndexes = new ArrayList<>(properties.getChunkSize());
+        int index = 0;
+        try (MappingIterator<T> rows = objectMapper.readerFor(type).readValues(input)) {
+            while (true) {
+                T row;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    if (index == properties.getMaxRows()) {
+                        result.setTruncated(true);
+                        break;
+                    }
+                    row = rows.nextValue();
+                } catch (JsonMappingException e) {
+                    // The iterator skips to the next row
+                    result.addRejected(index++, Collections.singletonList(e.getOriginalMessage()));
+                    continue;
+                } catch (JsonProcessingException e) {
+                    // The input is not well-formed, the next rows cannot be found
+                    result.addRejected(index, Collections.singletonList(e.getOriginalMessage()));
+                    break;
+                }
+                List<String> errors = validate(row);
+                if (!errors.isEmpty()) {
+                    result.addRejected(index++, errors);
+                    continue;
+                }
+                owner.accept(row, user);
+                chunk.add(row);
+                chunkIndexes.add(index++);
+                if (chunk.size() == properties.getChunkSize()) {
+                    saveChunk(chunk, chunkIndexes, save, result);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            saveChunk(chunk, chunkIndexes, save, result);
+        }
+        result.getRows().sort(Comparator.comparingInt(BulkImportResultDTO.Row::getIndex));
+        log.debug("Imported {} rows for user {}: {}", type.getSimpleName(), login, result);
+        return result;
+    }
+
+    private <T> List<String> validate(T row) {
+        List<String> errors = new ArrayList<>();
+        if (persistenceUnitUtil.getIdentifier(row) != null) {
+            errors.add("id: a new row cannot already have an ID");
+        }
+        for (ConstraintViolation<T> violation : validator.validate(row)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        return errors;
+    }
+
+    private <T> void saveChunk(List<T> chunk, List<Integer> chunkIndexes, Function<List<T>, List<T>> save,
+                               BulkImportResultDTO result) {
+        Timer.Context context = chunks.time();
+        try {
+            List<T> saved = transactionTemplate.execute(status -> save.apply(chunk));
+            for (int i = 0; i < saved.size(); i++) {
+                result.addImported(chunkIndexes.get(i), (Long) persistenceUnitUtil.getIdentifier(saved.get(i)));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not import the rows {} to {}: {}", chunkIndexes.get(0),
+                chunkIndexes.get(chunkIndexes.size() - 1), e.getMessage());
+            chunkIndexes.forEach(index -> result.addFailed(index, "the rows could not be saved"));
+        } finally {
+            context.stop();
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+    }
+}
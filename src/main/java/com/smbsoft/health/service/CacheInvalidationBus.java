@@ -0,0 +1,76 @@
+package com.smbsoft.health.service;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Broadcast of the cache invalidations between the nodes of the cluster.
+ * <p>
+ * Each node evicts the entries it changed from its own caches, and publishes their invalidations once its transaction
+ * committed, so that the other nodes evict them too. The implementation is selected by the
+ * "application.cache.invalidation.bus" property.
+ * </p>
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Publish invalidations to the subscribers of the other nodes.
+     *
+     * @param invalidations the invalidations
+     */
+    void publish(Collection<Invalidation> invalidations);
+
+    /**
+     * Subscribe to the invalidations published by the other nodes.
+     *
+     * @param subscriber the subscriber, called for every invalidation
+     */
+    void subscribe(Consumer<Invalidation> subscriber);
+
+    /**
+     * The invalidation of an entry of a cache: an entity name and an id for the second level cache regions, or a
+     * cache name and a key for the caches of the application.
+     */
+    final class Invalidation {
+
+        private final String cacheName;
+
+        private final String key;
+
+        public Invalidation(String cacheName, Object key) {
+            this.cacheName = cacheName;
+            this.key = String.valueOf(key);
+        }
+
+        public String getCacheName() {
+            return cacheName;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Invalidation invalidation = (Invalidation) o;
+            return cacheName.equals(invalidation.cacheName) && key.equals(invalidation.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(cacheName, key);
+        }
+
+        @Override
+        public String toString() {
+            return cacheName + '#' + key;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.security.DomainUserDetailsService;
+import com.smbsoft.health.service.CacheInvalidationBus.Invalidation;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.*;
+
+/**
+ * Service keeping the caches of the nodes of the cluster consistent.
+ * <p>
+ * The changes of the entities of the second level cache, and of the users resolved by login, are collected from the
+ * Hibernate events, and published on the {@link CacheInvalidationBus} once their transaction committed. The invalidations received from the other nodes
+ * evict the entity, with the cached collections it owns, or the entry of the cache of the application.
+ * </p>
+ */
+@Service
+public class CacheInvalidationService implements PostInsertEventListener, PostUpdateEventListener,
+    PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+    PostCollectionRemoveEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationService.class);
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final CacheManager cacheManager;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private SessionFactoryImplementor sessionFactory;
+
+    public CacheInvalidationService(CacheInvalidationBus cacheInvalidationBus, CacheManager cacheManager,
+                                    EntityManagerFactory entityManagerFactory) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        SessionFactoryImpl sessionFactory = entityManagerFactory.unwrap(SessionFactoryImpl.class);
+        this.sessionFactory = sessionFactory;
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+        cacheInvalidationBus.subscribe(this::evict);
+    }
+
+    /**
+     * Publish the invalidation of cache entries once the current transaction commits, or now if there is none.
+     *
+     * @param invalidations the invalidations
+     */
+    @SuppressWarnings("unchecked")
+    public void invalidate(Collection<Invalidation> invalidations) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cacheInvalidationBus.publish(invalidations);
+            return;
+        }
+        Set<Invalidation> pending = (Set<Invalidation>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Invalidation> transactionInvalidations = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, transactionInvalidations);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    cacheInvalidationBus.publish(transactionInvalidations);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CacheInvalidationService.this);
+                }
+            });
+            pending = transactionInvalidations;
+        }
+        pending.addAll(invalidations);
+    }
+
+    /**
+     * New entities are not published, as the other nodes cannot have cached them yet, so that bulk inserts do not
+     * flood the bus.
+     */
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        invalidateEntity(event.getEntity(), event.getId(), event.getOldState(), event.getPersister());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        invalidateEntity(event.getEntity(), event.getId(), null, event.getPersister());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        invalidateOwner(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        invalidateOwner(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        invalidateOwner(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void invalidateEntity(Object entity, Object id, Object[] oldState, EntityPersister persister) {
+        List<Invalidation> invalidations = new ArrayList<>();
+        if (persister.hasCache()) {
+            invalidations.add(new Invalidation(persister.getEntityName(), id));
+        }
+        if (entity instanceof User) {
+            // The users resolved by login are cached by the DomainUserDetailsService too
+            invalidations.add(new Invalidation(DomainUserDetailsService.USERS_BY_LOGIN_CACHE, ((User) entity).getLogin()));
+            if (oldState != null) {
+                Object previousLogin = oldState[Arrays.asList(persister.getPropertyNames()).indexOf("login")];
+                invalidations.add(new Invalidation(DomainUserDetailsService.USERS_BY_LOGIN_CACHE, previousLogin));
+            }
+        }
+        if (!invalidations.isEmpty()) {
+            invalidate(invalidations);
+        }
+    }
+
+    /**
+     * Invalidate the owner of a changed collection, whose cached collections are evicted with it.
+     */
+    private void invalidateOwner(AbstractCollectionEvent event) {
+        if (event.getAffectedOwnerIdOrNull() == null ||
+            !sessionFactory.getMetamodel().entityPersister(event.getAffectedOwnerEntityName()).hasCache()) {
+            return;
+        }
+        invalidate(Collections.singletonList(
+            new Invalidation(event.getAffectedOwnerEntityName(), event.getAffectedOwnerIdOrNull())));
+    }
+
+    private void evict(Invalidation invalidation) {
+        log.debug("Evicting {} invalidated by another node", invalidation);
+        EntityPersister persister = sessionFactory.getMetamodel().entityPersisters().get(invalidation.getCacheName());
+        if (persister != null) {
+            Long id = Long.valueOf(invalidation.getKey());
+            sessionFactory.getCache().evictEntity(persister.getEntityName(), id);
+            for (CollectionPersister collectionPersister : sessionFactory.getMetamodel().collectionPersisters().values()) {
+                if (collectionPersister.hasCache() &&
+                    collectionPersister.getOwnerEntityPersister().getEntityName().equals(persister.getEntityName())) {
+                    sessionFactory.getCache().evictCollection(collectionPersister.getRole(), id);
+                }
+            }
+            return;
+        }
+        Cache cache = cacheManager.getCache(invalidation.getCacheName());
+        if (cache != null) {
+            cache.evict(invalidation.getKey());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.service.dto.CacheStatisticsDTO;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.management.CacheStatisticsMXBean;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Service for the statistics of the caches.
+ * <p>
+ * The hits, misses and evictions are the JCache statistics of the caches, which also cover the Hibernate regions. The
+ * caches filled by the application time their loads with {@link #load(String, Supplier)}, in the
+ * "jcache.loads.&lt;cache&gt;" timers.
+ * </p>
+ */
+@Service
+public class CacheStatisticsService {
+
+    private static final String LOADS = "jcache.loads";
+
+    private final Logger log = LoggerFactory.getLogger(CacheStatisticsService.class);
+
+    private final CacheManager cacheManager;
+
+    private final MetricRegistry metricRegistry;
+
+    public CacheStatisticsService(CacheManager cacheManager, MetricRegistry metricRegistry) {
+        this.cacheManager = cacheManager;
+        this.metricRegistry = metricRegistry;
+    }
+
+    /**
+     * Load a value missing from a cache, and record the time it took.
+     *
+     * @param cacheName the name of the cache
+     * @param loader the loading of the value
+     * @return the value
+     */
+    public <T> T load(String cacheName, Supplier<T> loader) {
+        Timer.Context context = metricRegistry.timer(MetricRegistry.name(LOADS, cacheName)).time();
+        try {
+            return loader.get();
+        } finally {
+            context.stop();
+        }
+    }
+
+    /**
+     * Get the statistics of all the caches.
+     *
+     * @return the statistics, by cache name
+     */
+    public List<CacheStatisticsDTO> getStatistics() {
+        Map<String, CacheStatisticsMXBean> statistics = getStatisticsBeans();
+        List<CacheStatisticsDTO> result = new ArrayList<>();
+        for (String name : cacheManager.getCacheNames()) {
+            CacheStatisticsDTO dto = new CacheStatisticsDTO();
+            dto.setName(name);
+            ResourcePools resourcePools = getResourcePools(name);
+            if (resourcePools != null) {
+                dto.setHeapEntries(resourcePools.getPoolForResource(ResourceType.Core.HEAP).getSize());
+                if (resourcePools.getResourceTypeSet().contains(ResourceType.Core.OFFHEAP)) {
+                    dto.setOffHeapMegabytes(
+                        resourcePools.<SizedResourcePool>getPoolForResource(ResourceType.Core.OFFHEAP).getSize());
+                }
+            }
+            CacheStatisticsMXBean cacheStatistics = statistics.get(name);
+            if (cacheStatistics != null) {
+                dto.setHits(cacheStatistics.getCacheHits());
+                dto.setMisses(cacheStatistics.getCacheMisses());
+                long gets = cacheStatistics.getCacheHits() + cacheStatistics.getCacheMisses();
+                dto.setHitRatio(gets > 0 ? (float) cacheStatistics.getCacheHits() / gets : 0);
+                dto.setPuts(cacheStatistics.getCachePuts());
+                dto.setRemovals(cacheStatistics.getCacheRemovals());
+                dto.setEvictions(cacheStatistics.getCacheEvictions());
+                dto.setAverageGetMicros(cacheStatistics.getAverageGetTime());
+            }
+            Timer loads = metricRegistry.getTimers().get(MetricRegistry.name(LOADS, name));
+            if (loads != null) {
+                dto.setLoads(loads.getCount());
+                dto.setAverageLoadMillis(loads.getSnapshot().getMean() / TimeUnit.MILLISECONDS.toNanos(1));
+            }
+            result.add(dto);
+        }
+        result.sort(Comparator.comparing(CacheStatisticsDTO::getName));
+        return result;
+    }
+
+    /**
+     * Reset the statistics of all the caches, for example before measuring a load test.
+     */
+    public void clearStatistics() {
+        getStatisticsBeans().values().forEach(CacheStatisticsMXBean::clear);
+        metricRegistry.removeMatching((name, metric) -> name.startsWith(LOADS + "."));
+    }
+
+    /**
+     * The statistics MBeans of the caches of this cache manager, by cache name. The MBeans are named after the URI of
+     * their cache manager, with the characters which are special in object names replaced by dots.
+     */
+    private Map<String, CacheStatisticsMXBean> getStatisticsBeans() {
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        String cacheManagerName = cacheManager.getURI().toString().replaceAll(",|:|=|\n", ".");
+        Map<String, CacheStatisticsMXBean> statistics = new HashMap<>();
+        try {
+            for (ObjectName objectName : mBeanServer.queryNames(
+                new ObjectName("javax.cache:type=CacheStatistics,CacheManager=*,Cache=*"), null)) {
+                if (!cacheManagerName.equals(objectName.getKeyProperty("CacheManager"))) {
+                    continue;
+                }
+                statistics.put(objectName.getKeyProperty("Cache"),
+                    JMX.newMXBeanProxy(mBeanServer, objectName, CacheStatisticsMXBean.class));
+            }
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
+        return statistics;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResourcePools getResourcePools(String name) {
+        Cache<Object, Object> cache = cacheManager.getCache(name);
+        try {
+            Eh107Configuration<Object, Object> configuration = cache.getConfiguration(Eh107Configuration.class);
+            return configuration.unwrap(CacheRuntimeConfiguration.class).getResourcePools();
+        } catch (IllegalArgumentException e) {
+            log.debug("Cache {} is not an Ehcache cache", name);
+            return null;
+        }
+    }
+}
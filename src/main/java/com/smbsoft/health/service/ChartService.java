@@ -0,0 +1,125 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.domain.enumeration.WeightUnits;
+import com.smbsoft.health.service.dto.ChartDTO;
+import com.smbsoft.health.service.util.Downsampler;
+import com.smbsoft.health.service.util.Downsampler.Resolution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Service for the downsampled charts of the weights and blood pressures of a user, so that the size of a chart does
+ * not depend on how long the user has been tracking them.
+ * <p>
+ * The readings of the range are read in chronological order as plain columns, without loading the entities, and
+ * downsampled by a {@link Downsampler}.
+ * </p>
+ */
+@Service
+public class ChartService {
+
+    /**
+     * Largest number of points of a chart made of selected readings.
+     */
+    public static final int MAX_POINTS = 5000;
+
+    private static final String WEIGHTS_QUERY = "select w.date, w.grams from weight w " +
+        "join jhi_user u on u.id = w.user_id where u.login = ? and w.date between ? and ? and w.grams is not null " +
+        "order by w.date, w.id";
+
+    private static final String BLOOD_PRESSURES_QUERY = "select bp.date, bp.systolic, bp.diastolic from blood_pressure bp " +
+        "join jhi_user u on u.id = bp.user_id where u.login = ? and bp.date between ? and ? " +
+        "and bp.systolic is not null and bp.diastolic is not null order by bp.date, bp.id";
+
+    private final Logger log = LoggerFactory.getLogger(ChartService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ChartService(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Get the means of the weights of a user per period.
+     *
+     * @param login the login of the user
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @param unit the unit of the weights
+     * @param resolution the period
+     * @return the chart, with a "weight" series
+     */
+    public ChartDTO getWeights(String login, LocalDate from, LocalDate to, WeightUnits unit, Resolution resolution) {
+        ChartDTO chart = readWeights(login, from, to, unit).average(resolution);
+        chart.setUnit(unit.name());
+        return chart;
+    }
+
+    /**
+     * Get the weights of a user keeping the shape of the series.
+     *
+     * @param login the login of the user
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @param unit the unit of the weights
+     * @param maxPoints the maximum number of points, at least 3
+     * @return the chart, with a "weight" series
+     */
+    public ChartDTO getWeights(String login, LocalDate from, LocalDate to, WeightUnits unit, int maxPoints) {
+        ChartDTO chart = readWeights(login, from, to, unit).select(maxPoints);
+        chart.setUnit(unit.name());
+        return chart;
+    }
+
+    /**
+     * Get the means of the blood pressures of a user per period.
+     *
+     * @param login the login of the user
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @param resolution the period
+     * @return the chart, with a "systolic" and a "diastolic" series
+     */
+    public ChartDTO getBloodPressures(String login, LocalDate from, LocalDate to, Resolution resolution) {
+        return readBloodPressures(login, from, to).average(resolution);
+    }
+
+    /**
+     * Get the blood pressures of a user keeping the shape of the series.
+     *
+     * @param login the login of the user
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @param maxPoints the maximum number of points, at least 3
+     * @return the chart, with a "systolic" and a "diastolic" series
+     */
+    public ChartDTO getBloodPressures(String login, LocalDate from, LocalDate to, int maxPoints) {
+        return readBloodPressures(login, from, to).select(maxPoints);
+    }
+
+    private Downsampler readWeights(String login, LocalDate from, LocalDate to, WeightUnits unit) {
+        log.debug("Reading the weights of user {} from {} to {}", login, from, to);
+        Downsampler weights = new Downsampler("weight");
+        jdbcTemplate.query(WEIGHTS_QUERY, (RowCallbackHandler) resultSet ->
+            weights.add(resultSet.getDate(1).toLocalDate().toEpochDay(), unit.fromGrams(resultSet.getLong(2))),
+            login, Date.valueOf(from), Date.valueOf(to));
+        return weights;
+    }
+
+    private Downsampler readBloodPressures(String login, LocalDate from, LocalDate to) {
+        log.debug("Reading the blood pressures of user {} from {} to {}", login, from, to);
+        Downsampler bloodPressures = new Downsampler("systolic", "diastolic");
+        jdbcTemplate.query(BLOOD_PRESSURES_QUERY, (RowCallbackHandler) resultSet ->
+            bloodPressures.add(resultSet.getDate(1).toLocalDate().toEpochDay(), resultSet.getInt(2), resultSet.getInt(3)),
+            login, Date.valueOf(from), Date.valueOf(to));
+        return bloodPressures;
+    }
+}
@@ -0,0 +1,96 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.domain.enumeration.WeightUnits;
+import com.smbsoft.health.repository.BloodPressureRepository;
+import com.smbsoft.health.repository.UserSettingsRepository;
+import com.smbsoft.health.repository.WeightRepository;
+import com.smbsoft.health.service.dto.DashboardDTO;
+import com.smbsoft.health.service.dto.DashboardDTO.BloodPressureReading;
+import com.smbsoft.health.service.dto.DashboardDTO.WeightReading;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Service for the home page of a user.
+ * <p>
+ * Everything is read in a single read-only transaction, on one connection and from one consistent state of the
+ * database, instead of one request and one transaction per kind of data.
+ * </p>
+ */
+@Service
+@Transactional(readOnly = true)
+public class DashboardService {
+
+    private final Logger log = LoggerFactory.getLogger(DashboardService.class);
+
+    private final PointsService pointsService;
+
+    private final WeightRepository weightRepository;
+
+    private final BloodPressureRepository bloodPressureRepository;
+
+    private final UserSettingsRepository userSettingsRepository;
+
+    public DashboardService(PointsService pointsService, WeightRepository weightRepository,
+                            BloodPressureRepository bloodPressureRepository,
+                            UserSettingsRepository userSettingsRepository) {
+        this.pointsService = pointsService;
+        this.weightRepository = weightRepository;
+        this.bloodPressureRepository = bloodPressureRepository;
+        this.userSettingsRepository = userSettingsRepository;
+    }
+
+    /**
+     * Get the dashboard of a user for a date range.
+     * <p>
+     * The latest weight and blood pressure are the last ones of the range, or the last ones before it when the range
+     * has none.
+     * </p>
+     *
+     * @param login the login of the user
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @return the dashboard
+     */
+    public DashboardDTO getDashboard(String login, LocalDate from, LocalDate to) {
+        log.debug("Request to get the dashboard of user {} from {} to {}", login, from, to);
+        DashboardDTO dashboard = new DashboardDTO(from, to);
+        userSettingsRepository.findOneByUserLogin(login).ifPresent(settings -> {
+            dashboard.setWeeklyGoal(settings.getWeeklyGoal());
+            dashboard.setWeightUnit(settings.getWeightUnit());
+        });
+        dashboard.setWeeks(pointsService.getPointsByWeek(login, from, to));
+
+        // The weights are given in the weight unit of the user, whatever unit they were entered in
+        WeightUnits unit = dashboard.getWeightUnit() != null ? dashboard.getWeightUnit() : Weight.DEFAULT_UNIT;
+        List<WeightReading> weights = weightRepository.findByUserLoginAndDateBetweenOrderByDateAscIdAsc(login, from, to)
+            .stream().map(weight -> new WeightReading(weight, unit)).collect(Collectors.toList());
+        dashboard.setWeights(weights);
+        if (!weights.isEmpty()) {
+            dashboard.setLatestWeight(weights.get(weights.size() - 1));
+        } else {
+            weightRepository.findFirstByUserLoginAndDateLessThanEqualOrderByDateDescIdDesc(login, to)
+                .ifPresent(weight -> dashboard.setLatestWeight(new WeightReading(weight, unit)));
+        }
+
+        List<BloodPressureReading> bloodPressures = bloodPressureRepository
+            .findByUserLoginAndDateBetweenOrderByDateAscIdAsc(login, from, to)
+            .stream().map(BloodPressureReading::new).collect(Collectors.toList());
+        dashboard.setBloodPressures(bloodPressures);
+        if (!bloodPressures.isEmpty()) {
+            dashboard.setLatestBloodPressure(bloodPressures.get(bloodPressures.size() - 1));
+        } else {
+            bloodPressureRepository.findFirstByUserLoginAndDateLessThanEqualOrderByDateDescIdDesc(login, to)
+                .ifPresent(bloodPressure -> dashboard.setLatestBloodPressure(new BloodPressureReading(bloodPressure)));
+        }
+        return dashboard;
+    }
+}
@@ -0,0 +1,166 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.domain.CacheInvalidationEvent;
+import com.smbsoft.health.repository.CacheInvalidationEventRepository;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Cache invalidation bus writing the invalidations to the cache_invalidation table, which every node polls for the
+ * invalidations published by the others.
+ * <p>
+ * Each node reads the events in id order from the last one it read. As the ids are allocated when the events are
+ * inserted, and not when they are committed, an event with a lower id can become visible after a higher one: the ids
+ * skipped by a poll are read again by the next polls, until their event shows up or {@link #GAP_TIMEOUT} elapsed, as
+ * the transaction inserting it rolled back.
+ * </p>
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.cache.invalidation", name = "bus", havingValue = "database")
+public class DatabaseCacheInvalidationBus implements CacheInvalidationBus {
+
+    static final long GAP_TIMEOUT = 60000;
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(DatabaseCacheInvalidationBus.class);
+
+    private final CacheInvalidationEventRepository cacheInvalidationEventRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.Cache.Invalidation properties;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final List<Consumer<Invalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    private final Map<Long, Long> gaps = new HashMap<>();
+
+    private final Meter published;
+
+    private final Meter received;
+
+    private long lastId;
+
+    public DatabaseCacheInvalidationBus(CacheInvalidationEventRepository cacheInvalidationEventRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.cacheInvalidationEventRepository = cacheInvalidationEventRepository;
+        // The invalidations are published after the commit of the changes, from the synchronizations of their
+        // transaction, which cannot write anymore
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = applicationProperties.getCache().getInvalidation();
+        this.published = metricRegistry.meter(MetricRegistry.name(DatabaseCacheInvalidationBus.class, "published"));
+        this.received = metricRegistry.meter(MetricRegistry.name(DatabaseCacheInvalidationBus.class, "received"));
+    }
+
+    /**
+     * Start from the last event: the caches of a node which just started hold nothing to invalidate.
+     */
+    @PostConstruct
+    public synchronized void init() {
+        Long maxId = cacheInvalidationEventRepository.findMaxId();
+        lastId = maxId != null ? maxId : 0;
+        log.info("Polling the cache invalidations of the other nodes from {}, as node {}", lastId, nodeId);
+    }
+
+    @Override
+    public void publish(Collection<Invalidation> invalidations) {
+        if (invalidations.isEmpty()) {
+            return;
+        }
+        log.debug("Publishing cache invalidations {}", invalidations);
+        List<CacheInvalidationEvent> events = new ArrayList<>(invalidations.size());
+        for (Invalidation invalidation : invalidations) {
+            events.add(new CacheInvalidationEvent(nodeId, invalidation.getCacheName(), invalidation.getKey()));
+        }
+        transactionTemplate.execute(status -> cacheInvalidationEventRepository.save(events));
+        published.mark(events.size());
+    }
+
+    @Override
+    public void subscribe(Consumer<Invalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    /**
+     * Deliver the invalidations published by the other nodes since the last poll.
+     */
+    @Scheduled(fixedDelayString = "${application.cache.invalidation.poll-delay:1000}")
+    public synchronized void poll() {
+        long now = System.currentTimeMillis();
+        gaps.values().removeIf(skipped -> now - skipped > GAP_TIMEOUT);
+        if (!gaps.isEmpty()) {
+            List<CacheInvalidationEvent> events = cacheInvalidationEventRepository.findByIdIn(gaps.keySet());
+            events.forEach(event -> gaps.remove(event.getId()));
+            deliver(events);
+        }
+        List<CacheInvalidationEvent> events;
+        do {
+            events = cacheInvalidationEventRepository.findByIdGreaterThanOrderById(lastId,
+                new PageRequest(0, BATCH_SIZE));
+            for (CacheInvalidationEvent event : events) {
+                // Larger jumps of the ids are not gaps, but ids allocated in advance by the database
+                for (long skipped = Math.max(lastId + 1, event.getId() - BATCH_SIZE); skipped < event.getId();
+                     skipped++) {
+                    gaps.put(skipped, now);
+                }
+                lastId = event.getId();
+            }
+            deliver(events);
+        } while (events.size() == BATCH_SIZE);
+    }
+
+    /**
+     * Delete the events older than the retention period, which all the nodes have read.
+     * <p>
+     * This is scheduled to get fired every 10 minutes.
+     * </p>
+     */
+    @Scheduled(cron = "0 */10 * * * ?")
+    public void removeOldEvents() {
+        ZonedDateTime limit = ZonedDateTime.now().minusMinutes(properties.getRetentionMinutes());
+        int deleted = transactionTemplate.execute(status -> cacheInvalidationEventRepository.deleteCreatedBefore(limit));
+        log.debug("Deleted {} cache invalidation events", deleted);
+    }
+
+    String getNodeId() {
+        return nodeId;
+    }
+
+    private void deliver(List<CacheInvalidationEvent> events) {
+        for (CacheInvalidationEvent event : events) {
+            if (nodeId.equals(event.getNodeId())) {
+                continue;
+            }
+            Invalidation invalidation = new Invalidation(event.getCacheName(), event.getCacheKey());
+            for (Consumer<Invalidation> subscriber : subscribers) {
+                try {
+                    subscriber.accept(invalidation);
+                } catch (RuntimeException e) {
+                    log.error("Could not apply the cache invalidation {}", invalidation, e);
+                }
+            }
+            received.mark();
+        }
+    }
+}
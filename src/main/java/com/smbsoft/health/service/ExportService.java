@@ -0,0 +1,269 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.config.ApplicationProperties;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Service for exporting the full history of a user.
+ * <p>
+ * Every table is read with a forward-only cursor, fetching {@code fetchSize} rows per round trip, and each row is
+ * written to the output as soon as it is read: the memory used does not depend on the size of the history. The cursor
+ * is read in a read-only transaction, which PostgreSQL requires to fetch the rows by batches instead of all at once.
+ * </p>
+ */
+@Service
+public class ExportService {
+
+    /**
+     * The columns of the CSV export, each type of row filling its own.
+     */
+    static final List<String> COLUMNS = Arrays.asList("type", "id", "date", "exercise", "meals", "alcohol", "notes",
+        "weight", "unit", "systolic", "diastolic");
+
+    /**
+     * The types of rows which can be exported.
+     */
+    public enum Type {
+        POINTS("points", "points", "exercise", "meals", "alcohol", "notes"),
+        WEIGHT("weight", "weight", "weight", "unit"),
+        BLOOD_PRESSURE("bp", "blood_pressure", "systolic", "diastolic");
+
+        private final String value;
+
+        private final List<String> columns;
+
+        private final String query;
+
+        Type(String value, String table, String... columns) {
+            this.value = value;
+            this.columns = Arrays.asList(columns);
+            this.query = "select id, date, " + String.join(", ", columns) + " from " + table +
+                " where user_id = ? order by date, id";
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * @param value the name of the type in a request
+         * @return the type
+         * @throws IllegalArgumentException if there is no type with this name
+         */
+        public static Type fromValue(String value) {
+            for (Type type : values()) {
+                if (type.value.equals(value)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown export type: " + value);
+        }
+    }
+
+    /**
+     * The formats of an export.
+     */
+    public enum Format {
+        CSV("text/csv"),
+        NDJSON(BulkImportService.APPLICATION_NDJSON_VALUE);
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return name().toLowerCase();
+        }
+    }
+
+    private final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final Timer exports;
+
+    private final Meter rows;
+
+    public ExportService(DataSource dataSource, PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                         ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(applicationProperties.getExport().getFetchSize());
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.exports = metricRegistry.timer(MetricRegistry.name(ExportService.class, "exports"));
+        this.rows = metricRegistry.meter(MetricRegistry.name(ExportService.class, "rows"));
+    }
+
+    /**
+     * Write the rows of a user to an output, by type and in date order.
+     *
+     * @param userId the id of the user
+     * @param types the types of rows to export
+     * @param format the format of the export
+     * @param output the output, which is not closed
+     * @throws IOException if the output cannot be written
+     */
+    public void export(Long userId, Set<Type> types, Format format, OutputStream output) throws IOException {
+        log.debug("Request to export {} of user {} as {}", types, userId, format);
+        Timer.Context context = exports.time();
+        try {
+            RowWriter writer = format == Format.CSV ? new CsvRowWriter(output) : new NdjsonRowWriter(output);
+            writer.start();
+            for (Type type : types) {
+                transactionTemplate.execute(status -> {
+                    jdbcTemplate.query(type.query, (RowCallbackHandler) resultSet -> {
+                        try {
+                            writer.write(type, resultSet);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        rows.mark();
+                    }, userId);
+                    return null;
+                });
+            }
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            context.stop();
+        }
+    }
+
+    private interface RowWriter {
+
+        void start() throws IOException;
+
+        void write(Type type, ResultSet resultSet) throws IOException, SQLException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * Writes every row with the columns of {@link #COLUMNS}, those of the other types being left empty.
+     */
+    private static class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream output) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(Type type, ResultSet resultSet) throws IOException, SQLException {
+            writer.write(type.getValue());
+            writer.write(',');
+            writer.write(Long.toString(resultSet.getLong("id")));
+            writer.write(',');
+            Date date = resultSet.getDate("date");
+            if (date != null) {
+                writer.write(date.toLocalDate().toString());
+            }
+            for (String column : COLUMNS.subList(3, COLUMNS.size())) {
+                writer.write(',');
+                Object value = type.columns.contains(column) ? resultSet.getObject(column) : null;
+                if (value instanceof String) {
+                    writer.write(escape((String) value));
+                } else if (value != null) {
+                    writer.write(value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 &&
+                value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    /**
+     * Writes every row as a JSON document on its own line, with a "type" field and the columns of its table.
+     */
+    private class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(OutputStream output) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(output);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Each document ends its own line, instead of being separated from the previous one by a space
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void write(Type type, ResultSet resultSet) throws IOException, SQLException {
+            generator.writeStartObject();
+            generator.writeStringField("type", type.getValue());
+            int columnCount = resultSet.getMetaData().getColumnCount();
+            for (int i = 1; i <= columnCount; i++) {
+                String column = resultSet.getMetaData().getColumnLabel(i).toLowerCase();
+                Object value = resultSet.getObject(i);
+                if (value instanceof Date) {
+                    generator.writeStringField(column, ((Date) value).toLocalDate().toString());
+                } else if (value != null) {
+                    generator.writeObjectField(column, value);
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+    }
+}
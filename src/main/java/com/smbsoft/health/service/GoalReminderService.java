@@ -0,0 +1,186 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.domain.User;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Service reminding the users who have not reached their weekly goal yet.
+ * <p>
+ * The progress of the users is read in batches of users ordered by id, each batch being a single query joining the
+ * settings of the users with their row of the weekly points rollup, which only returns the users behind their goal.
+ * The reminders are sent by the {@link MailService}, at most a configured number at the same time: the evaluation
+ * waits for a send to complete before starting another one, so the queue of the mail executor stays short.
+ * </p>
+ * <p>
+ * The run is scheduled on every node: a reminder is claimed by inserting the row of the user and the week in the
+ * goal_reminder_sent table before it is sent, so that each user gets one reminder per week, whichever node sends it,
+ * and however many times the week is evaluated.
+ * </p>
+ */
+@Service
+public class GoalReminderService {
+
+    private static final String PROGRESS_QUERY = "select u.id, u.login, u.email, u.lang_key, s.weekly_goal, " +
+        "coalesce(w.exercise + w.meals + w.alcohol, 0) from jhi_user u " +
+        "join user_settings s on s.user_id = u.id " +
+        "left join points_weekly_summary w on w.user_id = u.id and w.week_start = ? " +
+        "where u.id > ? and u.activated = true and u.email is not null and s.weekly_goal > 0 " +
+        "and coalesce(w.exercise + w.meals + w.alcohol, 0) < s.weekly_goal " +
+        "and not exists (select 1 from goal_reminder_sent r where r.user_id = u.id and r.week_start = ?) " +
+        "order by u.id limit ?";
+
+    private static final String CLAIM = "insert into goal_reminder_sent (user_id, week_start) values (?, ?)";
+
+    private static final String RELEASE = "delete from goal_reminder_sent where user_id = ? and week_start = ?";
+
+    private static final String PURGE = "delete from goal_reminder_sent where week_start < ?";
+
+    /**
+     * Number of weeks for which the sent reminders are kept.
+     */
+    private static final int KEPT_WEEKS = 4;
+
+    private final Logger log = LoggerFactory.getLogger(GoalReminderService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final MailService mailService;
+
+    private final ApplicationProperties.GoalReminder properties;
+
+    private final Semaphore sends;
+
+    private final boolean insertOnConflictDoNothing;
+
+    public GoalReminderService(DataSource dataSource, MailService mailService,
+                               ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.mailService = mailService;
+        this.properties = applicationProperties.getGoalReminder();
+        this.sends = new Semaphore(properties.getMaxConcurrentSends());
+        this.insertOnConflictDoNothing = "PostgreSQL".equals(jdbcTemplate.execute(
+            (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+    }
+
+    /**
+     * Remind the users of their weekly goal, while there are still a few days left to reach it.
+     * <p>
+     * This is scheduled to get fired every Friday, at 09:00 (am).
+     * </p>
+     */
+    @Scheduled(cron = "0 0 9 * * FRI")
+    public void remindWeeklyGoals() {
+        remindWeeklyGoals(LocalDate.now());
+    }
+
+    /**
+     * Remind the users who have fewer points than their weekly goal in a week, and have not been reminded yet.
+     *
+     * @param day a day of the week
+     * @return the number of reminders sent
+     */
+    public int remindWeeklyGoals(LocalDate day) {
+        LocalDate weekStart = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        log.info("Reminding the users behind their weekly goal in the week of {}", weekStart);
+        jdbcTemplate.update(PURGE, java.sql.Date.valueOf(weekStart.minusWeeks(KEPT_WEEKS)));
+        int batchSize = properties.getBatchSize();
+        int reminded = 0;
+        long lastId = 0;
+        List<Progress> batch;
+        try {
+            do {
+                batch = jdbcTemplate.query(PROGRESS_QUERY, (resultSet, rowNum) -> {
+                    User user = new User();
+                    user.setId(resultSet.getLong(1));
+                    user.setLogin(resultSet.getString(2));
+                    user.setEmail(resultSet.getString(3));
+                    user.setLangKey(resultSet.getString(4));
+                    return new Progress(user, resultSet.getInt(6), resultSet.getInt(5));
+                }, weekStart, lastId, weekStart, batchSize);
+                for (Progress progress : batch) {
+                    if (claim(progress.user, weekStart) && send(progress, weekStart)) {
+                        reminded++;
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    lastId = batch.get(batch.size() - 1).user.getId();
+                }
+            } while (batch.size() == batchSize);
+            // Wait for the last sends, so that the next run starts with every permit
+            sends.acquire(properties.getMaxConcurrentSends());
+            sends.release(properties.getMaxConcurrentSends());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while reminding the users of their weekly goal, after {} reminders", reminded);
+            return reminded;
+        }
+        log.info("Reminded {} users of their weekly goal", reminded);
+        return reminded;
+    }
+
+    /**
+     * @return whether the reminder of the user in the week was not claimed yet, by this node or another one
+     */
+    private boolean claim(User user, LocalDate weekStart) {
+        java.sql.Date week = java.sql.Date.valueOf(weekStart);
+        if (insertOnConflictDoNothing) {
+            return jdbcTemplate.update(CLAIM + " on conflict do nothing", user.getId(), week) > 0;
+        }
+        try {
+            return jdbcTemplate.update(CLAIM, user.getId(), week) > 0;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return whether the reminder was handed to the mail executor; if not, the claim is released for the next run
+     */
+    private boolean send(Progress progress, LocalDate weekStart) throws InterruptedException {
+        sends.acquire();
+        try {
+            mailService.sendGoalReminderEmail(progress.user, progress.points, progress.goal)
+                .whenComplete((result, e) -> sends.release());
+            return true;
+        } catch (RuntimeException e) {
+            // Rejected by the mail executor
+            sends.release();
+            jdbcTemplate.update(RELEASE, progress.user.getId(), java.sql.Date.valueOf(weekStart));
+            log.warn("Goal reminder e-mail could not be sent to user '{}'", progress.user.getLogin(), e);
+            return false;
+        }
+    }
+
+    /**
+     * The points of a user in a week, and the weekly goal of the user.
+     */
+    private static final class Progress {
+
+        private final User user;
+
+        private final int points;
+
+        private final int goal;
+
+        private Progress(User user, int points, int goal) {
+            this.user = user;
+            this.points = points;
+            this.goal = goal;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.domain.PointsWeeklySummary;
+import com.smbsoft.health.domain.PointsWeeklySummary.PointsWeeklySummaryId;
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.repository.PointsWeeklySummaryRepository;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.service.CacheInvalidationBus.Invalidation;
+import com.smbsoft.health.service.dto.LeaderboardDTO;
+import com.smbsoft.health.service.util.Leaderboard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Service ranking the users by their points of a week.
+ * <p>
+ * The rankings of the recent weeks are kept in memory, each loaded once from the weekly rollup: the current week when
+ * the application starts, and the other ones when they are first requested. The rankings of the older weeks, and of
+ * the weeks to come, are loaded for each request instead, so that they never evict a recent week. Whenever the points of a user change in
+ * a week, the rollup row of the user is read again once the transaction committed, in a new transaction, and the
+ * score of the user is updated in the ranking, so that reading a ranking never scans the rollup. The other nodes of
+ * the cluster are told through the {@link CacheInvalidationBus}, and read the row as well.
+ * </p>
+ */
+@Service
+public class LeaderboardService {
+
+    public static final String LEADERBOARD = "leaderboard";
+
+    /**
+     * The key of the invalidation of every week, after the rollup was rebuilt.
+     */
+    private static final String ALL_WEEKS = "*";
+
+    private final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    private final PointsWeeklySummaryRepository pointsWeeklySummaryRepository;
+
+    private final UserRepository userRepository;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.Leaderboard properties;
+
+    private final NavigableMap<LocalDate, Leaderboard> weeks = new TreeMap<>();
+
+    public LeaderboardService(PointsWeeklySummaryRepository pointsWeeklySummaryRepository,
+                              UserRepository userRepository, CacheInvalidationService cacheInvalidationService,
+                              CacheInvalidationBus cacheInvalidationBus, PlatformTransactionManager transactionManager,
+                              ApplicationProperties applicationProperties) {
+        this.pointsWeeklySummaryRepository = pointsWeeklySummaryRepository;
+        this.userRepository = userRepository;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        // The rows are read after the transaction of the change committed, or outside of any
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+        this.properties = applicationProperties.getLeaderboard();
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        cacheInvalidationBus.subscribe(invalidation -> {
+            if (LEADERBOARD.equals(invalidation.getCacheName())) {
+                if (ALL_WEEKS.equals(invalidation.getKey())) {
+                    clear();
+                } else {
+                    refresh(Collections.singleton(WeekScore.parse(invalidation.getKey())));
+                }
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCurrentWeek() {
+        getWeek(weekStart(LocalDate.now()));
+    }
+
+    /**
+     * Get the ranking of a week.
+     *
+     * @param day a day of the week
+     * @param login the login of the current user
+     * @param limit the maximum number of users at the top of the ranking
+     * @return the ranking
+     */
+    public LeaderboardDTO getLeaderboard(LocalDate day, String login, int limit) {
+        LocalDate weekStart = weekStart(day);
+        log.debug("Request to get the leaderboard of the week of {} for user {}", weekStart, login);
+        Leaderboard leaderboard = getWeek(weekStart);
+        List<Leaderboard.Rank> top = leaderboard.getTop(Math.min(limit, properties.getMaxTop()));
+        Optional<User> user = userRepository.findOneByLogin(login);
+        Map<Long, String> logins = transactionTemplate.execute(status ->
+            userRepository.findAll(top.stream().map(Leaderboard.Rank::getUserId).collect(Collectors.toList())))
+            .stream().collect(Collectors.toMap(User::getId, User::getLogin));
+
+        LeaderboardDTO result = new LeaderboardDTO(weekStart, leaderboard.size());
+        for (Leaderboard.Rank rank : top) {
+            result.getTop().add(new LeaderboardDTO.Entry(logins.get(rank.getUserId()), rank.getScore(), rank.getRank()));
+        }
+        user.ifPresent(me -> {
+            Integer score = leaderboard.getScore(me.getId());
+            Integer rank = leaderboard.getRank(me.getId());
+            if (score != null && rank != null) {
+                result.setMe(new LeaderboardDTO.Entry(me.getLogin(), score, rank));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Update the ranking of a week once the points of a user in that week have changed, after the current transaction
+     * commits if there is one.
+     *
+     * @param userId the id of the user
+     * @param weekStart the first day of the week
+     */
+    @SuppressWarnings("unchecked")
+    public void pointsChanged(Long userId, LocalDate weekStart) {
+        WeekScore changed = new WeekScore(weekStart, userId);
+        cacheInvalidationService.invalidate(Collections.singleton(new Invalidation(LEADERBOARD, changed)));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh(Collections.singleton(changed));
+            return;
+        }
+        Set<WeekScore> pending = (Set<WeekScore>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<WeekScore> transactionChanges = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, transactionChanges);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    refresh(transactionChanges);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(LeaderboardService.this);
+                }
+            });
+            pending = transactionChanges;
+        }
+        pending.add(changed);
+    }
+
+    /**
+     * Drop every ranking once the weekly rollup has been rebuilt, after the current transaction commits if there is
+     * one: they are loaded again when requested.
+     */
+    public void rollupRebuilt() {
+        cacheInvalidationService.invalidate(Collections.singleton(new Invalidation(LEADERBOARD, ALL_WEEKS)));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    clear();
+                }
+            });
+        } else {
+            clear();
+        }
+    }
+
+    /**
+     * Read again the points of users in the weeks which are loaded.
+     * <p>
+     * The rows are read while holding the lock of the service, so a row read after another one was committed later
+     * than it, and the last score set is the one committed last.
+     * </p>
+     */
+    private synchronized void refresh(Collection<WeekScore> changes) {
+        List<WeekScore> loaded = changes.stream()
+            .filter(change -> weeks.containsKey(change.weekStart))
+            .collect(Collectors.toList());
+        if (loaded.isEmpty()) {
+            return;
+        }
+        transactionTemplate.execute(status -> {
+            for (WeekScore change : loaded) {
+                PointsWeeklySummary summary = pointsWeeklySummaryRepository.findOne(
+                    new PointsWeeklySummaryId(change.userId, change.weekStart));
+                weeks.get(change.weekStart).setScore(change.userId, summary != null ? summary.getPoints() : null);
+            }
+            return null;
+        });
+    }
+
+    private Leaderboard getWeek(LocalDate weekStart) {
+        LocalDate currentWeek = weekStart(LocalDate.now());
+        if (weekStart.isAfter(currentWeek) || !weekStart.isAfter(currentWeek.minusWeeks(properties.getWeeks()))) {
+            log.debug("Loading the leaderboard of the week of {}, which is not a recent week", weekStart);
+            return load(weekStart);
+        }
+        synchronized (this) {
+            Leaderboard leaderboard = weeks.get(weekStart);
+            if (leaderboard == null) {
+                log.debug("Loading the leaderboard of the week of {}", weekStart);
+                leaderboard = load(weekStart);
+                weeks.put(weekStart, leaderboard);
+                while (weeks.size() > properties.getWeeks()) {
+                    // The weeks which are no longer recent, once a new week has started
+                    weeks.pollFirstEntry();
+                }
+            }
+            return leaderboard;
+        }
+    }
+
+    private Leaderboard load(LocalDate weekStart) {
+        return transactionTemplate.execute(status -> {
+            Leaderboard loaded = new Leaderboard();
+            for (PointsWeeklySummary summary : pointsWeeklySummaryRepository.findAllByWeekStart(weekStart)) {
+                loaded.setScore(summary.getUserId(), summary.getPoints());
+            }
+            return loaded;
+        });
+    }
+
+    private synchronized void clear() {
+        log.debug("Dropping the leaderboards of {} weeks", weeks.size());
+        weeks.clear();
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /**
+     * The points of a user in a week, with the key of its invalidation.
+     */
+    private static final class WeekScore {
+
+        private final LocalDate weekStart;
+
+        private final Long userId;
+
+        private WeekScore(LocalDate weekStart, Long userId) {
+            this.weekStart = weekStart;
+            this.userId = userId;
+        }
+
+        private static WeekScore parse(String key) {
+            int separator = key.indexOf('|');
+            return new WeekScore(LocalDate.parse(key.substring(0, separator)), Long.valueOf(key.substring(separator + 1)));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            WeekScore weekScore = (WeekScore) o;
+            return weekStart.equals(weekScore.weekStart) && userId.equals(weekScore.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(weekStart, userId);
+        }
+
+        @Override
+        public String toString() {
+            return weekStart + "|" + userId;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.smbsoft.health.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Cache invalidation bus delivering the invalidations to the subscribers of the node which published them.
+ * <p>
+ * This is the bus of a single node, where the caches are already evicted when the invalidations are published, and of
+ * the tests, which check what the other nodes would receive.
+ * </p>
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.cache.invalidation", name = "bus", havingValue = "loopback",
+    matchIfMissing = true)
+public class LoopbackCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final Logger log = LoggerFactory.getLogger(LoopbackCacheInvalidationBus.class);
+
+    private final List<Consumer<Invalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Collection<Invalidation> invalidations) {
+        log.debug("Publishing cache invalidations {}", invalidations);
+        for (Invalidation invalidation : invalidations) {
+            subscribers.forEach(subscriber -> subscriber.accept(invalidation));
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Invalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
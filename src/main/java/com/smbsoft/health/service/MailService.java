@@ -17,6 +17,7 @@ import org.thymeleaf.spring4.SpringTemplateEngine;
 
 import javax.mail.internet.MimeMessage;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Service for sending e-mails.
@@ -33,6 +34,10 @@ public class MailService {
 
     private static final String BASE_URL = "baseUrl";
 
+    private static final String POINTS = "points";
+
+    private static final String GOAL = "goal";
+
     private final JHipsterProperties jHipsterProperties;
 
     private final JavaMailSender javaMailSender;
@@ -105,4 +110,27 @@ public class MailService {
         String subject = messageSource.getMessage("email.reset.title", null, locale);
         sendEmail(user.getEmail(), subject, content, false, true);
     }
+
+    /**
+     * Send the reminder of the weekly goal of a user.
+     *
+     * @param user the user, with a login, an e-mail and a language
+     * @param points the points of the user in the current week
+     * @param goal the weekly goal of the user
+     * @return a future completed once the e-mail was sent, or could not be
+     */
+    @Async
+    public CompletableFuture<Void> sendGoalReminderEmail(User user, int points, int goal) {
+        log.debug("Sending goal reminder e-mail to '{}'", user.getEmail());
+        Locale locale = Locale.forLanguageTag(user.getLangKey());
+        Context context = new Context(locale);
+        context.setVariable(USER, user);
+        context.setVariable(POINTS, points);
+        context.setVariable(GOAL, goal);
+        context.setVariable(BASE_URL, jHipsterProperties.getMail().getBaseUrl());
+        String content = templateEngine.process("goalReminderEmail", context);
+        String subject = messageSource.getMessage("email.goal.title", null, locale);
+        sendEmail(user.getEmail(), subject, content, false, true);
+        return CompletableFuture.completedFuture(null);
+    }
 }
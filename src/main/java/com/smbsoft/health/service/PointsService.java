@@ -0,0 +1,430 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.domain.Points;
+import com.smbsoft.health.domain.PointsWeeklySummary;
+import com.smbsoft.health.repository.PointsRepository;
+import com.smbsoft.health.repository.PointsWeeklySummaryRepository;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.repository.search.PointsSearchRepository;
+import com.smbsoft.health.service.dto.PointsPerPeriodDTO;
+import com.smbsoft.health.service.util.SearchQueryUtil;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Service Implementation for managing Points.
+ * <p>
+ * Every write also maintains the points_weekly_summary rollup in the same transaction, so that weekly
+ * totals are read with a primary key range lookup instead of scanning the points table.
+ * </p>
+ */
+@Service
+@Transactional
+public class PointsService {
+
+    private final Logger log = LoggerFactory.getLogger(PointsService.class);
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    private static final String INSERT_WEEK = "insert into points_weekly_summary " +
+        "(user_id, week_start, exercise, meals, alcohol, entries) values (?, ?, 0, 0, 0, 0)";
+
+    private final PointsRepository pointsRepository;
+
+    private final PointsSearchRepository pointsSearchRepository;
+
+    private final PointsWeeklySummaryRepository pointsWeeklySummaryRepository;
+
+    private final SearchIndexingService searchIndexingService;
+
+    private final UserRepository userRepository;
+
+    private final EntityManager entityManager;
+
+    private final UserQueryCache userQueryCache;
+
+    private final LeaderboardService leaderboardService;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Whether the database ignores the conflicts of an insert, or rejects the statement without aborting the
+     * transaction, as H2 does.
+     */
+    private final boolean insertOnConflictDoNothing;
+
+    public PointsService(PointsRepository pointsRepository, PointsSearchRepository pointsSearchRepository,
+                         PointsWeeklySummaryRepository pointsWeeklySummaryRepository,
+                         SearchIndexingService searchIndexingService, UserRepository userRepository,
+                         EntityManager entityManager, UserQueryCache userQueryCache,
+                         LeaderboardService leaderboardService, DataSource dataSource) {
+        this.pointsRepository = pointsRepository;
+        this.pointsSearchRepository = pointsSearchRepository;
+        this.pointsWeeklySummaryRepository = pointsWeeklySummaryRepository;
+        this.searchIndexingService = searchIndexingService;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.userQueryCache = userQueryCache;
+        this.leaderboardService = leaderboardService;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.insertOnConflictDoNothing = "PostgreSQL".equals(jdbcTemplate.execute(
+            (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+    }
+
+    /**
+     * Save a points, and apply the difference with its previous state to the weekly rollup.
+     *
+     * @param points the entity to save
+     * @return the persisted entity
+     */
+    public Points save(Points points) {
+        log.debug("Request to save Points : {}", points);
+        PointsDelta previous = null;
+        if (points.getId() != null) {
+            Points existing = pointsRepository.findOne(points.getId());
+            if (existing != null) {
+                // Capture the previous state before the merge copies the new values onto the managed entity
+                previous = new PointsDelta(existing);
+            }
+        }
+        Points result = pointsRepository.save(points);
+        PointsDelta current = new PointsDelta(result);
+        if (previous != null && previous.sameWeekAs(current)) {
+            applyToWeeklySummary(current.userId, current.weekStart,
+                current.exercise - previous.exercise, current.meals - previous.meals,
+                current.alcohol - previous.alcohol, 0);
+        } else {
+            if (previous != null) {
+                previous.remove();
+            }
+            current.add();
+        }
+        searchIndexingService.index(result);
+        return result;
+    }
+
+    /**
+     * Save new points in bulk, and apply them to the weekly rollup once per week.
+     *
+     * @param points the new entities to save
+     * @return the persisted entities
+     */
+    public List<Points> saveAll(List<Points> points) {
+        log.debug("Request to save {} Points", points.size());
+        List<Points> result = pointsRepository.save(points);
+        Map<List<Object>, PointsWeeklySummary> weeks = new LinkedHashMap<>();
+        for (Points saved : result) {
+            PointsDelta delta = new PointsDelta(saved);
+            if (delta.isSummarized()) {
+                weeks.computeIfAbsent(Arrays.asList(delta.userId, delta.weekStart),
+                    key -> new PointsWeeklySummary(delta.userId, delta.weekStart))
+                    .add(delta.exercise, delta.meals, delta.alcohol, 1);
+            }
+        }
+        for (PointsWeeklySummary week : weeks.values()) {
+            applyToWeeklySummary(week.getUserId(), week.getWeekStart(), week.getExercise(), week.getMeals(),
+                week.getAlcohol(), week.getEntries());
+        }
+        searchIndexingService.indexAll(result);
+        return result;
+    }
+
+    /**
+     * Get all the points.
+     *
+     * @param pageable the pagination information
+     * @return the list of entities
+     */
+    @Transactional(readOnly = true)
+    public Page<Points> findAll(Pageable pageable) {
+        log.debug("Request to get all Points");
+        return pointsRepository.findAll(pageable);
+    }
+
+    /**
+     * Get the points of a user in a date range, most recent first, from the per-user query cache.
+     *
+     * @param login the login of the user
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @param pageable the pagination information
+     * @return the list of entities
+     */
+    @Transactional(readOnly = true)
+    public Page<Points> findAllByUserLogin(String login, LocalDate from, LocalDate to, Pageable pageable) {
+        log.debug("Request to get Points of user {} from {} to {}", login, from, to);
+        return userQueryCache.getPage(Points.class, login, from, to, pageable,
+            () -> pointsRepository.findByUserLoginAndDateBetweenOrderByDateDescIdDesc(login, from, to, pageable),
+            pointsRepository::findOne, Points::getId);
+    }
+
+    /**
+     * Get the points of a user in a date range whose (date, id) key is lower than the given one, most recent first.
+     *
+     * @param login the login of the user
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @param date the date of the last row of the previous page
+     * @param id the id of the last row of the previous page
+     * @param pageable the pagination information, only its size is used
+     * @return the list of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<Points> findAllByUserLoginAfterKey(String login, LocalDate from, LocalDate to,
+                                                    LocalDate date, Long id, Pageable pageable) {
+        log.debug("Request to get Points of user {} from {} to {} after ({}, {})", login, from, to, date, id);
+        return pointsRepository.findByUserLoginAndDateBetweenAfterKey(login, from, to, date, id, pageable);
+    }
+
+    /**
+     * Get one points by id.
+     *
+     * @param id the id of the entity
+     * @return the entity
+     */
+    @Transactional(readOnly = true)
+    public Points findOne(Long id) {
+        log.debug("Request to get Points : {}", id);
+        return pointsRepository.findOne(id);
+    }
+
+    /**
+     * Delete the points by id, and remove it from the weekly rollup.
+     *
+     * @param id the id of the entity
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete Points : {}", id);
+        Points existing = pointsRepository.findOne(id);
+        if (existing != null) {
+            new PointsDelta(existing).remove();
+        }
+        pointsRepository.delete(id);
+        searchIndexingService.delete(Points.class, id);
+    }
+
+    /**
+     * Search for the points of a user corresponding to the query.
+     *
+     * @param query the query of the search
+     * @param login the login of the user
+     * @param from the first day of the range, inclusive, or null
+     * @param to the last day of the range, inclusive, or null
+     * @param pageable the pagination information
+     * @return the list of entities
+     */
+    @Transactional(readOnly = true)
+    public Page<Points> searchByUserLogin(String query, String login, LocalDate from, LocalDate to, Pageable pageable) {
+        log.debug("Request to search for a page of Points of user {} for query {}", login, query);
+        return userRepository.findOneByLogin(login)
+            .map(user -> pointsSearchRepository.search(SearchQueryUtil.userScopedQuery(query, user.getId(), from, to), pageable))
+            .orElseGet(() -> new PageImpl<>(Collections.emptyList(), pageable, 0));
+    }
+
+    /**
+     * Get the points of a user per ISO week (starting on Monday), for the weeks overlapping the given date range.
+     * <p>
+     * This reads the weekly rollup, so its cost does not depend on the length of the user's history.
+     * </p>
+     *
+     * @param login the login of the user
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @return the non-empty weeks, in chronological order
+     */
+    @Transactional(readOnly = true)
+    public List<PointsPerPeriodDTO> getPointsByWeek(String login, LocalDate from, LocalDate to) {
+        log.debug("Request to get Points by week for user {} from {} to {}", login, from, to);
+        return pointsWeeklySummaryRepository.findAllByUserLoginAndWeekStartBetween(login, weekStart(from), weekStart(to))
+            .stream()
+            .map(summary -> new PointsPerPeriodDTO(summary.getWeekStart(), (long) summary.getExercise(),
+                (long) summary.getMeals(), (long) summary.getAlcohol()))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Get the points of a user per calendar month, for the months overlapping the given date range.
+     *
+     * @param login the login of the user
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @return the non-empty months, in chronological order
+     */
+    @Transactional(readOnly = true)
+    public List<PointsPerPeriodDTO> getPointsByMonth(String login, LocalDate from, LocalDate to) {
+        log.debug("Request to get Points by month for user {} from {} to {}", login, from, to);
+        LocalDate firstDay = from.with(TemporalAdjusters.firstDayOfMonth());
+        LocalDate lastDay = to.with(TemporalAdjusters.lastDayOfMonth());
+        return sumPerPeriod(login, firstDay, lastDay, day -> day.with(TemporalAdjusters.firstDayOfMonth()));
+    }
+
+    /**
+     * Rebuild the whole weekly rollup from the points table, for backfills or after a manual data fix.
+     * <p>
+     * Points are streamed already summed per user and day, so memory use does not depend on the size of the table.
+     * </p>
+     *
+     * @return the number of weekly rows written
+     */
+    public long rebuildWeeklySummaries() {
+        log.info("Rebuilding the weekly points rollup");
+        pointsWeeklySummaryRepository.deleteAllInBulk();
+        long written = 0;
+        PointsWeeklySummary week = null;
+        try (Stream<Object[]> days = pointsRepository.streamPointsPerUserAndDay()) {
+            for (Iterator<Object[]> it = days.iterator(); it.hasNext(); ) {
+                Object[] day = it.next();
+                Long userId = (Long) day[0];
+                LocalDate weekStart = weekStart((LocalDate) day[1]);
+                if (week == null || !week.getUserId().equals(userId) || !week.getWeekStart().equals(weekStart)) {
+                    if (week != null) {
+                        written = saveRebuiltWeek(week, written);
+                    }
+                    week = new PointsWeeklySummary(userId, weekStart);
+                }
+                week.add(intValue(day[2]), intValue(day[3]), intValue(day[4]), intValue(day[5]));
+            }
+        }
+        if (week != null) {
+            written = saveRebuiltWeek(week, written);
+        }
+        log.info("Rebuilt the weekly points rollup with {} rows", written);
+        leaderboardService.rollupRebuilt();
+        return written;
+    }
+
+    private long saveRebuiltWeek(PointsWeeklySummary week, long written) {
+        pointsWeeklySummaryRepository.save(week);
+        written++;
+        if (written % REBUILD_BATCH_SIZE == 0) {
+            pointsWeeklySummaryRepository.flush();
+            entityManager.clear();
+        }
+        return written;
+    }
+
+    private void applyToWeeklySummary(Long userId, LocalDate weekStart, int exercise, int meals, int alcohol, int entries) {
+        if (exercise == 0 && meals == 0 && alcohol == 0 && entries == 0) {
+            return;
+        }
+        // The row may have been deleted earlier in the transaction, which must reach the database before the insert
+        entityManager.flush();
+        boolean created = insertWeek(userId, weekStart);
+        PointsWeeklySummary summary = pointsWeeklySummaryRepository.findOneForUpdate(userId, weekStart);
+        if (summary.add(exercise, meals, alcohol, entries).getEntries() <= 0) {
+            if (created) {
+                log.warn("Weekly points rollup is missing the week of {} for user {}, it should be rebuilt", weekStart, userId);
+            }
+            pointsWeeklySummaryRepository.delete(summary);
+        }
+        leaderboardService.pointsChanged(userId, weekStart);
+    }
+
+    /**
+     * Insert the empty row of a week if there is none yet, so that there is always a row to lock: two concurrent
+     * first writes of a week would otherwise both insert it, and the second one would fail on the primary key.
+     * The insert waits for a concurrent insert of the same row to commit or roll back.
+     *
+     * @return whether the row was inserted
+     */
+    private boolean insertWeek(Long userId, LocalDate weekStart) {
+        java.sql.Date week = java.sql.Date.valueOf(weekStart);
+        if (insertOnConflictDoNothing) {
+            return jdbcTemplate.update(INSERT_WEEK + " on conflict do nothing", userId, week) > 0;
+        }
+        try {
+            return jdbcTemplate.update(INSERT_WEEK, userId, week) > 0;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private List<PointsPerPeriodDTO> sumPerPeriod(String login, LocalDate from, LocalDate to,
+                                                  UnaryOperator<LocalDate> periodStart) {
+        // The database groups by day, so at most one row per day is returned; days are then folded into periods
+        Map<LocalDate, PointsPerPeriodDTO> periods = new LinkedHashMap<>();
+        for (PointsPerPeriodDTO day : pointsRepository.sumPointsPerDayByUserLogin(login, from, to)) {
+            periods.computeIfAbsent(periodStart.apply(day.getStart()), PointsPerPeriodDTO::new).add(day);
+        }
+        return new ArrayList<>(periods.values());
+    }
+
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    private static int intValue(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    /**
+     * The contribution of one Points row to the weekly rollup.
+     */
+    private class PointsDelta {
+
+        private final Long userId;
+
+        private final LocalDate weekStart;
+
+        private final int exercise;
+
+        private final int meals;
+
+        private final int alcohol;
+
+        PointsDelta(Points points) {
+            this.userId = points.getUser() != null ? points.getUser().getId() : null;
+            this.weekStart = points.getDate() != null ? weekStart(points.getDate()) : null;
+            this.exercise = intValue(points.getExercise());
+            this.meals = intValue(points.getMeals());
+            this.alcohol = intValue(points.getAlcohol());
+        }
+
+        boolean sameWeekAs(PointsDelta other) {
+            return isSummarized() && Objects.equals(userId, other.userId) && Objects.equals(weekStart, other.weekStart);
+        }
+
+        void add() {
+            if (isSummarized()) {
+                applyToWeeklySummary(userId, weekStart, exercise, meals, alcohol, 1);
+            }
+        }
+
+        void remove() {
+            if (isSummarized()) {
+                applyToWeeklySummary(userId, weekStart, -exercise, -meals, -alcohol, -1);
+            }
+        }
+
+        private boolean isSummarized() {
+            return userId != null && weekStart != null;
+        }
+    }
+}
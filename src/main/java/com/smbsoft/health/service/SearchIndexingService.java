@@ -0,0 +1,224 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.domain.SearchOutboxEvent;
+import com.smbsoft.health.repository.SearchOutboxEventRepository;
+
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.ElasticsearchException;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Service for keeping the Elasticsearch indices in sync with the database.
+ * <p>
+ * In asynchronous mode (the default), a change is only recorded in the search outbox, in the transaction of the
+ * change itself: requests neither wait for Elasticsearch nor fail when it is unavailable, and no change is lost
+ * if the application stops before it is indexed. The SearchOutboxRelay then writes the changes to Elasticsearch
+ * in bulk requests.
+ * </p>
+ * <p>
+ * In synchronous mode ("application.search.indexing.async: false", used by the tests), changes are written and
+ * the index is refreshed immediately, as the search repositories do.
+ * </p>
+ */
+@Service
+public class SearchIndexingService {
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexingService.class);
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+
+    private final EntityMapper entityMapper;
+
+    private final SearchOutboxEventRepository searchOutboxEventRepository;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationProperties.Search.Indexing properties;
+
+    public SearchIndexingService(ElasticsearchTemplate elasticsearchTemplate, EntityMapper entityMapper,
+                                 SearchOutboxEventRepository searchOutboxEventRepository, EntityManager entityManager,
+                                 ApplicationProperties applicationProperties) {
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.entityMapper = entityMapper;
+        this.searchOutboxEventRepository = searchOutboxEventRepository;
+        this.entityManager = entityManager;
+        this.properties = applicationProperties.getSearch().getIndexing();
+    }
+
+    /**
+     * Index an entity.
+     *
+     * @param entity the entity to index
+     */
+    public void index(Object entity) {
+        if (properties.isAsync()) {
+            record(Hibernate.getClass(entity), getId(entity));
+        } else {
+            writeNow(indexOperation(entity));
+        }
+    }
+
+    /**
+     * Index entities, in one bulk request when indexing synchronously.
+     *
+     * @param entities the entities to index
+     */
+    public void indexAll(Collection<?> entities) {
+        if (properties.isAsync()) {
+            entities.forEach(entity -> record(Hibernate.getClass(entity), getId(entity)));
+            return;
+        }
+        List<IndexingOperation> operations = new ArrayList<>(entities.size());
+        entities.forEach(entity -> operations.add(indexOperation(entity)));
+        List<IndexingOperation> failed = write(operations);
+        if (!failed.isEmpty()) {
+            throw new ElasticsearchException("Failed to write " + failed.size() + " documents to index " +
+                failed.get(0).index);
+        }
+        operations.stream().map(operation -> operation.index).distinct().forEach(elasticsearchTemplate::refresh);
+    }
+
+    /**
+     * Remove an entity from its index.
+     *
+     * @param entity the entity to remove
+     */
+    public void delete(Object entity) {
+        delete(Hibernate.getClass(entity), getId(entity));
+    }
+
+    /**
+     * Remove an entity from its index by id.
+     *
+     * @param type the class of the entity
+     * @param id the id of the entity
+     */
+    public void delete(Class<?> type, Object id) {
+        if (properties.isAsync()) {
+            record(type, id);
+        } else {
+            writeNow(deleteOperation(type, id));
+        }
+    }
+
+    private void record(Class<?> type, Object id) {
+        log.debug("Recording the change of {} {} in the search outbox", type.getSimpleName(), id);
+        searchOutboxEventRepository.save(new SearchOutboxEvent(entityManager.getMetamodel().entity(type).getName(), (Long) id));
+    }
+
+    private void writeNow(IndexingOperation operation) {
+        if (!write(Collections.singletonList(operation)).isEmpty()) {
+            throw new ElasticsearchException("Failed to write document " + operation.id + " to index " + operation.index);
+        }
+        elasticsearchTemplate.refresh(operation.index);
+    }
+
+    IndexingOperation indexOperation(Object entity) {
+        return indexOperation(entity, getPersistentEntity(Hibernate.getClass(entity)).getIndexName());
+    }
+
+    /**
+     * Get the operation writing an entity to a given index, instead of the index of its document.
+     */
+    IndexingOperation indexOperation(Object entity, String index) {
+        try {
+            return new IndexingOperation(index, getPersistentEntity(Hibernate.getClass(entity)).getIndexType(),
+                String.valueOf(getId(entity)), entityMapper.mapToString(entity));
+        } catch (IOException e) {
+            throw new ElasticsearchException("Failed to serialize " + entity, e);
+        }
+    }
+
+    IndexingOperation deleteOperation(Class<?> type, Object id) {
+        ElasticsearchPersistentEntity<?> persistentEntity = getPersistentEntity(type);
+        return new IndexingOperation(persistentEntity.getIndexName(), persistentEntity.getIndexType(), String.valueOf(id), null);
+    }
+
+    /**
+     * Write operations in one bulk request.
+     *
+     * @return the operations which failed
+     */
+    List<IndexingOperation> write(Collection<IndexingOperation> operations) {
+        List<IndexingOperation> requested = new ArrayList<>(operations);
+        if (requested.isEmpty()) {
+            return requested;
+        }
+        List<IndexingOperation> failed = new ArrayList<>();
+        Client client = elasticsearchTemplate.getClient();
+        BulkRequestBuilder bulk = client.prepareBulk();
+        for (IndexingOperation operation : requested) {
+            if (operation.source != null) {
+                bulk.add(client.prepareIndex(operation.index, operation.type, operation.id).setSource(operation.source));
+            } else {
+                bulk.add(client.prepareDelete(operation.index, operation.type, operation.id));
+            }
+        }
+        BulkResponse response;
+        try {
+            response = bulk.execute().actionGet();
+        } catch (RuntimeException e) {
+            log.warn("Bulk request of {} documents failed: {}", requested.size(), e.getMessage());
+            return requested;
+        }
+        for (BulkItemResponse item : response.getItems()) {
+            if (item.isFailed()) {
+                IndexingOperation operation = requested.get(item.getItemId());
+                log.warn("Failed to write document {} to index {}: {}", operation.id, operation.index, item.getFailureMessage());
+                failed.add(operation);
+            }
+        }
+        return failed;
+    }
+
+    boolean isIndexed(Class<?> type) {
+        return type.isAnnotationPresent(Document.class);
+    }
+
+    private ElasticsearchPersistentEntity<?> getPersistentEntity(Class<?> type) {
+        return elasticsearchTemplate.getPersistentEntityFor(type);
+    }
+
+    private Object getId(Object entity) {
+        return entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+    }
+
+    /**
+     * A document to write to, or to delete from, an index.
+     */
+    static final class IndexingOperation {
+
+        private final String index;
+
+        private final String type;
+
+        private final String id;
+
+        private final String source;
+
+        IndexingOperation(String index, String type, String id, String source) {
+            this.index = index;
+            this.type = type;
+            this.id = id;
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.domain.SearchOutboxEvent;
+import com.smbsoft.health.repository.SearchOutboxEventRepository;
+import com.smbsoft.health.service.SearchIndexingService.IndexingOperation;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.metamodel.EntityType;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service relaying the search outbox to Elasticsearch.
+ * <p>
+ * Pending events are read in id order, by batches. For every batch, the current state of the changed entities is
+ * loaded, and written to Elasticsearch in one bulk request, so several changes of an entity are indexed once, and
+ * the order in which concurrent transactions committed their events does not matter. Events are only marked as
+ * processed once their document is written: when Elasticsearch is unavailable, they stay pending and the relay
+ * backs off exponentially. Processed events are kept for a few days, so that they can be replayed from an offset.
+ * </p>
+ */
+@Service
+public class SearchOutboxRelay {
+
+    private final Logger log = LoggerFactory.getLogger(SearchOutboxRelay.class);
+
+    private final SearchOutboxEventRepository searchOutboxEventRepository;
+
+    private final SearchIndexingService searchIndexingService;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.Search.Indexing properties;
+
+    private final AtomicLong backlog = new AtomicLong();
+
+    private final Histogram lag;
+
+    private final Timer flushes;
+
+    private final Meter failures;
+
+    private int consecutiveFailures;
+
+    private long nextAttempt;
+
+    public SearchOutboxRelay(SearchOutboxEventRepository searchOutboxEventRepository,
+                             SearchIndexingService searchIndexingService, EntityManager entityManager,
+                             PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties,
+                             MetricRegistry metricRegistry) {
+        this.searchOutboxEventRepository = searchOutboxEventRepository;
+        this.searchIndexingService = searchIndexingService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = applicationProperties.getSearch().getIndexing();
+        metricRegistry.register(MetricRegistry.name(SearchOutboxRelay.class, "backlog"), (Gauge<Long>) backlog::get);
+        this.lag = metricRegistry.histogram(MetricRegistry.name(SearchOutboxRelay.class, "lag"));
+        this.flushes = metricRegistry.timer(MetricRegistry.name(SearchOutboxRelay.class, "flush"));
+        this.failures = metricRegistry.meter(MetricRegistry.name(SearchOutboxRelay.class, "failures"));
+    }
+
+    /**
+     * Relay all the pending events, unless the relay is backing off after a failure.
+     */
+    @Scheduled(fixedDelayString = "${application.search.indexing.relay-delay:1000}")
+    public void relayPending() {
+        if (!properties.isAsync() || System.currentTimeMillis() < nextAttempt) {
+            return;
+        }
+        int relayed;
+        do {
+            relayed = relay();
+        } while (relayed == properties.getBatchSize());
+        backlog.set(relayed < 0 ? searchOutboxEventRepository.countByProcessedDateIsNull() : 0);
+    }
+
+    /**
+     * Relay the oldest batch of pending events.
+     *
+     * @return the number of events relayed, or -1 if some documents could not be written
+     */
+    public int relay() {
+        return transactionTemplate.execute(status -> relayBatch());
+    }
+
+    /**
+     * Mark the events from an offset as pending, so that their entities are written to Elasticsearch again.
+     * <p>
+     * Only the events processed within the retention period can be replayed.
+     * </p>
+     *
+     * @param offset the id of the first event to replay
+     * @return the number of events to replay
+     */
+    public int replayFrom(long offset) {
+        int replayed = transactionTemplate.execute(status -> searchOutboxEventRepository.markPendingFrom(offset));
+        log.info("Replaying {} search outbox events from offset {}", replayed, offset);
+        nextAttempt = 0;
+        return replayed;
+    }
+
+    /**
+     * Get the number of events waiting to be relayed.
+     */
+    public long getPendingCount() {
+        return searchOutboxEventRepository.countByProcessedDateIsNull();
+    }
+
+    /**
+     * Delete the processed events older than the retention period.
+     * <p>
+     * This is scheduled to get fired everyday, at 03:30 (am).
+     * </p>
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void removeProcessedEvents() {
+        ZonedDateTime limit = ZonedDateTime.now().minusDays(properties.getRetentionDays());
+        int deleted = transactionTemplate.execute(status -> searchOutboxEventRepository.deleteProcessedBefore(limit));
+        log.debug("Deleted {} processed search outbox events", deleted);
+    }
+
+    private int relayBatch() {
+        List<SearchOutboxEvent> events = searchOutboxEventRepository.findByProcessedDateIsNullOrderById(
+            new PageRequest(0, properties.getBatchSize()));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        Map<String, Map<Long, List<SearchOutboxEvent>>> eventsByEntity = new LinkedHashMap<>();
+        for (SearchOutboxEvent event : events) {
+            eventsByEntity.computeIfAbsent(event.getEntityName(), name -> new LinkedHashMap<>())
+                .computeIfAbsent(event.getEntityId(), id -> new ArrayList<>()).add(event);
+        }
+        Map<IndexingOperation, List<SearchOutboxEvent>> operations = new LinkedHashMap<>();
+        List<Long> processed = new ArrayList<>();
+        PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        for (Map.Entry<String, Map<Long, List<SearchOutboxEvent>>> entry : eventsByEntity.entrySet()) {
+            Map<Long, List<SearchOutboxEvent>> eventsById = entry.getValue();
+            EntityType<?> entityType = getEntityType(entry.getKey());
+            if (entityType == null || !searchIndexingService.isIndexed(entityType.getJavaType())) {
+                log.warn("Skipping the search outbox events of {}, which is not an indexed entity", entry.getKey());
+                eventsById.values().forEach(skipped -> skipped.forEach(event -> processed.add(event.getId())));
+                continue;
+            }
+            List<?> entities = entityManager
+                .createQuery("select entity from " + entityType.getName() + " entity where entity.id in :ids")
+                .setParameter("ids", eventsById.keySet())
+                .getResultList();
+            for (Object entity : entities) {
+                operations.put(searchIndexingService.indexOperation(entity),
+                    eventsById.remove((Long) persistenceUnitUtil.getIdentifier(entity)));
+            }
+            // The entities which were not found have been deleted since
+            for (Map.Entry<Long, List<SearchOutboxEvent>> deleted : eventsById.entrySet()) {
+                operations.put(searchIndexingService.deleteOperation(entityType.getJavaType(), deleted.getKey()),
+                    deleted.getValue());
+            }
+        }
+        List<IndexingOperation> failed;
+        Timer.Context context = flushes.time();
+        try {
+            failed = searchIndexingService.write(operations.keySet());
+        } finally {
+            context.stop();
+        }
+        failed.forEach(operations::remove);
+        ZonedDateTime now = ZonedDateTime.now();
+        for (List<SearchOutboxEvent> written : operations.values()) {
+            lag.update(Duration.between(written.get(0).getCreatedDate(), now).toMillis());
+            written.forEach(event -> processed.add(event.getId()));
+        }
+        if (!processed.isEmpty()) {
+            searchOutboxEventRepository.markProcessed(processed, now);
+        }
+        if (!failed.isEmpty()) {
+            failures.mark(failed.size());
+            backOff();
+            return -1;
+        }
+        consecutiveFailures = 0;
+        return events.size();
+    }
+
+    private void backOff() {
+        consecutiveFailures++;
+        long delay = Math.min(properties.getMaxRetryBackoff(),
+            properties.getRetryBackoff() << Math.min(consecutiveFailures - 1, 20));
+        nextAttempt = System.currentTimeMillis() + delay;
+        log.warn("Could not relay the search outbox, retrying in {} ms", delay);
+    }
+
+    private EntityType<?> getEntityType(String entityName) {
+        return entityManager.getMetamodel().getEntities().stream()
+            .filter(entityType -> entityType.getName().equals(entityName))
+            .findFirst()
+            .orElse(null);
+    }
+}
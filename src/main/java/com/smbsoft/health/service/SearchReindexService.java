@@ -0,0 +1,346 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.repository.SearchOutboxEventRepository;
+import com.smbsoft.health.service.SearchIndexingService.IndexingOperation;
+import com.smbsoft.health.service.dto.ReindexProgressDTO;
+
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.client.IndicesAdminClient;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.ElasticsearchException;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.stereotype.Service;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Service for rebuilding the search indices from the database.
+ * <p>
+ * Every entity is written to a new versioned index (for instance "points-20170326101500123"): its table is split in id
+ * ranges, which are read with a forward-only cursor and written in bulk requests by a pool of worker threads. Once
+ * the new index is complete, the alias used by the application (for instance "points") is atomically moved to it,
+ * and the previous index is deleted, so searches keep working during the whole reindex.
+ * </p>
+ * <p>
+ * The first reindex replaces the index created by the search repository with an alias: searches on that index fail
+ * during the short time between the deletion of the index and the creation of the alias.
+ * </p>
+ */
+@Service
+public class SearchReindexService {
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexService.class);
+
+    private static final DateTimeFormatter VERSION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS");
+
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private static final long PROGRESS_LOG_INTERVAL = 10000;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+
+    private final SearchIndexingService searchIndexingService;
+
+    private final SearchOutboxEventRepository searchOutboxEventRepository;
+
+    private final SearchOutboxRelay searchOutboxRelay;
+
+    private final ApplicationProperties.Search.Indexing properties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile List<ReindexProgressDTO> progress = Collections.emptyList();
+
+    private volatile long lastProgressLog;
+
+    public SearchReindexService(EntityManagerFactory entityManagerFactory, ElasticsearchTemplate elasticsearchTemplate,
+                                SearchIndexingService searchIndexingService,
+                                SearchOutboxEventRepository searchOutboxEventRepository,
+                                SearchOutboxRelay searchOutboxRelay, ApplicationProperties applicationProperties) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.searchIndexingService = searchIndexingService;
+        this.searchOutboxEventRepository = searchOutboxEventRepository;
+        this.searchOutboxRelay = searchOutboxRelay;
+        this.properties = applicationProperties.getSearch().getIndexing();
+    }
+
+    /**
+     * Start reindexing all the indexed entities in the background.
+     *
+     * @param threads the number of worker threads
+     * @return false if a reindex is already running
+     */
+    public boolean start(int threads) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        progress = createProgress();
+        Thread thread = new Thread(() -> {
+            try {
+                reindex(threads);
+            } finally {
+                running.set(false);
+            }
+        }, "21-points-reindex");
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Reindex all the indexed entities, and wait for the end of the reindex.
+     *
+     * @param threads the number of worker threads
+     * @return the progress of every index
+     * @throws IllegalStateException if a reindex is already running
+     */
+    public List<ReindexProgressDTO> reindexAll(int threads) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A reindex is already running");
+        }
+        try {
+            progress = createProgress();
+            reindex(threads);
+            return progress;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Get the progress of the current, or last, reindex.
+     */
+    public List<ReindexProgressDTO> getProgress() {
+        return progress;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    private List<ReindexProgressDTO> createProgress() {
+        return getIndexedEntities().stream()
+            .map(entityType -> new ReindexProgressDTO(getPersistentEntity(entityType).getIndexName()))
+            .collect(Collectors.toList());
+    }
+
+    private void reindex(int threads) {
+        log.info("Reindexing all search indices with {} threads", threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Iterator<ReindexProgressDTO> indices = progress.iterator();
+            for (EntityType<?> entityType : getIndexedEntities()) {
+                ReindexProgressDTO indexProgress = indices.next();
+                try {
+                    reindex(entityType, threads, executor, indexProgress);
+                } catch (Exception e) {
+                    log.error("Reindexing {} failed: {}", indexProgress.getIndex(), e.getMessage(), e);
+                    indexProgress.failed(e.getMessage());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void reindex(EntityType<?> entityType, int threads, ExecutorService executor, ReindexProgressDTO indexProgress)
+        throws InterruptedException, IOException {
+        ElasticsearchPersistentEntity<?> persistentEntity = getPersistentEntity(entityType);
+        String alias = persistentEntity.getIndexName();
+        String target = alias + "-" + LocalDateTime.now().format(VERSION_FORMAT);
+        // Changes made while the table is read are replayed into the new index, once the alias points to it
+        Long outboxOffset = null;
+        if (properties.isAsync()) {
+            Long maxId = searchOutboxEventRepository.findMaxId();
+            outboxOffset = maxId != null ? maxId : 0L;
+        }
+        long[] bounds = getIdBounds(entityType);
+        indexProgress.start(target, bounds[2]);
+        log.info("Reindexing {} documents of {} into {}", bounds[2], alias, target);
+
+        createIndex(target, alias, persistentEntity.getIndexType());
+        try {
+            if (bounds[2] > 0) {
+                List<Future<Long>> ranges = new ArrayList<>();
+                long rangeSize = (bounds[1] - bounds[0]) / threads + 1;
+                for (long from = bounds[0]; from <= bounds[1]; from += rangeSize) {
+                    long start = from;
+                    long end = Math.min(from + rangeSize - 1, bounds[1]);
+                    ranges.add(executor.submit(() -> indexRange(entityType, target, start, end, indexProgress)));
+                }
+                for (Future<Long> range : ranges) {
+                    range.get();
+                }
+            }
+            elasticsearchTemplate.getClient().admin().indices().prepareUpdateSettings(target)
+                .setSettings(Collections.singletonMap("index.refresh_interval", "1s")).get();
+            elasticsearchTemplate.refresh(target);
+            moveAlias(alias, target);
+        } catch (ExecutionException e) {
+            elasticsearchTemplate.deleteIndex(target);
+            throw new ElasticsearchException("Failed to write " + target, e.getCause());
+        } catch (RuntimeException | InterruptedException e) {
+            elasticsearchTemplate.deleteIndex(target);
+            throw e;
+        }
+        if (outboxOffset != null) {
+            searchOutboxRelay.replayFrom(outboxOffset + 1);
+        }
+        indexProgress.done();
+        log.info("Reindexed {}", indexProgress);
+    }
+
+    private void createIndex(String target, String alias, String type) throws IOException {
+        IndicesAdminClient indices = elasticsearchTemplate.getClient().admin().indices();
+        elasticsearchTemplate.createIndex(target);
+        // Keep the mapping of the current index, in which fields were dynamically mapped
+        if (indices.prepareExists(alias).get().isExists()) {
+            for (Iterator<ImmutableOpenMap<String, MappingMetaData>> it = indices.prepareGetMappings(alias).setTypes(type)
+                .get().getMappings().valuesIt(); it.hasNext(); ) {
+                MappingMetaData mapping = it.next().get(type);
+                if (mapping != null) {
+                    elasticsearchTemplate.putMapping(target, type, mapping.source().string());
+                }
+            }
+        }
+        // The new index is not searched until it is complete, so it does not need to be refreshed
+        indices.prepareUpdateSettings(target).setSettings(Collections.singletonMap("index.refresh_interval", "-1")).get();
+    }
+
+    private void moveAlias(String alias, String target) {
+        IndicesAdminClient indices = elasticsearchTemplate.getClient().admin().indices();
+        ImmutableOpenMap<String, List<AliasMetaData>> aliases = indices.prepareGetAliases(alias).get().getAliases();
+        List<String> previous = new ArrayList<>();
+        for (Iterator<String> it = aliases.keysIt(); it.hasNext(); ) {
+            String index = it.next();
+            if (!aliases.get(index).isEmpty()) {
+                previous.add(index);
+            }
+        }
+        if (previous.isEmpty() && indices.prepareExists(alias).get().isExists()) {
+            log.warn("Replacing the {} index with an alias", alias);
+            indices.prepareDelete(alias).get();
+        }
+        IndicesAliasesRequestBuilder request = indices.prepareAliases().addAlias(target, alias);
+        previous.forEach(index -> request.removeAlias(index, alias));
+        request.get();
+        previous.forEach(index -> indices.prepareDelete(index).get());
+    }
+
+    private long indexRange(EntityType<?> entityType, String target, long from, long to, ReindexProgressDTO indexProgress)
+        throws InterruptedException {
+        int batchSize = properties.getBatchSize();
+        long indexed = 0;
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            Session session = entityManager.unwrap(Session.class);
+            session.setDefaultReadOnly(true);
+            ScrollableResults results = session
+                .createQuery("select entity from " + entityType.getName() + " entity " +
+                    "where entity.id between :from and :to order by entity.id")
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setFetchSize(batchSize)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+            try {
+                List<IndexingOperation> batch = new ArrayList<>(batchSize);
+                while (results.next()) {
+                    batch.add(searchIndexingService.indexOperation(results.get(0), target));
+                    if (batch.size() == batchSize) {
+                        indexed += writeBatch(batch, indexProgress);
+                        session.clear();
+                    }
+                }
+                indexed += writeBatch(batch, indexProgress);
+            } finally {
+                results.close();
+            }
+            return indexed;
+        } finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+    }
+
+    private int writeBatch(List<IndexingOperation> batch, ReindexProgressDTO indexProgress) throws InterruptedException {
+        int written = batch.size();
+        List<IndexingOperation> pending = batch;
+        for (int attempt = 1; !pending.isEmpty(); attempt++) {
+            pending = searchIndexingService.write(pending);
+            if (!pending.isEmpty()) {
+                if (attempt >= MAX_WRITE_ATTEMPTS) {
+                    throw new ElasticsearchException("Failed to write " + pending.size() + " documents");
+                }
+                Thread.sleep(properties.getRetryBackoff() << (attempt - 1));
+            }
+        }
+        batch.clear();
+        long indexed = indexProgress.addIndexed(written);
+        long now = System.currentTimeMillis();
+        if (now - lastProgressLog > PROGRESS_LOG_INTERVAL) {
+            lastProgressLog = now;
+            log.info("Reindexed {}/{} documents of {} ({} docs/s)", indexed, indexProgress.getTotal(),
+                indexProgress.getIndex(), indexProgress.getDocsPerSecond());
+        }
+        return written;
+    }
+
+    /**
+     * Get the smallest id, the largest id and the number of rows of an entity table.
+     */
+    private long[] getIdBounds(EntityType<?> entityType) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            Object[] bounds = (Object[]) entityManager
+                .createQuery("select min(entity.id), max(entity.id), count(entity) from " + entityType.getName() + " entity")
+                .getSingleResult();
+            long count = ((Number) bounds[2]).longValue();
+            return count == 0 ? new long[] {0, 0, 0}
+                : new long[] {((Number) bounds[0]).longValue(), ((Number) bounds[1]).longValue(), count};
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private List<EntityType<?>> getIndexedEntities() {
+        return entityManagerFactory.getMetamodel().getEntities().stream()
+            .filter(entityType -> searchIndexingService.isIndexed(entityType.getJavaType()))
+            .sorted(Comparator.comparing(EntityType::getName))
+            .collect(Collectors.toList());
+    }
+
+    private ElasticsearchPersistentEntity<?> getPersistentEntity(EntityType<?> entityType) {
+        return elasticsearchTemplate.getPersistentEntityFor(entityType.getJavaType());
+    }
+}
@@ -0,0 +1,106 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.domain.BloodPressure;
+import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.domain.enumeration.WeightUnits;
+import com.smbsoft.health.service.dto.TrendDTO;
+import com.smbsoft.health.service.util.TrendCalculator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+
+/**
+ * Service computing the trends of the weights and blood pressures of a user.
+ * <p>
+ * The readings are read in chronological order as plain columns, without loading the entities, and fed to a
+ * {@link TrendCalculator} per series as they arrive. The trends are cached per user by the {@link UserQueryCache},
+ * until the readings of the user change.
+ * </p>
+ */
+@Service
+public class TrendService {
+
+    public static final String TRENDS_BY_USER = "trendsByUser";
+
+    private static final String WEIGHTS_QUERY = "select w.date, w.grams from weight w " +
+        "join jhi_user u on u.id = w.user_id where u.login = ? and w.date is not null and w.grams is not null " +
+        "order by w.date, w.id";
+
+    private static final String BLOOD_PRESSURES_QUERY = "select bp.date, bp.systolic, bp.diastolic from blood_pressure bp " +
+        "join jhi_user u on u.id = bp.user_id where u.login = ? and bp.date is not null " +
+        "and bp.systolic is not null and bp.diastolic is not null order by bp.date, bp.id";
+
+    private final Logger log = LoggerFactory.getLogger(TrendService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final UserQueryCache userQueryCache;
+
+    public TrendService(DataSource dataSource, UserQueryCache userQueryCache) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.userQueryCache = userQueryCache;
+    }
+
+    /**
+     * Get the trend of the weights of a user.
+     *
+     * @param login the login of the user
+     * @param windowDays the number of days of the rolling means
+     * @param unit the unit of the weights
+     * @return the trend, with a "weight" series
+     */
+    public TrendDTO getWeightTrend(String login, int windowDays, WeightUnits unit) {
+        return userQueryCache.getResult(TRENDS_BY_USER, Weight.class, login, "weight|" + unit + "|" + windowDays,
+            TrendDTO.class, () -> {
+                log.debug("Computing the trend of the weights of user {} over {} days", login, windowDays);
+                TrendCalculator weights = new TrendCalculator(windowDays);
+                jdbcTemplate.query(WEIGHTS_QUERY, (RowCallbackHandler) resultSet -> {
+                    long day = resultSet.getDate(1).toLocalDate().toEpochDay();
+                    weights.add(day, unit.fromGrams(resultSet.getLong(2)));
+                }, login);
+                TrendDTO trend = new TrendDTO(windowDays, toDates(weights.getDays()));
+                trend.setUnit(unit.name());
+                trend.getSeries().add(weights.toSeries("weight"));
+                return trend;
+            });
+    }
+
+    /**
+     * Get the trend of the blood pressures of a user.
+     *
+     * @param login the login of the user
+     * @param windowDays the number of days of the rolling means
+     * @return the trend, with a "systolic" and a "diastolic" series
+     */
+    public TrendDTO getBloodPressureTrend(String login, int windowDays) {
+        return userQueryCache.getResult(TRENDS_BY_USER, BloodPressure.class, login, "bloodPressure|" + windowDays,
+            TrendDTO.class, () -> {
+                log.debug("Computing the trend of the blood pressures of user {} over {} days", login, windowDays);
+                TrendCalculator systolic = new TrendCalculator(windowDays);
+                TrendCalculator diastolic = new TrendCalculator(windowDays);
+                jdbcTemplate.query(BLOOD_PRESSURES_QUERY, (RowCallbackHandler) resultSet -> {
+                    long day = resultSet.getDate(1).toLocalDate().toEpochDay();
+                    systolic.add(day, resultSet.getInt(2));
+                    diastolic.add(day, resultSet.getInt(3));
+                }, login);
+                TrendDTO trend = new TrendDTO(windowDays, toDates(systolic.getDays()));
+                trend.getSeries().add(systolic.toSeries("systolic"));
+                trend.getSeries().add(diastolic.toSeries("diastolic"));
+                return trend;
+            });
+    }
+
+    private static LocalDate[] toDates(long[] days) {
+        LocalDate[] dates = new LocalDate[days.length];
+        for (int i = 0; i < days.length; i++) {
+            dates[i] = LocalDate.ofEpochDay(days[i]);
+        }
+        return dates;
+    }
+}
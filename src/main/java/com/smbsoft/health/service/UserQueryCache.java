@@ -0,0 +1,271 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.domain.BloodPressure;
+import com.smbsoft.health.domain.Points;
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.service.CacheInvalidationBus.Invalidation;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the results of the per-user finder queries, and of the results computed from the rows of a user,
+ * invalidated per user.
+ * <p>
+ * The Hibernate query cache invalidates the results of every query on a table whenever any row of the table changes,
+ * so with many active users it would hardly ever hit. Here the results are cached by user, as the ids of the rows of
+ * a page and the total count, and the rows themselves are then read from the second level cache.
+ * </p>
+ * <p>
+ * Each user has a generation per cache, which is part of the keys of the cached results. Hibernate flush events
+ * increment the generation of the owner of a changed row, and again once the transaction completes, so the results
+ * cached before the change, or computed while it was not committed, are no longer read, and age out of the cache.
+ * The other nodes of the cluster increment the generation when they receive the invalidation of the user from the
+ * {@link CacheInvalidationBus}.
+ * </p>
+ */
+@Service
+public class UserQueryCache implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String POINTS_BY_USER = "pointsByUser";
+
+    public static final String WEIGHTS_BY_USER = "weightsByUser";
+
+    public static final String BLOOD_PRESSURES_BY_USER = "bloodPressuresByUser";
+
+    private static final Map<Class<?>, String> CACHE_NAMES = new HashMap<>();
+
+    static {
+        CACHE_NAMES.put(Points.class, POINTS_BY_USER);
+        CACHE_NAMES.put(Weight.class, WEIGHTS_BY_USER);
+        CACHE_NAMES.put(BloodPressure.class, BLOOD_PRESSURES_BY_USER);
+    }
+
+    private final Logger log = LoggerFactory.getLogger(UserQueryCache.class);
+
+    private final CacheManager cacheManager;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final CacheStatisticsService cacheStatisticsService;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final Meter hits;
+
+    private final Meter misses;
+
+    public UserQueryCache(CacheManager cacheManager, EntityManagerFactory entityManagerFactory,
+                          CacheStatisticsService cacheStatisticsService,
+                          CacheInvalidationService cacheInvalidationService, CacheInvalidationBus cacheInvalidationBus,
+                          MetricRegistry metricRegistry) {
+        this.cacheManager = cacheManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheStatisticsService = cacheStatisticsService;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.hits = metricRegistry.meter(MetricRegistry.name(UserQueryCache.class, "hits"));
+        this.misses = metricRegistry.meter(MetricRegistry.name(UserQueryCache.class, "misses"));
+    }
+
+    @PostConstruct
+    public void registerListeners() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class).getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        cacheInvalidationBus.subscribe(invalidation -> CACHE_NAMES.forEach((type, cacheName) -> {
+            if (cacheName.equals(invalidation.getCacheName())) {
+                evict(type, invalidation.getKey());
+            }
+        }));
+    }
+
+    /**
+     * Get a page of the rows of a user in a date range, from the cache if it was already queried.
+     *
+     * @param type the class of the rows
+     * @param login the login of the user
+     * @param from the first day of the range
+     * @param to the last day of the range
+     * @param pageable the pagination information
+     * @param query the query of the page, run when it is not cached
+     * @param loader the lookup of a row by id, which should hit the second level cache
+     * @param id the id of a row
+     * @return the page
+     */
+    public <T> Page<T> getPage(Class<T> type, String login, LocalDate from, LocalDate to, Pageable pageable,
+                               Supplier<Page<T>> query, Function<Long, T> loader, Function<T, Long> id) {
+        String cacheName = CACHE_NAMES.get(type);
+        Cache cache = cacheManager.getCache(cacheName);
+        String key = login + '|' + generation(type, login).get() + '|' + from + '|' + to + '|' +
+            pageable.getPageNumber() + '|' + pageable.getPageSize() + '|' + pageable.getSort();
+        CachedPage cached = cache.get(key, CachedPage.class);
+        if (cached != null) {
+            List<T> content = new ArrayList<>(cached.ids.size());
+            for (Long rowId : cached.ids) {
+                T row = loader.apply(rowId);
+                if (row == null) {
+                    // Deleted by a transaction which was not committed yet when the generation was read
+                    content = null;
+                    break;
+                }
+                content.add(row);
+            }
+            if (content != null) {
+                hits.mark();
+                return new PageImpl<>(content, pageable, cached.total);
+            }
+        }
+        misses.mark();
+        Page<T> page = cacheStatisticsService.load(cacheName, query);
+        List<Long> ids = new ArrayList<>(page.getNumberOfElements());
+        page.getContent().forEach(row -> ids.add(id.apply(row)));
+        cache.put(key, new CachedPage(ids, page.getTotalElements()));
+        return page;
+    }
+
+    /**
+     * Get a result computed from the rows of a user, from the cache if it was already computed since they last
+     * changed.
+     *
+     * @param cacheName the name of the cache of the results
+     * @param type the class of the rows
+     * @param login the login of the user
+     * @param key the key of the result among the results of the user
+     * @param resultType the class of the result
+     * @param query the computation of the result, run when it is not cached
+     * @return the result
+     */
+    public <T> T getResult(String cacheName, Class<?> type, String login, String key, Class<T> resultType,
+                           Supplier<T> query) {
+        Cache cache = cacheManager.getCache(cacheName);
+        String cacheKey = login + '|' + CACHE_NAMES.get(type) + '|' + generation(type, login).get() + '|' + key;
+        T cached = cache.get(cacheKey, resultType);
+        if (cached != null) {
+            hits.mark();
+            return cached;
+        }
+        misses.mark();
+        T result = cacheStatisticsService.load(cacheName, query);
+        cache.put(cacheKey, result);
+        return result;
+    }
+
+    /**
+     * Invalidate the cached results of a user.
+     *
+     * @param type the class of the rows that changed
+     * @param login the login of the user
+     */
+    public void evict(Class<?> type, String login) {
+        log.debug("Invalidating the cached {} queries of user {}", type.getSimpleName(), login);
+        generation(type, login).incrementAndGet();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        invalidate(event.getEntity(), null, event.getPersister());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        invalidate(event.getEntity(), event.getOldState(), event.getPersister());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        invalidate(event.getEntity(), null, event.getPersister());
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void invalidate(Object entity, Object[] oldState, EntityPersister persister) {
+        Class<?> type = entity.getClass();
+        if (!CACHE_NAMES.containsKey(type)) {
+            return;
+        }
+        Set<String> logins = new HashSet<>();
+        Object user = persister.getPropertyValue(entity, "user");
+        if (user != null) {
+            logins.add(((User) user).getLogin());
+        }
+        if (oldState != null) {
+            // The row may have been moved from another user
+            Object previousUser = oldState[Arrays.asList(persister.getPropertyNames()).indexOf("user")];
+            if (previousUser != null) {
+                logins.add(((User) previousUser).getLogin());
+            }
+        }
+        logins.forEach(login -> evict(type, login));
+        List<Invalidation> invalidations = new ArrayList<>(logins.size());
+        logins.forEach(login -> invalidations.add(new Invalidation(CACHE_NAMES.get(type), login)));
+        cacheInvalidationService.invalidate(invalidations);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    // After a rollback too, as results computed from the uncommitted rows may have been cached
+                    logins.forEach(login -> evict(type, login));
+                }
+            });
+        }
+    }
+
+    private AtomicLong generation(Class<?> type, String login) {
+        return generations.computeIfAbsent(CACHE_NAMES.get(type) + '|' + login, key -> new AtomicLong());
+    }
+
+    /**
+     * The ids of the rows of a page, and the total number of rows.
+     */
+    private static final class CachedPage implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Long> ids;
+
+        private final long total;
+
+        private CachedPage(List<Long> ids, long total) {
+            this.ids = ids;
+            this.total = total;
+        }
+    }
+}
@@ -4,20 +4,24 @@ import com.smbsoft.health.domain.Authority;
 import com.smbsoft.health.domain.User;
 import com.smbsoft.health.repository.AuthorityRepository;
 import com.smbsoft.health.repository.UserRepository;
-import com.smbsoft.health.repository.search.UserSearchRepository;
 import com.smbsoft.health.security.AuthoritiesConstants;
+import com.smbsoft.health.security.DomainUserDetailsService;
 import com.smbsoft.health.security.SecurityUtils;
 import com.smbsoft.health.service.util.RandomUtil;
 import com.smbsoft.health.service.dto.UserDTO;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.ZonedDateTime;
 import java.util.*;
@@ -35,15 +39,18 @@ public class UserService {
 
     private final PasswordEncoder passwordEncoder;
 
-    private final UserSearchRepository userSearchRepository;
+    private final SearchIndexingService searchIndexingService;
 
     private final AuthorityRepository authorityRepository;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, UserSearchRepository userSearchRepository, AuthorityRepository authorityRepository) {
+    private final Cache usersByLogin;
+
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, SearchIndexingService searchIndexingService, AuthorityRepository authorityRepository, CacheManager cacheManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.userSearchRepository = userSearchRepository;
+        this.searchIndexingService = searchIndexingService;
         this.authorityRepository = authorityRepository;
+        this.usersByLogin = cacheManager.getCache(DomainUserDetailsService.USERS_BY_LOGIN_CACHE);
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -53,7 +60,8 @@ public class UserService {
                 // activate given user for the registration key.
                 user.setActivated(true);
                 user.setActivationKey(null);
-                userSearchRepository.save(user);
+                evictUserByLogin(user.getLogin());
+                searchIndexingService.index(user);
                 log.debug("Activated user: {}", user);
                 return user;
             });
@@ -71,6 +79,7 @@ public class UserService {
                 user.setPassword(passwordEncoder.encode(newPassword));
                 user.setResetKey(null);
                 user.setResetDate(null);
+                evictUserByLogin(user.getLogin());
                 return user;
            });
     }
@@ -107,7 +116,7 @@ public class UserService {
         authorities.add(authority);
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
-        userSearchRepository.save(newUser);
+        searchIndexingService.index(newUser);
         log.debug("Created Information for User: {}", newUser);
         return newUser;
     }
@@ -137,7 +146,7 @@ public class UserService {
         user.setResetDate(ZonedDateTime.now());
         user.setActivated(true);
         userRepository.save(user);
-        userSearchRepository.save(user);
+        searchIndexingService.index(user);
         log.debug("Created Information for User: {}", user);
         return user;
     }
@@ -151,7 +160,8 @@ public class UserService {
             user.setLastName(lastName);
             user.setEmail(email);
             user.setLangKey(langKey);
-            userSearchRepository.save(user);
+            evictUserByLogin(user.getLogin());
+            searchIndexingService.index(user);
             log.debug("Changed Information for User: {}", user);
         });
     }
@@ -163,6 +173,7 @@ public class UserService {
         return Optional.of(userRepository
             .findOne(userDTO.getId()))
             .map(user -> {
+                evictUserByLogin(user.getLogin());
                 user.setLogin(userDTO.getLogin());
                 user.setFirstName(userDTO.getFirstName());
                 user.setLastName(userDTO.getLastName());
@@ -175,6 +186,7 @@ public class UserService {
                 userDTO.getAuthorities().stream()
                     .map(authorityRepository::findOne)
                     .forEach(managedAuthorities::add);
+                evictUserByLogin(user.getLogin());
                 log.debug("Changed Information for User: {}", user);
                 return user;
             })
@@ -184,7 +196,8 @@ public class UserService {
     public void deleteUser(String login) {
         userRepository.findOneByLogin(login).ifPresent(user -> {
             userRepository.delete(user);
-            userSearchRepository.delete(user);
+            evictUserByLogin(user.getLogin());
+            searchIndexingService.delete(user);
             log.debug("Deleted User: {}", user);
         });
     }
@@ -193,6 +206,7 @@ public class UserService {
         userRepository.findOneByLogin(SecurityUtils.getCurrentUserLogin()).ifPresent(user -> {
             String encryptedPassword = passwordEncoder.encode(password);
             user.setPassword(encryptedPassword);
+            evictUserByLogin(user.getLogin());
             log.debug("Changed password for User: {}", user);
         });
     }
@@ -231,7 +245,24 @@ public class UserService {
         for (User user : users) {
             log.debug("Deleting not activated user {}", user.getLogin());
             userRepository.delete(user);
-            userSearchRepository.delete(user);
+            evictUserByLogin(user.getLogin());
+            searchIndexingService.delete(user);
+        }
+    }
+
+    /**
+     * Evict the user resolved by login now, and again once the transaction completes: the cache is not transactional,
+     * so a login concurrent with the change would otherwise cache the previous state of the user until it expires.
+     */
+    private void evictUserByLogin(String login) {
+        usersByLogin.evict(login);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    usersByLogin.evict(login);
+                }
+            });
         }
     }
 }
@@ -0,0 +1,53 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.domain.UserSettings;
+import com.smbsoft.health.repository.UserSettingsRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service Implementation for managing UserSettings.
+ */
+@Service
+@Transactional
+public class UserSettingsService {
+
+    private final Logger log = LoggerFactory.getLogger(UserSettingsService.class);
+
+    private final UserSettingsRepository userSettingsRepository;
+
+    private final SearchIndexingService searchIndexingService;
+
+    public UserSettingsService(UserSettingsRepository userSettingsRepository,
+                               SearchIndexingService searchIndexingService) {
+        this.userSettingsRepository = userSettingsRepository;
+        this.searchIndexingService = searchIndexingService;
+    }
+
+    /**
+     * Save a userSettings.
+     *
+     * @param userSettings the entity to save
+     * @return the persisted entity
+     */
+    public UserSettings save(UserSettings userSettings) {
+        log.debug("Request to save UserSettings : {}", userSettings);
+        UserSettings result = userSettingsRepository.save(userSettings);
+        searchIndexingService.index(result);
+        return result;
+    }
+
+    /**
+     * Delete the userSettings by id.
+     *
+     * @param id the id of the entity
+     */
+    public void delete(Long id) {
+        log.debug("Request to delete UserSettings : {}", id);
+        userSettingsRepository.delete(id);
+        searchIndexingService.delete(UserSettings.class, id);
+    }
+}
@@ -0,0 +1,151 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.domain.UserSettings;
+import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.domain.enumeration.WeightUnits;
+import com.smbsoft.health.repository.UserSettingsRepository;
+import com.smbsoft.health.repository.WeightRepository;
+import com.smbsoft.health.service.dto.WeightDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Service Implementation for managing Weight, and for the units of the weights.
+ * <p>
+ * Every weight is stored with its unit and in grams. The weights are given in the unit requested, or in the
+ * weight unit of the settings of the user, converted from their weight in grams, so that the clients do not have to
+ * read the settings and convert every weight.
+ * </p>
+ */
+@Service
+public class WeightService {
+
+    private final Logger log = LoggerFactory.getLogger(WeightService.class);
+
+    private final UserSettingsRepository userSettingsRepository;
+
+    private final WeightRepository weightRepository;
+
+    private final SearchIndexingService searchIndexingService;
+
+    public WeightService(UserSettingsRepository userSettingsRepository, WeightRepository weightRepository,
+                         SearchIndexingService searchIndexingService) {
+        this.userSettingsRepository = userSettingsRepository;
+        this.weightRepository = weightRepository;
+        this.searchIndexingService = searchIndexingService;
+    }
+
+    /**
+     * Save a weight, in its unit or else in the weight unit of the settings of its user.
+     *
+     * @param weight the entity to save
+     * @return the persisted entity
+     */
+    @Transactional
+    public Weight save(Weight weight) {
+        log.debug("Request to save Weight : {}", weight);
+        normalize(Collections.singletonList(weight));
+        Weight result = weightRepository.save(weight);
+        searchIndexingService.index(result);
+        return result;
+    }
+
+    /**
+     * Save new weights in bulk, in their unit or else in the weight unit of the settings of their user.
+     *
+     * @param weights the new entities to save
+     * @return the persisted entities
+     */
+    @Transactional
+    public List<Weight> saveAll(List<Weight> weights) {
+        log.debug("Request to save {} Weights", weights.size());
+        normalize(weights);
+        List<Weight> result = weightRepository.save(weights);
+        searchIndexingService.indexAll(result);
+        return result;
+    }
+
+    /**
+     * Delete the weight by id.
+     *
+     * @param id the id of the entity
+     */
+    @Transactional
+    public void delete(Long id) {
+        log.debug("Request to delete Weight : {}", id);
+        weightRepository.delete(id);
+        searchIndexingService.delete(Weight.class, id);
+    }
+
+    /**
+     * Get the weight unit of the settings of a user.
+     *
+     * @param login the login of the user
+     * @return the weight unit, or empty if the user has none
+     */
+    public Optional<WeightUnits> getPreferredUnit(String login) {
+        return userSettingsRepository.findOneByUserLogin(login).map(UserSettings::getWeightUnit);
+    }
+
+    /**
+     * Get the unit to give the weights of a user in.
+     *
+     * @param unit the unit requested, or null
+     * @param login the login of the user
+     * @return the unit requested, or else the weight unit of the settings of the user, or else
+     * {@link Weight#DEFAULT_UNIT}
+     */
+    public WeightUnits resolveUnit(WeightUnits unit, String login) {
+        return unit != null ? unit : getPreferredUnit(login).orElse(Weight.DEFAULT_UNIT);
+    }
+
+    /**
+     * Prepare weights to be saved: the weights without a unit are given the weight unit of the settings of their
+     * user, with one lookup of the settings per user, and the weight in grams of every weight is computed.
+     *
+     * @param weights the weights to save
+     */
+    public void normalize(Collection<Weight> weights) {
+        Map<Long, Optional<WeightUnits>> units = new HashMap<>();
+        for (Weight weight : weights) {
+            if (weight.getUnit() == null && weight.getUser() != null && weight.getUser().getId() != null) {
+                units.computeIfAbsent(weight.getUser().getId(), userId ->
+                    userSettingsRepository.findOneByUserId(userId).map(UserSettings::getWeightUnit))
+                    .ifPresent(weight::setUnit);
+            }
+            weight.computeGrams();
+        }
+    }
+
+    /**
+     * Give weights in a unit, converted from their weight in grams. The weights are left as they are stored, so that
+     * they can be saved again unchanged.
+     *
+     * @param weights the weights read
+     * @param unit the unit, or null to give every weight in its own unit
+     * @return the weights, with their weight in the unit
+     */
+    public List<WeightDTO> toDisplayUnit(List<Weight> weights, WeightUnits unit) {
+        log.debug("Converting {} weights to {}", weights.size(), unit);
+        return weights.stream().map(weight -> toDisplayUnit(weight, unit)).collect(Collectors.toList());
+    }
+
+    private WeightDTO toDisplayUnit(Weight weight, WeightUnits unit) {
+        if (unit == null || unit == weight.getUnit() || weight.getGrams() == null) {
+            return new WeightDTO(weight, weight.getWeight() != null ? weight.getWeight().doubleValue() : null,
+                weight.getUnit());
+        }
+        return new WeightDTO(weight, unit.fromGrams(weight.getGrams()), unit);
+    }
+}
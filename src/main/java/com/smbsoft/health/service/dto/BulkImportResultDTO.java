@@ -0,0 +1,116 @@
+package com.smbsoft.health.service.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A DTO representing the result of a bulk import, with the outcome of every row.
+ */
+public class BulkImportResultDTO {
+
+    public static final String IMPORTED = "imported";
+
+    public static final String REJECTED = "rejected";
+
+    public static final String FAILED = "failed";
+
+    private int imported;
+
+    private int rejected;
+
+    private int failed;
+
+    private boolean truncated;
+
+    private final List<Row> rows = new ArrayList<>();
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * Whether the rows after the maximum number of rows of an import were ignored.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public List<Row> getRows() {
+        return rows;
+    }
+
+    public void addImported(int index, Long id) {
+        rows.add(new Row(index, IMPORTED, id, null));
+        imported++;
+    }
+
+    public void addRejected(int index, List<String> errors) {
+        rows.add(new Row(index, REJECTED, null, errors));
+        rejected++;
+    }
+
+    public void addFailed(int index, String error) {
+        rows.add(new Row(index, FAILED, null, Collections.singletonList(error)));
+        failed++;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkImportResultDTO{" +
+            "imported=" + imported +
+            ", rejected=" + rejected +
+            ", failed=" + failed +
+            ", truncated=" + truncated +
+            '}';
+    }
+
+    /**
+     * The outcome of one row, by its position in the import.
+     */
+    public static class Row {
+
+        private final int index;
+
+        private final String status;
+
+        private final Long id;
+
+        private final List<String> errors;
+
+        public Row(int index, String status, Long id, List<String> errors) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.errors = errors;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.smbsoft.health.service.dto;
+
+/**
+ * A DTO representing the statistics of one cache, with the tiers it was configured with.
+ */
+public class CacheStatisticsDTO {
+
+    private String name;
+
+    private long heapEntries;
+
+    private long offHeapMegabytes;
+
+    private long hits;
+
+    private long misses;
+
+    private float hitRatio;
+
+    private long puts;
+
+    private long removals;
+
+    private long evictions;
+
+    private float averageGetMicros;
+
+    private long loads;
+
+    private double averageLoadMillis;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getHeapEntries() {
+        return heapEntries;
+    }
+
+    public void setHeapEntries(long heapEntries) {
+        this.heapEntries = heapEntries;
+    }
+
+    public long getOffHeapMegabytes() {
+        return offHeapMegabytes;
+    }
+
+    public void setOffHeapMegabytes(long offHeapMegabytes) {
+        this.offHeapMegabytes = offHeapMegabytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public void setHits(long hits) {
+        this.hits = hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public void setMisses(long misses) {
+        this.misses = misses;
+    }
+
+    /**
+     * The share of the gets which were hits, between 0 and 1.
+     */
+    public float getHitRatio() {
+        return hitRatio;
+    }
+
+    public void setHitRatio(float hitRatio) {
+        this.hitRatio = hitRatio;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public void setPuts(long puts) {
+        this.puts = puts;
+    }
+
+    public long getRemovals() {
+        return removals;
+    }
+
+    public void setRemovals(long removals) {
+        this.removals = removals;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public void setEvictions(long evictions) {
+        this.evictions = evictions;
+    }
+
+    public float getAverageGetMicros() {
+        return averageGetMicros;
+    }
+
+    public void setAverageGetMicros(float averageGetMicros) {
+        this.averageGetMicros = averageGetMicros;
+    }
+
+    /**
+     * The number of values loaded after a miss, for the caches filled by the application.
+     */
+    public long getLoads() {
+        return loads;
+    }
+
+    public void setLoads(long loads) {
+        this.loads = loads;
+    }
+
+    public double getAverageLoadMillis() {
+        return averageLoadMillis;
+    }
+
+    public void setAverageLoadMillis(double averageLoadMillis) {
+        this.averageLoadMillis = averageLoadMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStatisticsDTO{" +
+            "name='" + name + "'" +
+            ", hits=" + hits +
+            ", misses=" + misses +
+            ", hitRatio=" + hitRatio +
+            ", evictions=" + evictions +
+            ", loads=" + loads +
+            '}';
+    }
+}
@@ -0,0 +1,119 @@
+package com.smbsoft.health.service.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing a downsampled chart of the readings of a user, with one or more series (such as the systolic and
+ * diastolic pressures) aligned with the dates of its points.
+ */
+public class ChartDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String resolution;
+
+    private int readings;
+
+    private String unit;
+
+    private LocalDate[] dates = new LocalDate[0];
+
+    private List<Series> series = new ArrayList<>();
+
+    public ChartDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public ChartDTO(String resolution, int readings, LocalDate[] dates) {
+        this.resolution = resolution;
+        this.readings = readings;
+        this.dates = dates;
+    }
+
+    /**
+     * @return "week" or "month" when the points are the means of the readings of each period, or "points" when they
+     * are readings selected to keep the shape of the series
+     */
+    public String getResolution() {
+        return resolution;
+    }
+
+    /**
+     * @return the number of readings the chart was computed from
+     */
+    public int getReadings() {
+        return readings;
+    }
+
+    /**
+     * @return the unit of the values, for weights
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * @return the dates of the points, in chronological order: the first day of the period of each mean, or the day of
+     * each selected reading
+     */
+    public LocalDate[] getDates() {
+        return dates;
+    }
+
+    public List<Series> getSeries() {
+        return series;
+    }
+
+    @Override
+    public String toString() {
+        return "ChartDTO{" +
+            "resolution='" + resolution + "'" +
+            ", readings=" + readings +
+            ", points=" + dates.length +
+            ", series=" + series +
+            '}';
+    }
+
+    /**
+     * The values of one series, aligned with the dates of the chart.
+     */
+    public static class Series implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+
+        private double[] values;
+
+        public Series() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public Series(String name, double[] values) {
+            this.name = name;
+            this.values = values;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+
+        @Override
+        public String toString() {
+            return "Series{" +
+                "name='" + name + "'" +
+                '}';
+        }
+    }
+}
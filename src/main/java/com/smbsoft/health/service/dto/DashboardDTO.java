@@ -0,0 +1,190 @@
+package com.smbsoft.health.service.dto;
+
+import com.smbsoft.health.domain.BloodPressure;
+import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.domain.enumeration.WeightUnits;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing everything the home page shows for a date range: the weekly points against the weekly goal,
+ * and the weights and blood pressures of the range, with the latest of each.
+ */
+public class DashboardDTO {
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    private Integer weeklyGoal;
+
+    private WeightUnits weightUnit;
+
+    private List<PointsPerPeriodDTO> weeks = new ArrayList<>();
+
+    private WeightReading latestWeight;
+
+    private List<WeightReading> weights = new ArrayList<>();
+
+    private BloodPressureReading latestBloodPressure;
+
+    private List<BloodPressureReading> bloodPressures = new ArrayList<>();
+
+    public DashboardDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public DashboardDTO(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public Integer getWeeklyGoal() {
+        return weeklyGoal;
+    }
+
+    public void setWeeklyGoal(Integer weeklyGoal) {
+        this.weeklyGoal = weeklyGoal;
+    }
+
+    public WeightUnits getWeightUnit() {
+        return weightUnit;
+    }
+
+    public void setWeightUnit(WeightUnits weightUnit) {
+        this.weightUnit = weightUnit;
+    }
+
+    public List<PointsPerPeriodDTO> getWeeks() {
+        return weeks;
+    }
+
+    public void setWeeks(List<PointsPerPeriodDTO> weeks) {
+        this.weeks = weeks;
+    }
+
+    /**
+     * @return the number of weeks of the range whose points reached the weekly goal
+     */
+    public int getWeeksGoalReached() {
+        if (weeklyGoal == null) {
+            return 0;
+        }
+        return (int) weeks.stream().filter(week -> week.getPoints() >= weeklyGoal).count();
+    }
+
+    public WeightReading getLatestWeight() {
+        return latestWeight;
+    }
+
+    public void setLatestWeight(WeightReading latestWeight) {
+        this.latestWeight = latestWeight;
+    }
+
+    public List<WeightReading> getWeights() {
+        return weights;
+    }
+
+    public void setWeights(List<WeightReading> weights) {
+        this.weights = weights;
+    }
+
+    public BloodPressureReading getLatestBloodPressure() {
+        return latestBloodPressure;
+    }
+
+    public void setLatestBloodPressure(BloodPressureReading latestBloodPressure) {
+        this.latestBloodPressure = latestBloodPressure;
+    }
+
+    public List<BloodPressureReading> getBloodPressures() {
+        return bloodPressures;
+    }
+
+    public void setBloodPressures(List<BloodPressureReading> bloodPressures) {
+        this.bloodPressures = bloodPressures;
+    }
+
+    @Override
+    public String toString() {
+        return "DashboardDTO{" +
+            "from=" + from +
+            ", to=" + to +
+            ", weeklyGoal=" + weeklyGoal +
+            ", weeks=" + weeks.size() +
+            ", weights=" + weights.size() +
+            ", bloodPressures=" + bloodPressures.size() +
+            '}';
+    }
+
+    /**
+     * A weight, without its id and user.
+     */
+    public static class WeightReading {
+
+        private LocalDate date;
+
+        private Integer weight;
+
+        public WeightReading() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public WeightReading(Weight weight, WeightUnits unit) {
+            this.date = weight.getDate();
+            this.weight = weight.getGrams() != null ? (int) Math.round(unit.fromGrams(weight.getGrams())) : null;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public Integer getWeight() {
+            return weight;
+        }
+    }
+
+    /**
+     * A blood pressure, without its id and user.
+     */
+    public static class BloodPressureReading {
+
+        private LocalDate date;
+
+        private Integer systolic;
+
+        private Integer diastolic;
+
+        public BloodPressureReading() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public BloodPressureReading(BloodPressure bloodPressure) {
+            this.date = bloodPressure.getDate();
+            this.systolic = bloodPressure.getSystolic();
+            this.diastolic = bloodPressure.getDiastolic();
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public Integer getSystolic() {
+            return systolic;
+        }
+
+        public Integer getDiastolic() {
+            return diastolic;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.smbsoft.health.service.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing the ranking of the users by their points of a week.
+ */
+public class LeaderboardDTO {
+
+    private LocalDate week;
+
+    private int users;
+
+    private List<Entry> top = new ArrayList<>();
+
+    private Entry me;
+
+    public LeaderboardDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public LeaderboardDTO(LocalDate week, int users) {
+        this.week = week;
+        this.users = users;
+    }
+
+    /**
+     * @return the first day of the week, a Monday
+     */
+    public LocalDate getWeek() {
+        return week;
+    }
+
+    /**
+     * @return the number of users with points in the week
+     */
+    public int getUsers() {
+        return users;
+    }
+
+    /**
+     * @return the users with the most points, best first
+     */
+    public List<Entry> getTop() {
+        return top;
+    }
+
+    /**
+     * @return the rank of the current user, or null if the user has no points in the week
+     */
+    public Entry getMe() {
+        return me;
+    }
+
+    public void setMe(Entry me) {
+        this.me = me;
+    }
+
+    @Override
+    public String toString() {
+        return "LeaderboardDTO{" +
+            "week=" + week +
+            ", users=" + users +
+            ", top=" + top.size() +
+            ", me=" + me +
+            '}';
+    }
+
+    /**
+     * The points and rank of a user.
+     */
+    public static class Entry {
+
+        private String login;
+
+        private int points;
+
+        private int rank;
+
+        public Entry() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public Entry(String login, int points, int rank) {
+            this.login = login;
+            this.points = points;
+            this.rank = rank;
+        }
+
+        public String getLogin() {
+            return login;
+        }
+
+        public int getPoints() {
+            return points;
+        }
+
+        /**
+         * @return the rank, starting at 1, shared by the users with the same points
+         */
+        public int getRank() {
+            return rank;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" +
+                "login='" + login + "'" +
+                ", points=" + points +
+                ", rank=" + rank +
+                '}';
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.smbsoft.health.service.dto;
+
+import java.time.LocalDate;
+
+/**
+ * A DTO representing the points a user logged during a period (a day, an ISO week or a month).
+ */
+public class PointsPerPeriodDTO {
+
+    private LocalDate start;
+
+    private int exercise;
+
+    private int meals;
+
+    private int alcohol;
+
+    public PointsPerPeriodDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PointsPerPeriodDTO(LocalDate start) {
+        this.start = start;
+    }
+
+    /**
+     * Constructor used by JPQL "select new" expressions, where sums are returned as {@link Long}.
+     */
+    public PointsPerPeriodDTO(LocalDate start, Long exercise, Long meals, Long alcohol) {
+        this.start = start;
+        this.exercise = exercise == null ? 0 : exercise.intValue();
+        this.meals = meals == null ? 0 : meals.intValue();
+        this.alcohol = alcohol == null ? 0 : alcohol.intValue();
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    public int getExercise() {
+        return exercise;
+    }
+
+    public int getMeals() {
+        return meals;
+    }
+
+    public int getAlcohol() {
+        return alcohol;
+    }
+
+    public int getPoints() {
+        return exercise + meals + alcohol;
+    }
+
+    /**
+     * Add the points of another period to this one.
+     */
+    public PointsPerPeriodDTO add(PointsPerPeriodDTO other) {
+        this.exercise += other.exercise;
+        this.meals += other.meals;
+        this.alcohol += other.alcohol;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "PointsPerPeriodDTO{" +
+            "start=" + start +
+            ", exercise=" + exercise +
+            ", meals=" + meals +
+            ", alcohol=" + alcohol +
+            '}';
+    }
+}
@@ -0,0 +1,115 @@
+package com.smbsoft.health.service.dto;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A DTO representing the progress of the reindexing of one search index.
+ */
+public class ReindexProgressDTO {
+
+    public enum Status {
+        PENDING, RUNNING, DONE, FAILED
+    }
+
+    private final String index;
+
+    private volatile String targetIndex;
+
+    private volatile Status status = Status.PENDING;
+
+    private volatile long total;
+
+    private final AtomicLong indexed = new AtomicLong();
+
+    private volatile Instant startTime;
+
+    private volatile Instant endTime;
+
+    private volatile String error;
+
+    public ReindexProgressDTO(String index) {
+        this.index = index;
+    }
+
+    /**
+     * The alias searched by the application.
+     */
+    public String getIndex() {
+        return index;
+    }
+
+    /**
+     * The versioned index being written, which the alias points to once it is complete.
+     */
+    public String getTargetIndex() {
+        return targetIndex;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getIndexed() {
+        return indexed.get();
+    }
+
+    public Instant getStartTime() {
+        return startTime;
+    }
+
+    public Instant getEndTime() {
+        return endTime;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public long getDocsPerSecond() {
+        if (startTime == null) {
+            return 0;
+        }
+        long millis = Duration.between(startTime, endTime != null ? endTime : Instant.now()).toMillis();
+        return millis > 0 ? indexed.get() * 1000 / millis : indexed.get();
+    }
+
+    public void start(String targetIndex, long total) {
+        this.targetIndex = targetIndex;
+        this.total = total;
+        this.startTime = Instant.now();
+        this.status = Status.RUNNING;
+    }
+
+    public long addIndexed(long count) {
+        return indexed.addAndGet(count);
+    }
+
+    public void done() {
+        this.endTime = Instant.now();
+        this.status = Status.DONE;
+    }
+
+    public void failed(String error) {
+        this.endTime = Instant.now();
+        this.error = error;
+        this.status = Status.FAILED;
+    }
+
+    @Override
+    public String toString() {
+        return "ReindexProgressDTO{" +
+            "index='" + index + "'" +
+            ", targetIndex='" + targetIndex + "'" +
+            ", status=" + status +
+            ", indexed=" + indexed +
+            ", total=" + total +
+            ", docsPerSecond=" + getDocsPerSecond() +
+            '}';
+    }
+}
@@ -0,0 +1,136 @@
+package com.smbsoft.health.service.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing the trend of the readings of a user: for every reading of one or more series (such as the
+ * systolic and diastolic pressures), the mean of the readings of the window ending on its date, and whether it is an
+ * outlier, with the slope of the linear regression of each series.
+ */
+public class TrendDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int windowDays;
+
+    private String unit;
+
+    private LocalDate[] dates = new LocalDate[0];
+
+    private List<Series> series = new ArrayList<>();
+
+    public TrendDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TrendDTO(int windowDays, LocalDate[] dates) {
+        this.windowDays = windowDays;
+        this.dates = dates;
+    }
+
+    public int getWindowDays() {
+        return windowDays;
+    }
+
+    /**
+     * @return the unit of the values, for weights
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * @return the dates of the readings, in chronological order
+     */
+    public LocalDate[] getDates() {
+        return dates;
+    }
+
+    public List<Series> getSeries() {
+        return series;
+    }
+
+    @Override
+    public String toString() {
+        return "TrendDTO{" +
+            "windowDays=" + windowDays +
+            ", readings=" + dates.length +
+            ", series=" + series +
+            '}';
+    }
+
+    /**
+     * The values of one series, aligned with the dates of the trend.
+     */
+    public static class Series implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+
+        private double[] values;
+
+        private double[] means;
+
+        private int[] outliers;
+
+        private Double slopePerDay;
+
+        public Series() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public Series(String name, double[] values, double[] means, int[] outliers, Double slopePerDay) {
+            this.name = name;
+            this.values = values;
+            this.means = means;
+            this.outliers = outliers;
+            this.slopePerDay = slopePerDay;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+
+        /**
+         * @return the rolling means, of the readings of the window ending on the date of each reading
+         */
+        public double[] getMeans() {
+            return means;
+        }
+
+        /**
+         * @return the indexes of the outlier readings
+         */
+        public int[] getOutliers() {
+            return outliers;
+        }
+
+        /**
+         * @return the slope of the linear regression of the values over the days, or null with less than two days
+         */
+        public Double getSlopePerDay() {
+            return slopePerDay;
+        }
+
+        @Override
+        public String toString() {
+            return "Series{" +
+                "name='" + name + "'" +
+                ", outliers=" + outliers.length +
+                ", slopePerDay=" + slopePerDay +
+                '}';
+        }
+    }
+}
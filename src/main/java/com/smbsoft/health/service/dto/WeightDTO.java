@@ -0,0 +1,50 @@
+package com.smbsoft.health.service.dto;
+
+import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.domain.enumeration.WeightUnits;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * A DTO representing a weight as it is stored, with the weight converted to the unit it is displayed in.
+ * <p>
+ * The fields of the weight are written unchanged, so that a client can send the weight back to be saved without
+ * changing its value. The displayed weight is not rounded.
+ * </p>
+ */
+public class WeightDTO {
+
+    @JsonUnwrapped
+    private final Weight weight;
+
+    private final Double displayWeight;
+
+    private final WeightUnits displayUnit;
+
+    public WeightDTO(Weight weight, Double displayWeight, WeightUnits displayUnit) {
+        this.weight = weight;
+        this.displayWeight = displayWeight;
+        this.displayUnit = displayUnit;
+    }
+
+    public Weight getWeight() {
+        return weight;
+    }
+
+    public Double getDisplayWeight() {
+        return displayWeight;
+    }
+
+    public WeightUnits getDisplayUnit() {
+        return displayUnit;
+    }
+
+    @Override
+    public String toString() {
+        return "WeightDTO{" +
+            "weight=" + weight +
+            ", displayWeight='" + displayWeight + "'" +
+            ", displayUnit='" + displayUnit + "'" +
+            '}';
+    }
+}
@@ -0,0 +1,241 @@
+package com.smbsoft.health.service.util;
+
+import com.smbsoft.health.service.dto.ChartDTO;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Downsamples one or more series of readings, added in chronological order, to a bounded number of points.
+ * <p>
+ * The readings are kept in primitive arrays. They are either averaged per week or per month, or reduced with the
+ * Largest-Triangle-Three-Buckets algorithm, which keeps the first and last readings and, from each bucket of the
+ * readings between them, the one forming the largest triangle with the point kept from the previous bucket and the
+ * mean of the next bucket, so that peaks and drops survive the downsampling.
+ * </p>
+ */
+public class Downsampler {
+
+    /**
+     * The periods the readings can be averaged by.
+     */
+    public enum Resolution {
+
+        WEEK("week"), MONTH("month");
+
+        private final String value;
+
+        Resolution(String value) {
+            this.value = value;
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * @param value the name of the resolution in a request
+         * @return the resolution
+         * @throws IllegalArgumentException if there is no such resolution
+         */
+        public static Resolution fromValue(String value) {
+            for (Resolution resolution : values()) {
+                if (resolution.value.equals(value)) {
+                    return resolution;
+                }
+            }
+            throw new IllegalArgumentException("Invalid resolution: " + value);
+        }
+    }
+
+    /**
+     * The resolution of the charts made of selected readings.
+     */
+    public static final String POINTS = "points";
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final String[] names;
+
+    private int size;
+
+    private long[] days = new long[INITIAL_CAPACITY];
+
+    private final double[][] values;
+
+    /**
+     * @param names the names of the series
+     */
+    public Downsampler(String... names) {
+        this.names = names;
+        this.values = new double[names.length][INITIAL_CAPACITY];
+    }
+
+    /**
+     * Add the next reading.
+     *
+     * @param epochDay the day of the reading, not before the day of the previous one
+     * @param readings the value of the reading in each series
+     */
+    public void add(long epochDay, double... readings) {
+        if (size == days.length) {
+            days = Arrays.copyOf(days, size * 2);
+            for (int s = 0; s < values.length; s++) {
+                values[s] = Arrays.copyOf(values[s], size * 2);
+            }
+        }
+        days[size] = epochDay;
+        for (int s = 0; s < values.length; s++) {
+            values[s][size] = readings[s];
+        }
+        size++;
+    }
+
+    /**
+     * @return the number of readings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Average the readings per period.
+     *
+     * @param resolution the period
+     * @return the chart, with a point on the first day of every period with readings
+     */
+    public ChartDTO average(Resolution resolution) {
+        long[] starts = new long[size];
+        double[][] means = new double[values.length][size];
+        int points = 0;
+        int count = 0;
+        long periodEnd = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            if (days[i] >= periodEnd) {
+                if (count > 0) {
+                    divide(means, points++, count);
+                }
+                count = 0;
+                LocalDate day = LocalDate.ofEpochDay(days[i]);
+                LocalDate start = resolution == Resolution.WEEK ?
+                    day.minusDays(day.getDayOfWeek().getValue() - 1) : day.withDayOfMonth(1);
+                starts[points] = start.toEpochDay();
+                periodEnd = (resolution == Resolution.WEEK ? start.plusWeeks(1) : start.plusMonths(1)).toEpochDay();
+            }
+            for (int s = 0; s < values.length; s++) {
+                means[s][points] += values[s][i];
+            }
+            count++;
+        }
+        if (count > 0) {
+            divide(means, points++, count);
+        }
+        ChartDTO chart = new ChartDTO(resolution.getValue(), size, toDates(starts, points));
+        for (int s = 0; s < values.length; s++) {
+            chart.getSeries().add(new ChartDTO.Series(names[s], Arrays.copyOf(means[s], points)));
+        }
+        return chart;
+    }
+
+    /**
+     * Select the readings keeping the shape of the series, with the Largest-Triangle-Three-Buckets algorithm. With
+     * several series, the area of a triangle is the sum of its areas in each series.
+     *
+     * @param maxPoints the maximum number of points, at least 3
+     * @return the chart, with every reading if there are no more than maxPoints
+     */
+    public ChartDTO select(int maxPoints) {
+        if (maxPoints < 3) {
+            throw new IllegalArgumentException("At least 3 points are needed");
+        }
+        int[] selected;
+        if (size <= maxPoints) {
+            selected = new int[size];
+            for (int i = 0; i < size; i++) {
+                selected[i] = i;
+            }
+        } else {
+            selected = largestTriangleThreeBuckets(maxPoints);
+        }
+        long[] selectedDays = new long[selected.length];
+        for (int p = 0; p < selected.length; p++) {
+            selectedDays[p] = days[selected[p]];
+        }
+        ChartDTO chart = new ChartDTO(POINTS, size, toDates(selectedDays, selected.length));
+        for (int s = 0; s < values.length; s++) {
+            double[] series = new double[selected.length];
+            for (int p = 0; p < selected.length; p++) {
+                series[p] = values[s][selected[p]];
+            }
+            chart.getSeries().add(new ChartDTO.Series(names[s], series));
+        }
+        return chart;
+    }
+
+    private int[] largestTriangleThreeBuckets(int maxPoints) {
+        int[] selected = new int[maxPoints];
+        double[] nextMeans = new double[values.length];
+        int previous = 0;
+        for (int bucket = 0; bucket < maxPoints - 2; bucket++) {
+            int start = bucketStart(bucket, maxPoints);
+            int end = bucketStart(bucket + 1, maxPoints);
+            // The mean of the next bucket, which is the last reading after the last bucket
+            int nextEnd = Math.min(bucketStart(bucket + 2, maxPoints), size);
+            double nextDay = 0;
+            Arrays.fill(nextMeans, 0);
+            for (int i = end; i < nextEnd; i++) {
+                nextDay += days[i];
+                for (int s = 0; s < values.length; s++) {
+                    nextMeans[s] += values[s][i];
+                }
+            }
+            int nextCount = nextEnd - end;
+            nextDay /= nextCount;
+            for (int s = 0; s < values.length; s++) {
+                nextMeans[s] /= nextCount;
+            }
+
+            double previousX = days[previous] - nextDay;
+            double maxArea = -1;
+            int max = start;
+            for (int i = start; i < end; i++) {
+                double x = days[i] - nextDay;
+                double area = 0;
+                for (int s = 0; s < values.length; s++) {
+                    // Twice the area of the triangle, with the mean of the next bucket as the origin
+                    area += Math.abs(previousX * (values[s][i] - nextMeans[s]) - x * (values[s][previous] - nextMeans[s]));
+                }
+                if (area > maxArea) {
+                    maxArea = area;
+                    max = i;
+                }
+            }
+            selected[bucket + 1] = max;
+            previous = max;
+        }
+        selected[maxPoints - 1] = size - 1;
+        return selected;
+    }
+
+    /**
+     * @return the index of the first reading of a bucket, the readings between the first and the last one being split
+     * in maxPoints - 2 buckets
+     */
+    private int bucketStart(int bucket, int maxPoints) {
+        return 1 + (int) ((long) bucket * (size - 2) / (maxPoints - 2));
+    }
+
+    private static void divide(double[][] sums, int point, int count) {
+        for (double[] series : sums) {
+            series[point] /= count;
+        }
+    }
+
+    private static LocalDate[] toDates(long[] days, int length) {
+        LocalDate[] dates = new LocalDate[length];
+        for (int i = 0; i < length; i++) {
+            dates[i] = LocalDate.ofEpochDay(days[i]);
+        }
+        return dates;
+    }
+}
@@ -0,0 +1,169 @@
+package com.smbsoft.health.service.util;
+
+import java.util.*;
+
+/**
+ * The ranking of the users by score, updated one user at a time.
+ * <p>
+ * A Fenwick tree counts the users per score, so the rank of a user is read in O(log s), s being the highest score,
+ * and the users are kept sorted by score for the top of the ranking. Users with the same score have the same rank,
+ * one more than the number of users with a higher score. Negative scores are counted as 0 in the ranks.
+ * </p>
+ */
+public class Leaderboard {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<Long, Integer> scores = new HashMap<>();
+
+    private final NavigableMap<Integer, NavigableSet<Long>> usersByScore = new TreeMap<>(Comparator.reverseOrder());
+
+    /**
+     * Fenwick tree of the number of users per score: index i holds the users with a score of i - 1.
+     */
+    private int[] counts = new int[INITIAL_CAPACITY];
+
+    /**
+     * Set the score of a user.
+     *
+     * @param userId the id of the user
+     * @param score the score, or null to remove the user from the ranking
+     */
+    public synchronized void setScore(Long userId, Integer score) {
+        Integer previous = score != null ? scores.put(userId, score) : scores.remove(userId);
+        if (Objects.equals(previous, score)) {
+            return;
+        }
+        if (previous != null) {
+            NavigableSet<Long> users = usersByScore.get(previous);
+            users.remove(userId);
+            if (users.isEmpty()) {
+                usersByScore.remove(previous);
+            }
+            add(previous, -1);
+        }
+        if (score != null) {
+            // Counted before it is added to the users per score, from which the tree is rebuilt when it grows
+            add(score, 1);
+            usersByScore.computeIfAbsent(score, key -> new TreeSet<>()).add(userId);
+        }
+    }
+
+    /**
+     * @param userId the id of the user
+     * @return the score of the user, or null if the user is not ranked
+     */
+    public synchronized Integer getScore(Long userId) {
+        return scores.get(userId);
+    }
+
+    /**
+     * @param userId the id of the user
+     * @return the rank of the user, starting at 1, or null if the user is not ranked
+     */
+    public synchronized Integer getRank(Long userId) {
+        Integer score = scores.get(userId);
+        return score != null ? rankOf(score) : null;
+    }
+
+    /**
+     * @return the number of ranked users
+     */
+    public synchronized int size() {
+        return scores.size();
+    }
+
+    /**
+     * Get the top of the ranking. Users with the same score are ordered by id.
+     *
+     * @param limit the maximum number of users
+     * @return the users with the highest scores, with their score and rank
+     */
+    public synchronized List<Rank> getTop(int limit) {
+        List<Rank> top = new ArrayList<>(Math.min(limit, scores.size()));
+        for (Map.Entry<Integer, NavigableSet<Long>> entry : usersByScore.entrySet()) {
+            int rank = rankOf(entry.getKey());
+            for (Long userId : entry.getValue()) {
+                if (top.size() == limit) {
+                    return top;
+                }
+                top.add(new Rank(userId, entry.getKey(), rank));
+            }
+        }
+        return top;
+    }
+
+    private int rankOf(int score) {
+        // The users with a score up to this one are counted by the prefix sum
+        return 1 + scores.size() - prefixSum(index(score));
+    }
+
+    private void add(int score, int delta) {
+        int index = index(score);
+        if (index >= counts.length) {
+            grow(index);
+        }
+        for (int i = index; i < counts.length; i += i & -i) {
+            counts[i] += delta;
+        }
+    }
+
+    private int prefixSum(int index) {
+        int sum = 0;
+        for (int i = Math.min(index, counts.length - 1); i > 0; i -= i & -i) {
+            sum += counts[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Rebuild the tree with room for the index, from the users per score.
+     */
+    private void grow(int index) {
+        int capacity = counts.length;
+        while (capacity <= index) {
+            capacity *= 2;
+        }
+        counts = new int[capacity];
+        for (Map.Entry<Integer, NavigableSet<Long>> entry : usersByScore.entrySet()) {
+            int size = entry.getValue().size();
+            for (int i = index(entry.getKey()); i < capacity; i += i & -i) {
+                counts[i] += size;
+            }
+        }
+    }
+
+    private static int index(int score) {
+        return Math.max(score, 0) + 1;
+    }
+
+    /**
+     * The score and rank of a user.
+     */
+    public static final class Rank {
+
+        private final Long userId;
+
+        private final int score;
+
+        private final int rank;
+
+        public Rank(Long userId, int score, int rank) {
+            this.userId = userId;
+            this.score = score;
+            this.rank = rank;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+    }
+}
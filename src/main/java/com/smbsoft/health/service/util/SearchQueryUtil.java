@@ -0,0 +1,48 @@
+package com.smbsoft.health.service.util;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+
+import java.time.LocalDate;
+
+import static org.elasticsearch.index.query.QueryBuilders.*;
+
+/**
+ * Utility class for building the queries of the search endpoints.
+ */
+public final class SearchQueryUtil {
+
+    private SearchQueryUtil() {
+    }
+
+    /**
+     * Build a query matching the documents of one user only.
+     * <p>
+     * The user and date restrictions are filters: they are not scored, and Elasticsearch caches them, so a search
+     * only scores the documents of the user. The user is matched on "user.id", as the login is an analyzed field.
+     * </p>
+     *
+     * @param query the query string of the search
+     * @param userId the id of the user owning the documents
+     * @param from the first day of the range, inclusive, or null
+     * @param to the last day of the range, inclusive, or null
+     * @return the query
+     */
+    public static QueryBuilder userScopedQuery(String query, Long userId, LocalDate from, LocalDate to) {
+        BoolQueryBuilder builder = boolQuery()
+            .must(queryStringQuery(query))
+            .filter(termQuery("user.id", userId));
+        if (from != null || to != null) {
+            RangeQueryBuilder date = rangeQuery("date");
+            if (from != null) {
+                date.gte(from.toString());
+            }
+            if (to != null) {
+                date.lte(to.toString());
+            }
+            builder.filter(date);
+        }
+        return builder;
+    }
+}
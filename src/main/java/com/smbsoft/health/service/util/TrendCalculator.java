@@ -0,0 +1,147 @@
+package com.smbsoft.health.service.util;
+
+import com.smbsoft.health.service.dto.TrendDTO;
+
+import java.util.Arrays;
+
+/**
+ * Computes the trend of a series of readings in a single pass, as they are read in chronological order.
+ * <p>
+ * The readings are kept in primitive arrays. The window of a reading is made of the readings of the
+ * {@code windowDays} days ending on its date: a running sum over the window gives its rolling mean, and the mean and
+ * standard deviation of the readings of the window before it tell whether it is an outlier. The sums of the linear
+ * regression are accumulated on the way.
+ * </p>
+ */
+public class TrendCalculator {
+
+    /**
+     * Distance to the mean of the previous readings of the window, in standard deviations, beyond which a reading is
+     * an outlier.
+     */
+    static final double OUTLIER_DEVIATIONS = 3;
+
+    /**
+     * Smallest standard deviation of the previous readings of the window, relative to their mean, so that a reading
+     * differing from a window of equal readings is still an outlier.
+     */
+    static final double OUTLIER_MIN_RELATIVE_DEVIATION = 0.01;
+
+    /**
+     * Number of previous readings in the window needed to tell an outlier.
+     */
+    static final int OUTLIER_MIN_READINGS = 3;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final int windowDays;
+
+    private int size;
+
+    private long[] days = new long[INITIAL_CAPACITY];
+
+    private double[] values = new double[INITIAL_CAPACITY];
+
+    private double[] means = new double[INITIAL_CAPACITY];
+
+    private int[] outliers = new int[16];
+
+    private int outlierCount;
+
+    private int windowStart;
+
+    private double windowSum;
+
+    private double windowSumOfSquares;
+
+    private double sumX;
+
+    private double sumY;
+
+    private double sumXX;
+
+    private double sumXY;
+
+    public TrendCalculator(int windowDays) {
+        if (windowDays < 1) {
+            throw new IllegalArgumentException("The window must be at least one day");
+        }
+        this.windowDays = windowDays;
+    }
+
+    /**
+     * Add the next reading.
+     *
+     * @param epochDay the day of the reading, not before the day of the previous one
+     * @param value the value of the reading
+     */
+    public void add(long epochDay, double value) {
+        if (size == days.length) {
+            days = Arrays.copyOf(days, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            means = Arrays.copyOf(means, size * 2);
+        }
+        int index = size++;
+        days[index] = epochDay;
+        values[index] = value;
+
+        // The readings out of the window ending on this day
+        while (days[windowStart] <= epochDay - windowDays) {
+            windowSum -= values[windowStart];
+            windowSumOfSquares -= values[windowStart] * values[windowStart];
+            windowStart++;
+        }
+        int previous = index - windowStart;
+        if (previous >= OUTLIER_MIN_READINGS) {
+            double mean = windowSum / previous;
+            double deviation = Math.max(Math.sqrt(Math.max(0, windowSumOfSquares / previous - mean * mean)),
+                OUTLIER_MIN_RELATIVE_DEVIATION * Math.abs(mean));
+            if (Math.abs(value - mean) > OUTLIER_DEVIATIONS * deviation) {
+                if (outlierCount == outliers.length) {
+                    outliers = Arrays.copyOf(outliers, outlierCount * 2);
+                }
+                outliers[outlierCount++] = index;
+            }
+        }
+        windowSum += value;
+        windowSumOfSquares += value * value;
+        means[index] = windowSum / (previous + 1);
+
+        // Relative to the first day, for the precision of the sums
+        double x = epochDay - days[0];
+        sumX += x;
+        sumY += value;
+        sumXX += x * x;
+        sumXY += x * value;
+    }
+
+    /**
+     * @return the number of readings
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the days of the readings
+     */
+    public long[] getDays() {
+        return Arrays.copyOf(days, size);
+    }
+
+    /**
+     * Get the series of the readings added so far.
+     *
+     * @param name the name of the series
+     * @return the series
+     */
+    public TrendDTO.Series toSeries(String name) {
+        Double slope = null;
+        double denominator = size * sumXX - sumX * sumX;
+        if (denominator != 0) {
+            slope = (size * sumXY - sumX * sumY) / denominator;
+        }
+        return new TrendDTO.Series(name, Arrays.copyOf(values, size), Arrays.copyOf(means, size),
+            Arrays.copyOf(outliers, outlierCount), slope);
+    }
+}
@@ -4,22 +4,43 @@ import com.codahale.metrics.annotation.Timed;
 import com.smbsoft.health.domain.BloodPressure;
 
 import com.smbsoft.health.repository.BloodPressureRepository;
+import com.smbsoft.health.repository.UserRepository;
 import com.smbsoft.health.repository.search.BloodPressureSearchRepository;
+import com.smbsoft.health.service.BulkImportService;
+import com.smbsoft.health.service.ChartService;
+import com.smbsoft.health.service.BloodPressureService;
+import com.smbsoft.health.service.UserQueryCache;
+import com.smbsoft.health.service.dto.BulkImportResultDTO;
+import com.smbsoft.health.service.dto.ChartDTO;
+import com.smbsoft.health.service.util.Downsampler.Resolution;
+import com.smbsoft.health.service.util.SearchQueryUtil;
+import com.smbsoft.health.security.SecurityUtils;
+import com.smbsoft.health.web.rest.util.DateRangeUtil;
 import com.smbsoft.health.web.rest.util.HeaderUtil;
+import com.smbsoft.health.web.rest.util.PageCursor;
 import com.smbsoft.health.web.rest.util.PaginationUtil;
 import io.swagger.annotations.ApiParam;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -42,9 +63,27 @@ public class BloodPressureResource {
 
     private final BloodPressureSearchRepository bloodPressureSearchRepository;
 
-    public BloodPressureResource(BloodPressureRepository bloodPressureRepository, BloodPressureSearchRepository bloodPressureSearchRepository) {
+    private final BloodPressureService bloodPressureService;
+
+    private final UserRepository userRepository;
+
+    private final UserQueryCache userQueryCache;
+
+    private final BulkImportService bulkImportService;
+
+    private final ChartService chartService;
+
+    public BloodPressureResource(BloodPressureRepository bloodPressureRepository, BloodPressureSearchRepository bloodPressureSearchRepository,
+                                 BloodPressureService bloodPressureService, UserRepository userRepository,
+                                 UserQueryCache userQueryCache, BulkImportService bulkImportService,
+                                 ChartService chartService) {
         this.bloodPressureRepository = bloodPressureRepository;
         this.bloodPressureSearchRepository = bloodPressureSearchRepository;
+        this.bloodPressureService = bloodPressureService;
+        this.userRepository = userRepository;
+        this.userQueryCache = userQueryCache;
+        this.bulkImportService = bulkImportService;
+        this.chartService = chartService;
     }
 
     /**
@@ -61,13 +100,28 @@ public class BloodPressureResource {
         if (bloodPressure.getId() != null) {
             return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "idexists", "A new bloodPressure cannot already have an ID")).body(null);
         }
-        BloodPressure result = bloodPressureRepository.save(bloodPressure);
-        bloodPressureSearchRepository.save(result);
+        BloodPressure result = bloodPressureService.save(bloodPressure);
         return ResponseEntity.created(new URI("/api/blood-pressures/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
     }
 
+    /**
+     * POST  /blood-pressures/bulk : Import blood pressures of the current user in bulk.
+     *
+     * @param input the blood pressures, as a JSON array or as NDJSON
+     * @return the ResponseEntity with status 200 (OK) and with body the outcome of every row
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/blood-pressures/bulk",
+        consumes = {MediaType.APPLICATION_JSON_VALUE, BulkImportService.APPLICATION_NDJSON_VALUE})
+    @Timed
+    public ResponseEntity<BulkImportResultDTO> importBloodPressures(InputStream input) throws IOException {
+        log.debug("REST request to import BloodPressure in bulk");
+        return ResponseEntity.ok(bulkImportService.importAll(input, BloodPressure.class, BloodPressure::setUser,
+            bloodPressureService::saveAll));
+    }
+
     /**
      * PUT  /blood-pressures : Updates an existing bloodPressure.
      *
@@ -84,8 +138,7 @@ public class BloodPressureResource {
         if (bloodPressure.getId() == null) {
             return createBloodPressure(bloodPressure);
         }
-        BloodPressure result = bloodPressureRepository.save(bloodPressure);
-        bloodPressureSearchRepository.save(result);
+        BloodPressure result = bloodPressureService.save(bloodPressure);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, bloodPressure.getId().toString()))
             .body(result);
@@ -94,20 +147,144 @@ public class BloodPressureResource {
     /**
      * GET  /blood-pressures : get all the bloodPressures.
      *
+     * <p>
+     * When a "from" or "to" date is given, only the bloodPressures of the current user in that range are returned,
+     * most recent first.
+     * </p>
+     *
      * @param pageable the pagination information
-     * @return the ResponseEntity with status 200 (OK) and the list of bloodPressures in body
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @return the ResponseEntity with status 200 (OK) and the list of bloodPressures in body,
+     * or with status 400 (Bad Request) if "from" is after "to"
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
     @GetMapping("/blood-pressures")
     @Timed
-    public ResponseEntity<List<BloodPressure>> getAllBloodPressures(@ApiParam Pageable pageable)
+    public ResponseEntity<List<BloodPressure>> getAllBloodPressures(@ApiParam Pageable pageable,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to)
         throws URISyntaxException {
         log.debug("REST request to get a page of BloodPressures");
-        Page<BloodPressure> page = bloodPressureRepository.findAll(pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/blood-pressures");
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        Page<BloodPressure> page;
+        if (DateRangeUtil.isRequested(from, to)) {
+            String login = SecurityUtils.getCurrentUserLogin();
+            LocalDate start = DateRangeUtil.startOf(from);
+            LocalDate end = DateRangeUtil.endOf(to);
+            page = userQueryCache.getPage(BloodPressure.class, login, start, end, pageable,
+                () -> bloodPressureRepository.findByUserLoginAndDateBetweenOrderByDateDescIdDesc(login, start, end, pageable),
+                bloodPressureRepository::findOne, BloodPressure::getId);
+        } else {
+            page = bloodPressureRepository.findAll(pageable);
+        }
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, DateRangeUtil.generateUri("/api/blood-pressures", from, to));
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /blood-pressures?after=:cursor : get the bloodPressures of the current user in cursor mode, most recent first.
+     *
+     * <p>
+     * Pages are read with a keyset predicate on (date, id) and without a count query, so their cost does not depend
+     * on how deep the client pages. The cursor of the next page is returned in the "Link" header, with rel="next".
+     * </p>
+     *
+     * @param after the cursor of the next page, as returned with the previous page, or an empty value for the first page
+     * @param pageable the pagination information, only its size is used
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @return the ResponseEntity with status 200 (OK) and the list of bloodPressures in body,
+     * or with status 400 (Bad Request) if the cursor is not valid or "from" is after "to"
+     */
+    @GetMapping(value = "/blood-pressures", params = "after")
+    @Timed
+    public ResponseEntity<List<BloodPressure>> getAllBloodPressuresAfter(@RequestParam String after, @ApiParam Pageable pageable,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("REST request to get a page of BloodPressures after cursor {}", after);
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        PageCursor cursor;
+        try {
+            cursor = PageCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidcursor", "The pagination cursor is not valid")).body(null);
+        }
+        LocalDate end = DateRangeUtil.endOf(to);
+        if (cursor == null) {
+            // First page: every row of the range has a lower key
+            cursor = new PageCursor(end, Long.MAX_VALUE);
+        }
+        Slice<BloodPressure> slice = bloodPressureRepository.findByUserLoginAndDateBetweenAfterKey(SecurityUtils.getCurrentUserLogin(),
+            DateRangeUtil.startOf(from), end, cursor.getDate(), cursor.getId(), new PageRequest(0, pageable.getPageSize()));
+        PageCursor next = null;
+        if (slice.hasContent()) {
+            BloodPressure last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            next = new PageCursor(last.getDate(), last.getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, DateRangeUtil.generateUri("/api/blood-pressures", from, to), next);
+        return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /blood-pressures?resolution=week|month : get the means of the blood pressures of the current user per week
+     * or per month.
+     *
+     * @param resolution the period of the means, "week" or "month"
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @return the ResponseEntity with status 200 (OK) and the chart in body, with a "systolic" and a "diastolic" series,
+     * or with status 400 (Bad Request) if the resolution is not valid or "from" is after "to"
+     */
+    @GetMapping(value = "/blood-pressures", params = {"resolution", "!after"})
+    @Timed
+    public ResponseEntity<ChartDTO> getBloodPressuresByResolution(@RequestParam String resolution,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("REST request to get the BloodPressures per {}", resolution);
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        Resolution period;
+        try {
+            period = Resolution.fromValue(resolution);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidresolution", "The resolution must be week or month")).body(null);
+        }
+        return ResponseEntity.ok(chartService.getBloodPressures(SecurityUtils.getCurrentUserLogin(),
+            DateRangeUtil.startOf(from), DateRangeUtil.endOf(to), period));
+    }
+
+    /**
+     * GET  /blood-pressures?maxPoints=200 : get at most maxPoints blood pressures of the current user, selected to keep
+     * the shape of the series.
+     *
+     * @param maxPoints the maximum number of points
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @return the ResponseEntity with status 200 (OK) and the chart in body, with a "systolic" and a "diastolic" series,
+     * or with status 400 (Bad Request) if maxPoints is not valid or "from" is after "to"
+     */
+    @GetMapping(value = "/blood-pressures", params = {"maxPoints", "!resolution", "!after"})
+    @Timed
+    public ResponseEntity<ChartDTO> getDownsampledBloodPressures(@RequestParam int maxPoints,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("REST request to get at most {} BloodPressures", maxPoints);
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        if (maxPoints < 3 || maxPoints > ChartService.MAX_POINTS) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidmaxpoints", "The maximum number of points must be between 3 and " + ChartService.MAX_POINTS)).body(null);
+        }
+        return ResponseEntity.ok(chartService.getBloodPressures(SecurityUtils.getCurrentUserLogin(),
+            DateRangeUtil.startOf(from), DateRangeUtil.endOf(to), maxPoints));
+    }
+
     /**
      * GET  /blood-pressures/:id : get the "id" bloodPressure.
      *
@@ -132,27 +309,35 @@ public class BloodPressureResource {
     @Timed
     public ResponseEntity<Void> deleteBloodPressure(@PathVariable Long id) {
         log.debug("REST request to delete BloodPressure : {}", id);
-        bloodPressureRepository.delete(id);
-        bloodPressureSearchRepository.delete(id);
+        bloodPressureService.delete(id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
     /**
-     * SEARCH  /_search/blood-pressures?query=:query : search for the bloodPressure corresponding
+     * SEARCH  /_search/blood-pressures?query=:query : search for the bloodPressures of the current user corresponding
      * to the query.
      *
-     * @param query the query of the bloodPressure search 
+     * @param query the query of the bloodPressure search
      * @param pageable the pagination information
-     * @return the result of the search
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @return the result of the search, or with status 400 (Bad Request) if "from" is after "to"
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
     @GetMapping("/_search/blood-pressures")
     @Timed
-    public ResponseEntity<List<BloodPressure>> searchBloodPressures(@RequestParam String query, @ApiParam Pageable pageable)
+    public ResponseEntity<List<BloodPressure>> searchBloodPressures(@RequestParam String query, @ApiParam Pageable pageable,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to)
         throws URISyntaxException {
         log.debug("REST request to search for a page of BloodPressures for query {}", query);
-        Page<BloodPressure> page = bloodPressureSearchRepository.search(queryStringQuery(query), pageable);
-        HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/blood-pressures");
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        Page<BloodPressure> page = userRepository.findOneByLogin(SecurityUtils.getCurrentUserLogin())
+            .map(user -> bloodPressureSearchRepository.search(SearchQueryUtil.userScopedQuery(query, user.getId(), from, to), pageable))
+            .orElseGet(() -> new PageImpl<>(Collections.emptyList(), pageable, 0));
+        HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, DateRangeUtil.generateUri("/api/_search/blood-pressures", from, to));
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
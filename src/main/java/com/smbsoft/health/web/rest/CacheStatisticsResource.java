@@ -0,0 +1,52 @@
+package com.smbsoft.health.web.rest;
+
+import com.smbsoft.health.service.CacheStatisticsService;
+import com.smbsoft.health.service.dto.CacheStatisticsDTO;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller for the statistics of the caches, to size their tiers.
+ */
+@RestController
+@RequestMapping("/management")
+public class CacheStatisticsResource {
+
+    private final Logger log = LoggerFactory.getLogger(CacheStatisticsResource.class);
+
+    private final CacheStatisticsService cacheStatisticsService;
+
+    public CacheStatisticsResource(CacheStatisticsService cacheStatisticsService) {
+        this.cacheStatisticsService = cacheStatisticsService;
+    }
+
+    /**
+     * GET  /cache-statistics : get the statistics of all the caches.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the list of the statistics in body
+     */
+    @GetMapping("/cache-statistics")
+    @Timed
+    public List<CacheStatisticsDTO> getCacheStatistics() {
+        return cacheStatisticsService.getStatistics();
+    }
+
+    /**
+     * DELETE  /cache-statistics : reset the statistics of all the caches.
+     *
+     * @return the ResponseEntity with status 200 (OK)
+     */
+    @DeleteMapping("/cache-statistics")
+    @Timed
+    public ResponseEntity<Void> clearCacheStatistics() {
+        log.debug("REST request to reset the cache statistics");
+        cacheStatisticsService.clearStatistics();
+        return ResponseEntity.ok().build();
+    }
+}
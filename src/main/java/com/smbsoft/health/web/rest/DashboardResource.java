@@ -0,0 +1,57 @@
+package com.smbsoft.health.web.rest;
+
+import com.smbsoft.health.security.SecurityUtils;
+import com.smbsoft.health.service.DashboardService;
+import com.smbsoft.health.service.dto.DashboardDTO;
+import com.smbsoft.health.web.rest.util.DateRangeUtil;
+import com.smbsoft.health.web.rest.util.HeaderUtil;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.Period;
+
+/**
+ * REST controller for the home page of the current user.
+ */
+@RestController
+@RequestMapping("/api")
+public class DashboardResource {
+
+    private final Logger log = LoggerFactory.getLogger(DashboardResource.class);
+
+    private static final String ENTITY_NAME = "dashboard";
+
+    private final DashboardService dashboardService;
+
+    public DashboardResource(DashboardService dashboardService) {
+        this.dashboardService = dashboardService;
+    }
+
+    /**
+     * GET  /dashboard?range=30d : get the weekly points, weights and blood pressures of the current user, with the
+     * weekly goal, for the range ending today.
+     *
+     * @param range the length of the range, in days ("30d"), weeks ("12w"), months ("6m") or years ("1y")
+     * @return the ResponseEntity with status 200 (OK) and the dashboard in body,
+     * or with status 400 (Bad Request) if the range is not valid
+     */
+    @GetMapping("/dashboard")
+    @Timed
+    public ResponseEntity<DashboardDTO> getDashboard(@RequestParam(defaultValue = "30d") String range) {
+        log.debug("REST request to get the dashboard for {}", range);
+        Period period;
+        try {
+            period = DateRangeUtil.parsePeriod(range);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The range must be a number of days, weeks, months or years, up to 2 years")).body(null);
+        }
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minus(period).plusDays(1);
+        return ResponseEntity.ok(dashboardService.getDashboard(SecurityUtils.getCurrentUserLogin(), from, to));
+    }
+}
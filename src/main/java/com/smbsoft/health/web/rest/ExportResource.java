@@ -0,0 +1,100 @@
+package com.smbsoft.health.web.rest;
+
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.security.SecurityUtils;
+import com.smbsoft.health.service.ExportService;
+import com.smbsoft.health.web.rest.util.HeaderUtil;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * REST controller for exporting the history of the current user.
+ */
+@RestController
+@RequestMapping("/api")
+public class ExportResource {
+
+    private final Logger log = LoggerFactory.getLogger(ExportResource.class);
+
+    private static final String ENTITY_NAME = "export";
+
+    private final ExportService exportService;
+
+    private final UserRepository userRepository;
+
+    public ExportResource(ExportService exportService, UserRepository userRepository) {
+        this.exportService = exportService;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * GET  /export : export the points, weights and blood pressures of the current user.
+     *
+     * <p>
+     * The rows are streamed as they are read from the database, and compressed on the fly when the client accepts
+     * gzip, so exports of any size are neither paginated nor held in memory.
+     * </p>
+     *
+     * @param types the types of rows to export, among "points", "weight" and "bp"
+     * @param format the format of the export, "csv" or "ndjson"
+     * @param acceptEncoding the encodings accepted by the client
+     * @return the ResponseEntity with status 200 (OK) and the rows in body,
+     * or with status 400 (Bad Request) if a type or the format is not valid
+     */
+    @GetMapping("/export")
+    @Timed
+    public ResponseEntity<StreamingResponseBody> export(
+        @RequestParam(defaultValue = "points,weight,bp") List<String> types,
+        @RequestParam(defaultValue = "csv") String format,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.debug("REST request to export {} as {}", types, format);
+        Set<ExportService.Type> exportTypes = EnumSet.noneOf(ExportService.Type.class);
+        ExportService.Format exportFormat;
+        try {
+            for (String type : types) {
+                exportTypes.add(ExportService.Type.fromValue(type));
+            }
+            exportFormat = ExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidexport", "The types or the format of the export are not valid")).body(null);
+        }
+        // The body is written by another thread, the user is resolved beforehand
+        String login = SecurityUtils.getCurrentUserLogin();
+        Long userId = userRepository.findOneByLogin(login).map(User::getId)
+            .orElseThrow(() -> new UsernameNotFoundException("User " + login + " was not found in the database"));
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(exportFormat.getMediaType() + ";charset=UTF-8"));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"21points-export." + exportFormat.getExtension() + "\"");
+        headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        StreamingResponseBody body = output -> {
+            if (gzip) {
+                GZIPOutputStream gzipOutput = new GZIPOutputStream(output, 8192);
+                exportService.export(userId, exportTypes, exportFormat, gzipOutput);
+                gzipOutput.finish();
+            } else {
+                exportService.export(userId, exportTypes, exportFormat, output);
+            }
+        };
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+}
@@ -0,0 +1,65 @@
+package com.smbsoft.health.web.rest;
+
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.security.SecurityUtils;
+import com.smbsoft.health.service.LeaderboardService;
+import com.smbsoft.health.service.dto.LeaderboardDTO;
+import com.smbsoft.health.web.rest.util.HeaderUtil;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * REST controller for the ranking of the users by their points.
+ */
+@RestController
+@RequestMapping("/api")
+public class LeaderboardResource {
+
+    private final Logger log = LoggerFactory.getLogger(LeaderboardResource.class);
+
+    private static final String ENTITY_NAME = "leaderboard";
+
+    private final LeaderboardService leaderboardService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public LeaderboardResource(LeaderboardService leaderboardService, ApplicationProperties applicationProperties) {
+        this.leaderboardService = leaderboardService;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * GET  /leaderboard?week=2017-04-17&amp;top=10 : get the users with the most points in a week, and the rank of the
+     * current user.
+     *
+     * @param week a day of the week, by default today
+     * @param top the number of users at the top of the ranking
+     * @return the ResponseEntity with status 200 (OK) and the leaderboard in body,
+     * or with status 400 (Bad Request) if the number of users is not valid or the week has not started yet
+     */
+    @GetMapping("/leaderboard")
+    @Timed
+    public ResponseEntity<LeaderboardDTO> getLeaderboard(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate week,
+        @RequestParam(defaultValue = "10") int top) {
+        log.debug("REST request to get the top {} of the leaderboard of the week of {}", top, week);
+        int maxTop = applicationProperties.getLeaderboard().getMaxTop();
+        if (top < 1 || top > maxTop) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidtop", "The number of users must be between 1 and " + maxTop)).body(null);
+        }
+        if (week != null && week.isAfter(LocalDate.now().with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY)))) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidweek", "The week must not be after the current week")).body(null);
+        }
+        return ResponseEntity.ok(leaderboardService.getLeaderboard(week != null ? week : LocalDate.now(),
+            SecurityUtils.getCurrentUserLogin(), top));
+    }
+}
@@ -3,31 +3,41 @@ package com.smbsoft.health.web.rest;
 import com.codahale.metrics.annotation.Timed;
 import com.smbsoft.health.domain.Points;
 
-import com.smbsoft.health.repository.PointsRepository;
-import com.smbsoft.health.repository.search.PointsSearchRepository;
+import com.smbsoft.health.security.SecurityUtils;
+import com.smbsoft.health.service.BulkImportService;
+import com.smbsoft.health.service.PointsService;
+import com.smbsoft.health.service.dto.BulkImportResultDTO;
+import com.smbsoft.health.service.dto.PointsPerPeriodDTO;
+import com.smbsoft.health.web.rest.util.DateRangeUtil;
 import com.smbsoft.health.web.rest.util.HeaderUtil;
+import com.smbsoft.health.web.rest.util.PageCursor;
 import com.smbsoft.health.web.rest.util.PaginationUtil;
 import io.swagger.annotations.ApiParam;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
-import static org.elasticsearch.index.query.QueryBuilders.*;
-
 /**
  * REST controller for managing Points.
  */
@@ -39,13 +49,13 @@ public class PointsResource {
 
     private static final String ENTITY_NAME = "points";
         
-    private final PointsRepository pointsRepository;
+    private final PointsService pointsService;
 
-    private final PointsSearchRepository pointsSearchRepository;
+    private final BulkImportService bulkImportService;
 
-    public PointsResource(PointsRepository pointsRepository, PointsSearchRepository pointsSearchRepository) {
-        this.pointsRepository = pointsRepository;
-        this.pointsSearchRepository = pointsSearchRepository;
+    public PointsResource(PointsService pointsService, BulkImportService bulkImportService) {
+        this.pointsService = pointsService;
+        this.bulkImportService = bulkImportService;
     }
 
     /**
@@ -62,13 +72,28 @@ public class PointsResource {
         if (points.getId() != null) {
             return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "idexists", "A new points cannot already have an ID")).body(null);
         }
-        Points result = pointsRepository.save(points);
-        pointsSearchRepository.save(result);
+        Points result = pointsService.save(points);
         return ResponseEntity.created(new URI("/api/points/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
     }
 
+    /**
+     * POST  /points/bulk : Import points of the current user in bulk.
+     *
+     * @param input the points, as a JSON array or as NDJSON
+     * @return the ResponseEntity with status 200 (OK) and with body the outcome of every row
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/points/bulk",
+        consumes = {MediaType.APPLICATION_JSON_VALUE, BulkImportService.APPLICATION_NDJSON_VALUE})
+    @Timed
+    public ResponseEntity<BulkImportResultDTO> importPoints(InputStream input) throws IOException {
+        log.debug("REST request to import Points in bulk");
+        return ResponseEntity.ok(bulkImportService.importAll(input, Points.class, Points::setUser,
+            pointsService::saveAll));
+    }
+
     /**
      * PUT  /points : Updates an existing points.
      *
@@ -85,8 +110,7 @@ public class PointsResource {
         if (points.getId() == null) {
             return createPoints(points);
         }
-        Points result = pointsRepository.save(points);
-        pointsSearchRepository.save(result);
+        Points result = pointsService.save(points);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, points.getId().toString()))
             .body(result);
@@ -95,20 +119,85 @@ public class PointsResource {
     /**
      * GET  /points : get all the points.
      *
+     * <p>
+     * When a "from" or "to" date is given, only the points of the current user in that range are returned,
+     * most recent first.
+     * </p>
+     *
      * @param pageable the pagination information
-     * @return the ResponseEntity with status 200 (OK) and the list of points in body
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @return the ResponseEntity with status 200 (OK) and the list of points in body,
+     * or with status 400 (Bad Request) if "from" is after "to"
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
     @GetMapping("/points")
     @Timed
-    public ResponseEntity<List<Points>> getAllPoints(@ApiParam Pageable pageable)
+    public ResponseEntity<List<Points>> getAllPoints(@ApiParam Pageable pageable,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to)
         throws URISyntaxException {
         log.debug("REST request to get a page of Points");
-        Page<Points> page = pointsRepository.findAll(pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/points");
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        Page<Points> page;
+        if (DateRangeUtil.isRequested(from, to)) {
+            page = pointsService.findAllByUserLogin(SecurityUtils.getCurrentUserLogin(),
+                DateRangeUtil.startOf(from), DateRangeUtil.endOf(to), pageable);
+        } else {
+            page = pointsService.findAll(pageable);
+        }
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, DateRangeUtil.generateUri("/api/points", from, to));
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /points?after=:cursor : get the points of the current user in cursor mode, most recent first.
+     *
+     * <p>
+     * Pages are read with a keyset predicate on (date, id) and without a count query, so their cost does not depend
+     * on how deep the client pages. The cursor of the next page is returned in the "Link" header, with rel="next".
+     * </p>
+     *
+     * @param after the cursor of the next page, as returned with the previous page, or an empty value for the first page
+     * @param pageable the pagination information, only its size is used
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @return the ResponseEntity with status 200 (OK) and the list of points in body,
+     * or with status 400 (Bad Request) if the cursor is not valid or "from" is after "to"
+     */
+    @GetMapping(value = "/points", params = "after")
+    @Timed
+    public ResponseEntity<List<Points>> getAllPointsAfter(@RequestParam String after, @ApiParam Pageable pageable,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("REST request to get a page of Points after cursor {}", after);
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        PageCursor cursor;
+        try {
+            cursor = PageCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidcursor", "The pagination cursor is not valid")).body(null);
+        }
+        LocalDate end = DateRangeUtil.endOf(to);
+        if (cursor == null) {
+            // First page: every row of the range has a lower key
+            cursor = new PageCursor(end, Long.MAX_VALUE);
+        }
+        Slice<Points> slice = pointsService.findAllByUserLoginAfterKey(SecurityUtils.getCurrentUserLogin(),
+            DateRangeUtil.startOf(from), end, cursor.getDate(), cursor.getId(), new PageRequest(0, pageable.getPageSize()));
+        PageCursor next = null;
+        if (slice.hasContent()) {
+            Points last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            next = new PageCursor(last.getDate(), last.getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, DateRangeUtil.generateUri("/api/points", from, to), next);
+        return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+    }
+
     /**
      * GET  /points/:id : get the "id" points.
      *
@@ -119,7 +208,7 @@ public class PointsResource {
     @Timed
     public ResponseEntity<Points> getPoints(@PathVariable Long id) {
         log.debug("REST request to get Points : {}", id);
-        Points points = pointsRepository.findOne(id);
+        Points points = pointsService.findOne(id);
         return ResponseUtil.wrapOrNotFound(Optional.ofNullable(points));
     }
 
@@ -133,27 +222,77 @@ public class PointsResource {
     @Timed
     public ResponseEntity<Void> deletePoints(@PathVariable Long id) {
         log.debug("REST request to delete Points : {}", id);
-        pointsRepository.delete(id);
-        pointsSearchRepository.delete(id);
+        pointsService.delete(id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
     /**
-     * SEARCH  /_search/points?query=:query : search for the points corresponding
+     * GET  /points-by-week : get the points of the current user, summed per ISO week.
+     *
+     * @param from the first day of the range, defaults to 12 weeks before "to"
+     * @param to the last day of the range, defaults to today
+     * @return the ResponseEntity with status 200 (OK) and the list of weekly totals in body,
+     * or with status 400 (Bad Request) if "from" is after "to"
+     */
+    @GetMapping("/points-by-week")
+    @Timed
+    public ResponseEntity<List<PointsPerPeriodDTO>> getPointsByWeek(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("REST request to get Points by week from {} to {}", from, to);
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusWeeks(12);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        return ResponseEntity.ok(pointsService.getPointsByWeek(SecurityUtils.getCurrentUserLogin(), start, end));
+    }
+
+    /**
+     * GET  /points-by-month : get the points of the current user, summed per calendar month.
+     *
+     * @param from the first day of the range, defaults to 12 months before "to"
+     * @param to the last day of the range, defaults to today
+     * @return the ResponseEntity with status 200 (OK) and the list of monthly totals in body,
+     * or with status 400 (Bad Request) if "from" is after "to"
+     */
+    @GetMapping("/points-by-month")
+    @Timed
+    public ResponseEntity<List<PointsPerPeriodDTO>> getPointsByMonth(
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("REST request to get Points by month from {} to {}", from, to);
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusMonths(12);
+        if (start.isAfter(end)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        return ResponseEntity.ok(pointsService.getPointsByMonth(SecurityUtils.getCurrentUserLogin(), start, end));
+    }
+
+    /**
+     * SEARCH  /_search/points?query=:query : search for the points of the current user corresponding
      * to the query.
      *
-     * @param query the query of the points search 
+     * @param query the query of the points search
      * @param pageable the pagination information
-     * @return the result of the search
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @return the result of the search, or with status 400 (Bad Request) if "from" is after "to"
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
     @GetMapping("/_search/points")
     @Timed
-    public ResponseEntity<List<Points>> searchPoints(@RequestParam String query, @ApiParam Pageable pageable)
+    public ResponseEntity<List<Points>> searchPoints(@RequestParam String query, @ApiParam Pageable pageable,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to)
         throws URISyntaxException {
         log.debug("REST request to search for a page of Points for query {}", query);
-        Page<Points> page = pointsSearchRepository.search(queryStringQuery(query), pageable);
-        HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/points");
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        Page<Points> page = pointsService.searchByUserLogin(query, SecurityUtils.getCurrentUserLogin(), from, to, pageable);
+        HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, DateRangeUtil.generateUri("/api/_search/points", from, to));
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
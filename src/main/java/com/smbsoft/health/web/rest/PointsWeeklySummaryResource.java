@@ -0,0 +1,41 @@
+package com.smbsoft.health.web.rest;
+
+import com.smbsoft.health.service.PointsService;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Controller for maintaining the weekly points rollup.
+ */
+@RestController
+@RequestMapping("/management")
+public class PointsWeeklySummaryResource {
+
+    private final Logger log = LoggerFactory.getLogger(PointsWeeklySummaryResource.class);
+
+    private final PointsService pointsService;
+
+    public PointsWeeklySummaryResource(PointsService pointsService) {
+        this.pointsService = pointsService;
+    }
+
+    /**
+     * POST  /points-weekly-summary/rebuild : rebuild the weekly points rollup from the points table.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the number of weekly rows written in body
+     */
+    @PostMapping("/points-weekly-summary/rebuild")
+    @Timed
+    public ResponseEntity<Map<String, Long>> rebuild() {
+        log.debug("REST request to rebuild the weekly points rollup");
+        long written = pointsService.rebuildWeeklySummaries();
+        return ResponseEntity.ok(Collections.singletonMap("weeks", written));
+    }
+}
@@ -0,0 +1,52 @@
+package com.smbsoft.health.web.rest;
+
+import com.smbsoft.health.service.SearchOutboxRelay;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Controller for monitoring and replaying the search outbox.
+ */
+@RestController
+@RequestMapping("/management")
+public class SearchOutboxResource {
+
+    private final Logger log = LoggerFactory.getLogger(SearchOutboxResource.class);
+
+    private final SearchOutboxRelay searchOutboxRelay;
+
+    public SearchOutboxResource(SearchOutboxRelay searchOutboxRelay) {
+        this.searchOutboxRelay = searchOutboxRelay;
+    }
+
+    /**
+     * GET  /search-outbox : get the number of changes waiting to be written to Elasticsearch.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the number of pending events in body
+     */
+    @GetMapping("/search-outbox")
+    @Timed
+    public ResponseEntity<Map<String, Long>> getSearchOutbox() {
+        return ResponseEntity.ok(Collections.singletonMap("pending", searchOutboxRelay.getPendingCount()));
+    }
+
+    /**
+     * POST  /search-outbox/replay?from=:offset : write the entities changed since an event to Elasticsearch again.
+     *
+     * @param from the id of the first event to replay
+     * @return the ResponseEntity with status 200 (OK) and the number of events to replay in body
+     */
+    @PostMapping("/search-outbox/replay")
+    @Timed
+    public ResponseEntity<Map<String, Integer>> replay(@RequestParam long from) {
+        log.debug("REST request to replay the search outbox from {}", from);
+        return ResponseEntity.ok(Collections.singletonMap("replayed", searchOutboxRelay.replayFrom(from)));
+    }
+}
@@ -0,0 +1,65 @@
+package com.smbsoft.health.web.rest;
+
+import com.smbsoft.health.service.SearchReindexService;
+import com.smbsoft.health.service.dto.ReindexProgressDTO;
+import com.smbsoft.health.web.rest.util.HeaderUtil;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Controller for rebuilding the search indices from the database.
+ */
+@RestController
+@RequestMapping("/management")
+public class SearchReindexResource {
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexResource.class);
+
+    private static final String ENTITY_NAME = "searchReindex";
+
+    private static final int MAX_THREADS = 32;
+
+    private final SearchReindexService searchReindexService;
+
+    public SearchReindexResource(SearchReindexService searchReindexService) {
+        this.searchReindexService = searchReindexService;
+    }
+
+    /**
+     * POST  /search-reindex : start reindexing all the search indices in the background.
+     *
+     * @param threads the number of worker threads
+     * @return the ResponseEntity with status 202 (Accepted) and the progress of every index in body,
+     * or with status 400 (Bad Request) if a reindex is already running or the number of threads is not valid
+     */
+    @PostMapping("/search-reindex")
+    @Timed
+    public ResponseEntity<List<ReindexProgressDTO>> reindex(@RequestParam(defaultValue = "4") int threads) {
+        log.debug("REST request to reindex all search indices with {} threads", threads);
+        if (threads < 1 || threads > MAX_THREADS) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidthreads", "The number of threads must be between 1 and " + MAX_THREADS)).body(null);
+        }
+        if (!searchReindexService.start(threads)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "reindexrunning", "A reindex is already running")).body(null);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(searchReindexService.getProgress());
+    }
+
+    /**
+     * GET  /search-reindex : get the progress of the current, or last, reindex.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the progress of every index in body
+     */
+    @GetMapping("/search-reindex")
+    @Timed
+    public ResponseEntity<List<ReindexProgressDTO>> getProgress() {
+        return ResponseEntity.ok(searchReindexService.getProgress());
+    }
+}
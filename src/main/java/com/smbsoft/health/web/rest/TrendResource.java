@@ -0,0 +1,93 @@
+package com.smbsoft.health.web.rest;
+
+import com.smbsoft.health.domain.enumeration.WeightUnits;
+import com.smbsoft.health.security.SecurityUtils;
+import com.smbsoft.health.service.TrendService;
+import com.smbsoft.health.service.WeightService;
+import com.smbsoft.health.service.dto.TrendDTO;
+import com.smbsoft.health.web.rest.util.DateRangeUtil;
+import com.smbsoft.health.web.rest.util.HeaderUtil;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Period;
+
+/**
+ * REST controller for the trends of the weights and blood pressures of the current user.
+ */
+@RestController
+@RequestMapping("/api")
+public class TrendResource {
+
+    private final Logger log = LoggerFactory.getLogger(TrendResource.class);
+
+    private static final String ENTITY_NAME = "trend";
+
+    private final TrendService trendService;
+
+    private final WeightService weightService;
+
+    public TrendResource(TrendService trendService, WeightService weightService) {
+        this.trendService = trendService;
+        this.weightService = weightService;
+    }
+
+    /**
+     * GET  /weights/trend?window=7d : get the trend of the weights of the current user.
+     *
+     * @param window the window of the rolling means, in days ("7d") or weeks ("4w")
+     * @param unit the unit of the weights, by default the weight unit of the settings of the current user
+     * @return the ResponseEntity with status 200 (OK) and the trend in body,
+     * or with status 400 (Bad Request) if the window is not valid
+     */
+    @GetMapping("/weights/trend")
+    @Timed
+    public ResponseEntity<TrendDTO> getWeightTrend(@RequestParam(defaultValue = "7d") String window,
+                                                   @RequestParam(required = false) WeightUnits unit) {
+        log.debug("REST request to get the trend of the weights over {}", window);
+        int windowDays = parseWindow(window);
+        if (windowDays < 1) {
+            return invalidWindow();
+        }
+        String login = SecurityUtils.getCurrentUserLogin();
+        return ResponseEntity.ok(trendService.getWeightTrend(login, windowDays, weightService.resolveUnit(unit, login)));
+    }
+
+    /**
+     * GET  /blood-pressures/trend?window=7d : get the trend of the blood pressures of the current user.
+     *
+     * @param window the window of the rolling means, in days ("7d") or weeks ("4w")
+     * @return the ResponseEntity with status 200 (OK) and the trend in body,
+     * or with status 400 (Bad Request) if the window is not valid
+     */
+    @GetMapping("/blood-pressures/trend")
+    @Timed
+    public ResponseEntity<TrendDTO> getBloodPressureTrend(@RequestParam(defaultValue = "7d") String window) {
+        log.debug("REST request to get the trend of the blood pressures over {}", window);
+        int windowDays = parseWindow(window);
+        if (windowDays < 1) {
+            return invalidWindow();
+        }
+        return ResponseEntity.ok(trendService.getBloodPressureTrend(SecurityUtils.getCurrentUserLogin(), windowDays));
+    }
+
+    /**
+     * @return the number of days of the window, or 0 if it is not a number of days or weeks
+     */
+    private static int parseWindow(String window) {
+        try {
+            Period period = DateRangeUtil.parsePeriod(window);
+            return period.toTotalMonths() == 0 ? period.getDays() : 0;
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+
+    private static ResponseEntity<TrendDTO> invalidWindow() {
+        return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidwindow", "The window must be a number of days or weeks")).body(null);
+    }
+}
@@ -4,7 +4,11 @@ import com.codahale.metrics.annotation.Timed;
 import com.smbsoft.health.domain.UserSettings;
 
 import com.smbsoft.health.repository.UserSettingsRepository;
+import com.smbsoft.health.repository.UserRepository;
 import com.smbsoft.health.repository.search.UserSettingsSearchRepository;
+import com.smbsoft.health.security.SecurityUtils;
+import com.smbsoft.health.service.UserSettingsService;
+import com.smbsoft.health.service.util.SearchQueryUtil;
 import com.smbsoft.health.web.rest.util.HeaderUtil;
 import com.smbsoft.health.web.rest.util.PaginationUtil;
 import io.swagger.annotations.ApiParam;
@@ -12,6 +16,7 @@ import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -21,6 +26,7 @@ import org.springframework.web.bind.annotation.*;
 import javax.validation.Valid;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -43,9 +49,16 @@ public class UserSettingsResource {
 
     private final UserSettingsSearchRepository userSettingsSearchRepository;
 
-    public UserSettingsResource(UserSettingsRepository userSettingsRepository, UserSettingsSearchRepository userSettingsSearchRepository) {
+    private final UserSettingsService userSettingsService;
+
+    private final UserRepository userRepository;
+
+    public UserSettingsResource(UserSettingsRepository userSettingsRepository, UserSettingsSearchRepository userSettingsSearchRepository,
+                                UserSettingsService userSettingsService, UserRepository userRepository) {
         this.userSettingsRepository = userSettingsRepository;
         this.userSettingsSearchRepository = userSettingsSearchRepository;
+        this.userSettingsService = userSettingsService;
+        this.userRepository = userRepository;
     }
 
     /**
@@ -62,8 +75,7 @@ public class UserSettingsResource {
         if (userSettings.getId() != null) {
             return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "idexists", "A new userSettings cannot already have an ID")).body(null);
         }
-        UserSettings result = userSettingsRepository.save(userSettings);
-        userSettingsSearchRepository.save(result);
+        UserSettings result = userSettingsService.save(userSettings);
         return ResponseEntity.created(new URI("/api/user-settings/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -85,8 +97,7 @@ public class UserSettingsResource {
         if (userSettings.getId() == null) {
             return createUserSettings(userSettings);
         }
-        UserSettings result = userSettingsRepository.save(userSettings);
-        userSettingsSearchRepository.save(result);
+        UserSettings result = userSettingsService.save(userSettings);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, userSettings.getId().toString()))
             .body(result);
@@ -133,16 +144,15 @@ public class UserSettingsResource {
     @Timed
     public ResponseEntity<Void> deleteUserSettings(@PathVariable Long id) {
         log.debug("REST request to delete UserSettings : {}", id);
-        userSettingsRepository.delete(id);
-        userSettingsSearchRepository.delete(id);
+        userSettingsService.delete(id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
     /**
-     * SEARCH  /_search/user-settings?query=:query : search for the userSettings corresponding
+     * SEARCH  /_search/user-settings?query=:query : search for the userSettings of the current user corresponding
      * to the query.
      *
-     * @param query the query of the userSettings search 
+     * @param query the query of the userSettings search
      * @param pageable the pagination information
      * @return the result of the search
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
@@ -152,7 +162,9 @@ public class UserSettingsResource {
     public ResponseEntity<List<UserSettings>> searchUserSettings(@RequestParam String query, @ApiParam Pageable pageable)
         throws URISyntaxException {
         log.debug("REST request to search for a page of UserSettings for query {}", query);
-        Page<UserSettings> page = userSettingsSearchRepository.search(queryStringQuery(query), pageable);
+        Page<UserSettings> page = userRepository.findOneByLogin(SecurityUtils.getCurrentUserLogin())
+            .map(user -> userSettingsSearchRepository.search(SearchQueryUtil.userScopedQuery(query, user.getId(), null, null), pageable))
+            .orElseGet(() -> new PageImpl<>(Collections.emptyList(), pageable, 0));
         HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/user-settings");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
@@ -2,24 +2,47 @@ package com.smbsoft.health.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
 import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.domain.enumeration.WeightUnits;
 
 import com.smbsoft.health.repository.WeightRepository;
+import com.smbsoft.health.repository.UserRepository;
 import com.smbsoft.health.repository.search.WeightSearchRepository;
+import com.smbsoft.health.service.BulkImportService;
+import com.smbsoft.health.service.ChartService;
+import com.smbsoft.health.service.UserQueryCache;
+import com.smbsoft.health.service.WeightService;
+import com.smbsoft.health.service.dto.BulkImportResultDTO;
+import com.smbsoft.health.service.dto.ChartDTO;
+import com.smbsoft.health.service.dto.WeightDTO;
+import com.smbsoft.health.service.util.Downsampler.Resolution;
+import com.smbsoft.health.service.util.SearchQueryUtil;
+import com.smbsoft.health.security.SecurityUtils;
+import com.smbsoft.health.web.rest.util.DateRangeUtil;
 import com.smbsoft.health.web.rest.util.HeaderUtil;
+import com.smbsoft.health.web.rest.util.PageCursor;
 import com.smbsoft.health.web.rest.util.PaginationUtil;
 import io.swagger.annotations.ApiParam;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -42,15 +65,33 @@ public class WeightResource {
 
     private final WeightSearchRepository weightSearchRepository;
 
-    public WeightResource(WeightRepository weightRepository, WeightSearchRepository weightSearchRepository) {
+    private final UserRepository userRepository;
+
+    private final UserQueryCache userQueryCache;
+
+    private final BulkImportService bulkImportService;
+
+    private final ChartService chartService;
+
+    private final WeightService weightService;
+
+    public WeightResource(WeightRepository weightRepository, WeightSearchRepository weightSearchRepository,
+                          UserRepository userRepository,
+                          UserQueryCache userQueryCache, BulkImportService bulkImportService,
+                          ChartService chartService, WeightService weightService) {
         this.weightRepository = weightRepository;
         this.weightSearchRepository = weightSearchRepository;
+        this.userRepository = userRepository;
+        this.userQueryCache = userQueryCache;
+        this.bulkImportService = bulkImportService;
+        this.chartService = chartService;
+        this.weightService = weightService;
     }
 
     /**
      * POST  /weights : Create a new weight.
      *
-     * @param weight the weight to create
+     * @param weight the weight to create, in its unit or else in the weight unit of the settings of its user
      * @return the ResponseEntity with status 201 (Created) and with body the new weight, or with status 400 (Bad Request) if the weight has already an ID
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
@@ -61,17 +102,32 @@ public class WeightResource {
         if (weight.getId() != null) {
             return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "idexists", "A new weight cannot already have an ID")).body(null);
         }
-        Weight result = weightRepository.save(weight);
-        weightSearchRepository.save(result);
+        Weight result = weightService.save(weight);
         return ResponseEntity.created(new URI("/api/weights/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
     }
 
+    /**
+     * POST  /weights/bulk : Import weights of the current user in bulk.
+     *
+     * @param input the weights, as a JSON array or as NDJSON
+     * @return the ResponseEntity with status 200 (OK) and with body the outcome of every row
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping(value = "/weights/bulk",
+        consumes = {MediaType.APPLICATION_JSON_VALUE, BulkImportService.APPLICATION_NDJSON_VALUE})
+    @Timed
+    public ResponseEntity<BulkImportResultDTO> importWeights(InputStream input) throws IOException {
+        log.debug("REST request to import Weight in bulk");
+        return ResponseEntity.ok(bulkImportService.importAll(input, Weight.class, Weight::setUser,
+            weightService::saveAll));
+    }
+
     /**
      * PUT  /weights : Updates an existing weight.
      *
-     * @param weight the weight to update
+     * @param weight the weight to update, in its unit or else in the weight unit of the settings of its user
      * @return the ResponseEntity with status 200 (OK) and with body the updated weight,
      * or with status 400 (Bad Request) if the weight is not valid,
      * or with status 500 (Internal Server Error) if the weight couldnt be updated
@@ -84,8 +140,7 @@ public class WeightResource {
         if (weight.getId() == null) {
             return createWeight(weight);
         }
-        Weight result = weightRepository.save(weight);
-        weightSearchRepository.save(result);
+        Weight result = weightService.save(weight);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, weight.getId().toString()))
             .body(result);
@@ -94,32 +149,167 @@ public class WeightResource {
     /**
      * GET  /weights : get all the weights.
      *
+     * <p>
+     * When a "from" or "to" date is given, only the weights of the current user in that range are returned,
+     * most recent first.
+     * </p>
+     *
      * @param pageable the pagination information
-     * @return the ResponseEntity with status 200 (OK) and the list of weights in body
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @param unit the unit of the displayed weights, by default the weight unit of the settings of the current user
+     * @return the ResponseEntity with status 200 (OK) and the list of weights in body,
+     * or with status 400 (Bad Request) if "from" is after "to"
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
     @GetMapping("/weights")
     @Timed
-    public ResponseEntity<List<Weight>> getAllWeights(@ApiParam Pageable pageable)
+    public ResponseEntity<List<WeightDTO>> getAllWeights(@ApiParam Pageable pageable,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(required = false) WeightUnits unit)
         throws URISyntaxException {
         log.debug("REST request to get a page of Weights");
-        Page<Weight> page = weightRepository.findAll(pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/weights");
-        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        Page<Weight> page;
+        if (DateRangeUtil.isRequested(from, to)) {
+            String login = SecurityUtils.getCurrentUserLogin();
+            LocalDate start = DateRangeUtil.startOf(from);
+            LocalDate end = DateRangeUtil.endOf(to);
+            page = userQueryCache.getPage(Weight.class, login, start, end, pageable,
+                () -> weightRepository.findByUserLoginAndDateBetweenOrderByDateDescIdDesc(login, start, end, pageable),
+                weightRepository::findOne, Weight::getId);
+        } else {
+            page = weightRepository.findAll(pageable);
+        }
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, DateRangeUtil.generateUri("/api/weights", from, to));
+        return new ResponseEntity<>(toDisplayUnit(page.getContent(), unit), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /weights?after=:cursor : get the weights of the current user in cursor mode, most recent first.
+     *
+     * <p>
+     * Pages are read with a keyset predicate on (date, id) and without a count query, so their cost does not depend
+     * on how deep the client pages. The cursor of the next page is returned in the "Link" header, with rel="next".
+     * </p>
+     *
+     * @param after the cursor of the next page, as returned with the previous page, or an empty value for the first page
+     * @param pageable the pagination information, only its size is used
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @param unit the unit of the displayed weights, by default the weight unit of the settings of the current user
+     * @return the ResponseEntity with status 200 (OK) and the list of weights in body,
+     * or with status 400 (Bad Request) if the cursor is not valid or "from" is after "to"
+     */
+    @GetMapping(value = "/weights", params = "after")
+    @Timed
+    public ResponseEntity<List<WeightDTO>> getAllWeightsAfter(@RequestParam String after, @ApiParam Pageable pageable,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(required = false) WeightUnits unit) {
+        log.debug("REST request to get a page of Weights after cursor {}", after);
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        PageCursor cursor;
+        try {
+            cursor = PageCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidcursor", "The pagination cursor is not valid")).body(null);
+        }
+        LocalDate end = DateRangeUtil.endOf(to);
+        if (cursor == null) {
+            // First page: every row of the range has a lower key
+            cursor = new PageCursor(end, Long.MAX_VALUE);
+        }
+        Slice<Weight> slice = weightRepository.findByUserLoginAndDateBetweenAfterKey(SecurityUtils.getCurrentUserLogin(),
+            DateRangeUtil.startOf(from), end, cursor.getDate(), cursor.getId(), new PageRequest(0, pageable.getPageSize()));
+        PageCursor next = null;
+        if (slice.hasContent()) {
+            Weight last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            next = new PageCursor(last.getDate(), last.getId());
+        }
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, DateRangeUtil.generateUri("/api/weights", from, to), next);
+        return new ResponseEntity<>(toDisplayUnit(slice.getContent(), unit), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /weights?resolution=week|month : get the means of the weights of the current user per week or per month.
+     *
+     * @param resolution the period of the means, "week" or "month"
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @param unit the unit of the weights, by default the weight unit of the settings of the current user
+     * @return the ResponseEntity with status 200 (OK) and the chart in body, with a "weight" series,
+     * or with status 400 (Bad Request) if the resolution is not valid or "from" is after "to"
+     */
+    @GetMapping(value = "/weights", params = {"resolution", "!after"})
+    @Timed
+    public ResponseEntity<ChartDTO> getWeightsByResolution(@RequestParam String resolution,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(required = false) WeightUnits unit) {
+        log.debug("REST request to get the Weights per {}", resolution);
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        Resolution period;
+        try {
+            period = Resolution.fromValue(resolution);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidresolution", "The resolution must be week or month")).body(null);
+        }
+        String login = SecurityUtils.getCurrentUserLogin();
+        return ResponseEntity.ok(chartService.getWeights(login, DateRangeUtil.startOf(from), DateRangeUtil.endOf(to),
+            weightService.resolveUnit(unit, login), period));
+    }
+
+    /**
+     * GET  /weights?maxPoints=200 : get at most maxPoints weights of the current user, selected to keep the shape of
+     * the series.
+     *
+     * @param maxPoints the maximum number of points
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @param unit the unit of the weights, by default the weight unit of the settings of the current user
+     * @return the ResponseEntity with status 200 (OK) and the chart in body, with a "weight" series,
+     * or with status 400 (Bad Request) if maxPoints is not valid or "from" is after "to"
+     */
+    @GetMapping(value = "/weights", params = {"maxPoints", "!resolution", "!after"})
+    @Timed
+    public ResponseEntity<ChartDTO> getDownsampledWeights(@RequestParam int maxPoints,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(required = false) WeightUnits unit) {
+        log.debug("REST request to get at most {} Weights", maxPoints);
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        if (maxPoints < 3 || maxPoints > ChartService.MAX_POINTS) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidmaxpoints", "The maximum number of points must be between 3 and " + ChartService.MAX_POINTS)).body(null);
+        }
+        String login = SecurityUtils.getCurrentUserLogin();
+        return ResponseEntity.ok(chartService.getWeights(login, DateRangeUtil.startOf(from), DateRangeUtil.endOf(to),
+            weightService.resolveUnit(unit, login), maxPoints));
     }
 
     /**
      * GET  /weights/:id : get the "id" weight.
      *
      * @param id the id of the weight to retrieve
+     * @param unit the unit of the displayed weight, by default the weight unit of the settings of the current user
      * @return the ResponseEntity with status 200 (OK) and with body the weight, or with status 404 (Not Found)
      */
     @GetMapping("/weights/{id}")
     @Timed
-    public ResponseEntity<Weight> getWeight(@PathVariable Long id) {
+    public ResponseEntity<WeightDTO> getWeight(@PathVariable Long id, @RequestParam(required = false) WeightUnits unit) {
         log.debug("REST request to get Weight : {}", id);
         Weight weight = weightRepository.findOne(id);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(weight));
+        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(weight)
+            .map(found -> toDisplayUnit(Collections.singletonList(found), unit).get(0)));
     }
 
     /**
@@ -132,29 +322,48 @@ public class WeightResource {
     @Timed
     public ResponseEntity<Void> deleteWeight(@PathVariable Long id) {
         log.debug("REST request to delete Weight : {}", id);
-        weightRepository.delete(id);
-        weightSearchRepository.delete(id);
+        weightService.delete(id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
     /**
-     * SEARCH  /_search/weights?query=:query : search for the weight corresponding
+     * SEARCH  /_search/weights?query=:query : search for the weights of the current user corresponding
      * to the query.
      *
-     * @param query the query of the weight search 
+     * @param query the query of the weight search
      * @param pageable the pagination information
-     * @return the result of the search
+     * @param from the first day of the range, inclusive
+     * @param to the last day of the range, inclusive
+     * @param unit the unit of the displayed weights, by default the weight unit of the settings of the current user
+     * @return the result of the search, or with status 400 (Bad Request) if "from" is after "to"
      * @throws URISyntaxException if there is an error to generate the pagination HTTP headers
      */
     @GetMapping("/_search/weights")
     @Timed
-    public ResponseEntity<List<Weight>> searchWeights(@RequestParam String query, @ApiParam Pageable pageable)
+    public ResponseEntity<List<WeightDTO>> searchWeights(@RequestParam String query, @ApiParam Pageable pageable,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(required = false) WeightUnits unit)
         throws URISyntaxException {
         log.debug("REST request to search for a page of Weights for query {}", query);
-        Page<Weight> page = weightSearchRepository.search(queryStringQuery(query), pageable);
-        HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/weights");
-        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        if (!DateRangeUtil.isValid(from, to)) {
+            return ResponseEntity.badRequest().headers(HeaderUtil.createFailureAlert(ENTITY_NAME, "invalidrange", "The start of the range must not be after its end")).body(null);
+        }
+        Page<Weight> page = userRepository.findOneByLogin(SecurityUtils.getCurrentUserLogin())
+            .map(user -> weightSearchRepository.search(SearchQueryUtil.userScopedQuery(query, user.getId(), from, to), pageable))
+            .orElseGet(() -> new PageImpl<>(Collections.emptyList(), pageable, 0));
+        HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, DateRangeUtil.generateUri("/api/_search/weights", from, to));
+        return new ResponseEntity<>(toDisplayUnit(page.getContent(), unit), headers, HttpStatus.OK);
     }
 
-
+    /**
+     * Give the weights read in the unit requested, or else in the weight unit of the settings of the current user.
+     */
+    private List<WeightDTO> toDisplayUnit(List<Weight> weights, WeightUnits unit) {
+        if (weights.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return weightService.toDisplayUnit(weights, unit != null ? unit :
+            weightService.getPreferredUnit(SecurityUtils.getCurrentUserLogin()).orElse(null));
+    }
 }
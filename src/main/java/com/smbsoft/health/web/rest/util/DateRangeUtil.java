@@ -0,0 +1,98 @@
+package com.smbsoft.health.web.rest.util;
+
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for handling the optional "from" and "to" date range parameters of the list endpoints.
+ */
+public final class DateRangeUtil {
+
+    /**
+     * Start of a range which has no "from" parameter.
+     */
+    public static final LocalDate MIN_DATE = LocalDate.of(1900, 1, 1);
+
+    /**
+     * End of a range which has no "to" parameter.
+     */
+    public static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    /**
+     * Longest range accepted by {@link #parsePeriod(String)}.
+     */
+    public static final Period MAX_PERIOD = Period.ofYears(2);
+
+    private static final Pattern PERIOD_PATTERN = Pattern.compile("([1-9][0-9]{0,3})([dwmy])");
+
+    private DateRangeUtil() {
+    }
+
+    public static boolean isRequested(LocalDate from, LocalDate to) {
+        return from != null || to != null;
+    }
+
+    public static boolean isValid(LocalDate from, LocalDate to) {
+        return from == null || to == null || !from.isAfter(to);
+    }
+
+    public static LocalDate startOf(LocalDate from) {
+        return from != null ? from : MIN_DATE;
+    }
+
+    public static LocalDate endOf(LocalDate to) {
+        return to != null ? to : MAX_DATE;
+    }
+
+    /**
+     * Parse a relative range, such as "30d", "12w", "6m" or "1y".
+     *
+     * @param range the number of days, weeks, months or years
+     * @return the period
+     * @throws IllegalArgumentException if the range is not valid, or longer than {@link #MAX_PERIOD}
+     */
+    public static Period parsePeriod(String range) {
+        Matcher matcher = PERIOD_PATTERN.matcher(range);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid range: " + range);
+        }
+        int amount = Integer.parseInt(matcher.group(1));
+        Period period;
+        switch (matcher.group(2)) {
+            case "d":
+                period = Period.ofDays(amount);
+                break;
+            case "w":
+                period = Period.ofWeeks(amount);
+                break;
+            case "m":
+                period = Period.ofMonths(amount);
+                break;
+            default:
+                period = Period.ofYears(amount);
+        }
+        LocalDate today = LocalDate.now();
+        if (today.plus(period).isAfter(today.plus(MAX_PERIOD))) {
+            throw new IllegalArgumentException("Range too long: " + range);
+        }
+        return period;
+    }
+
+    /**
+     * Add the range parameters to a base URL, so that pagination links keep the same range.
+     */
+    public static String generateUri(String baseUrl, LocalDate from, LocalDate to) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromUriString(baseUrl);
+        if (from != null) {
+            builder.queryParam("from", from);
+        }
+        if (to != null) {
+            builder.queryParam("to", to);
+        }
+        return builder.toUriString();
+    }
+}
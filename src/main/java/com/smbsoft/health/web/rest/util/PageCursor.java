@@ -0,0 +1,60 @@
+package com.smbsoft.health.web.rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque cursor of the keyset ("seek") pagination mode: the (date, id) key of the last row of a page.
+ * <p>
+ * Rows are returned most recent first, so the next page starts with the rows whose key is lower than the cursor.
+ * </p>
+ */
+public final class PageCursor {
+
+    private final LocalDate date;
+
+    private final Long id;
+
+    public PageCursor(LocalDate date, Long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String key = date + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor sent by a client.
+     *
+     * @param cursor the encoded cursor, or an empty value for the first page
+     * @return the decoded cursor, or null for the first page
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf(',');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new PageCursor(LocalDate.parse(key.substring(0, separator)), Long.valueOf(key.substring(separator + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.smbsoft.health.web.rest.util;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -42,6 +43,20 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate the headers of a page read in keyset mode: there is no total count, and only a "next" link
+     * carrying the cursor of the last row, when there are more rows.
+     */
+    public static HttpHeaders generateKeysetPaginationHttpHeaders(Slice<?> slice, String baseUrl, PageCursor next) {
+        HttpHeaders headers = new HttpHeaders();
+        if (slice.hasNext() && next != null) {
+            String link = "<" + UriComponentsBuilder.fromUriString(baseUrl).queryParam("after", next.encode())
+                .queryParam("size", slice.getSize()).toUriString() + ">; rel=\"next\"";
+            headers.add(HttpHeaders.LINK, link);
+        }
+        return headers;
+    }
+
     private static String generateUri(String baseUrl, int page, int size) throws URISyntaxException {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
@@ -0,0 +1,66 @@
+package com.smbsoft.health.config;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.domain.Points;
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.security.DomainUserDetailsService;
+
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.cache.CacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CacheConfiguration.
+ *
+ * @see CacheConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+public class CacheConfigurationIntTest {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    public void assertThatCachesUseTheDefaultTiers() {
+        ResourcePools resourcePools = getResourcePools(Points.class.getName());
+
+        assertThat(resourcePools.getResourceTypeSet()).containsOnly(ResourceType.Core.HEAP);
+        assertThat(resourcePools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(100);
+    }
+
+    @Test
+    public void assertThatCachesUseTheTiersOfTheirRegion() {
+        ResourcePools resourcePools = getResourcePools(DomainUserDetailsService.USERS_BY_LOGIN_CACHE);
+
+        assertThat(resourcePools.getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(10);
+        assertThat(resourcePools.<SizedResourcePool>getPoolForResource(ResourceType.Core.OFFHEAP).getSize())
+            .isEqualTo(1);
+    }
+
+    @Test
+    public void assertThatCollectionCachesUseTheRegionOfTheirEntity() {
+        assertThat(CacheConfiguration.regionKey(User.class.getName() + ".authorities")).isEqualTo("User");
+        assertThat(CacheConfiguration.regionKey(User.class.getName())).isEqualTo("User");
+        assertThat(CacheConfiguration.regionKey(DomainUserDetailsService.USERS_BY_LOGIN_CACHE))
+            .isEqualTo(DomainUserDetailsService.USERS_BY_LOGIN_CACHE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ResourcePools getResourcePools(String cacheName) {
+        Eh107Configuration<Object, Object> configuration = cacheManager.getCache(cacheName)
+            .getConfiguration(Eh107Configuration.class);
+        return configuration.unwrap(CacheRuntimeConfiguration.class).getResourcePools();
+    }
+}
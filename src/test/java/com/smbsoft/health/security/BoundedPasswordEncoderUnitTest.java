@@ -0,0 +1,96 @@
+package com.smbsoft.health.security;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Test class for the BoundedPasswordEncoder.
+ *
+ * @see BoundedPasswordEncoder
+ */
+public class BoundedPasswordEncoderUnitTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+
+    private MetricRegistry metricRegistry;
+
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Before
+    public void setup() {
+        metricRegistry = new MetricRegistry();
+        passwordEncoder = new BoundedPasswordEncoder(new BlockingPasswordEncoder(), 1, 1, metricRegistry);
+    }
+
+    @After
+    public void cleanup() {
+        release.countDown();
+        callers.shutdownNow();
+        passwordEncoder.shutdown();
+    }
+
+    @Test
+    public void assertThatPasswordIsHashedOnThePool() {
+        release.countDown();
+
+        assertThat(passwordEncoder.encode("password")).isEqualTo("{password-hashing-1}password");
+        assertThat(passwordEncoder.matches("password", "password")).isTrue();
+        assertThat(metricRegistry.timer(MetricRegistry.name(BoundedPasswordEncoder.class, "hashing")).getCount())
+            .isEqualTo(2);
+    }
+
+    @Test
+    public void assertThatHashingIsRejectedWhenThePoolIsSaturated() throws Exception {
+        // The first password occupies the only thread, and the second one the only place in the queue
+        Future<String> first = callers.submit(() -> passwordEncoder.encode("first"));
+        started.await(10, TimeUnit.SECONDS);
+        Future<String> second = callers.submit(() -> passwordEncoder.encode("second"));
+        while (metricRegistry.getGauges().get(MetricRegistry.name(BoundedPasswordEncoder.class, "queue-size"))
+            .getValue().equals(0)) {
+            Thread.sleep(10);
+        }
+
+        try {
+            passwordEncoder.encode("third");
+            fail("PasswordHashingRejectedException expected");
+        } catch (PasswordHashingRejectedException e) {
+            assertThat(metricRegistry.meter(MetricRegistry.name(BoundedPasswordEncoder.class, "rejections")).getCount())
+                .isEqualTo(1);
+        }
+
+        release.countDown();
+        assertThat(first.get(10, TimeUnit.SECONDS)).endsWith("first");
+        assertThat(second.get(10, TimeUnit.SECONDS)).endsWith("second");
+    }
+
+    private class BlockingPasswordEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "{" + Thread.currentThread().getName() + "}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return rawPassword.toString().equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.smbsoft.health.security.jwt;
+
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the TokenAuthenticationCache.
+ *
+ * @see TokenAuthenticationCache
+ */
+public class TokenAuthenticationCacheUnitTest {
+
+    private static final long NOW = 1000L;
+
+    @Test
+    public void assertThatFullCacheEvictsTheLeastRecentlyUsedToken() {
+        TokenAuthenticationCache cache = new TokenAuthenticationCache(2, 1);
+        Authentication first = authentication("first");
+        Authentication second = authentication("second");
+        Authentication third = authentication("third");
+        cache.put("first", first, NOW + 100, NOW);
+        cache.put("second", second, NOW + 100, NOW);
+        assertThat(cache.get("first", NOW)).isSameAs(first);
+
+        // The tokens of the cache are not expired, the new token is still cached
+        cache.put("third", third, NOW + 100, NOW);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("third", NOW)).isSameAs(third);
+        assertThat(cache.get("first", NOW)).isSameAs(first);
+        assertThat(cache.get("second", NOW)).isNull();
+    }
+
+    @Test
+    public void assertThatExpiredTokenIsNotReturned() {
+        TokenAuthenticationCache cache = new TokenAuthenticationCache(10);
+        cache.put("token", authentication("user"), NOW + 100, NOW);
+
+        assertThat(cache.get("token", NOW + 99)).isNotNull();
+        assertThat(cache.get("token", NOW + 100)).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void assertThatCacheIsBoundedAcrossSegments() {
+        TokenAuthenticationCache cache = new TokenAuthenticationCache(100);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("token-" + i, authentication("user"), NOW + 100, NOW);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+        assertThat(cache.get("token-999", NOW)).isNotNull();
+    }
+
+    private static Authentication authentication(String login) {
+        return new UsernamePasswordAuthenticationToken(login, "");
+    }
+}
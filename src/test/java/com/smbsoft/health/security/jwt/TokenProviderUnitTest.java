@@ -0,0 +1,99 @@
+package com.smbsoft.health.security.jwt;
+
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.security.AuthoritiesConstants;
+
+import com.codahale.metrics.MetricRegistry;
+import io.github.jhipster.config.JHipsterProperties;
+import io.jsonwebtoken.ExpiredJwtException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the TokenProvider.
+ *
+ * @see TokenProvider
+ */
+public class TokenProviderUnitTest {
+
+    private static final String CACHE_HITS = MetricRegistry.name(TokenProvider.class, "cache", "hits");
+
+    private static final String CACHE_MISSES = MetricRegistry.name(TokenProvider.class, "cache", "misses");
+
+    private JHipsterProperties jHipsterProperties;
+
+    private ApplicationProperties applicationProperties;
+
+    private MetricRegistry metricRegistry;
+
+    @Before
+    public void setup() {
+        jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setSecret("test-secret");
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setTokenValidityInSeconds(60);
+        applicationProperties = new ApplicationProperties();
+        metricRegistry = new MetricRegistry();
+    }
+
+    @Test
+    public void assertThatTokenIsVerifiedOnlyOnce() {
+        TokenProvider tokenProvider = createTokenProvider();
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Authentication authentication = tokenProvider.resolveAuthentication(token);
+        assertThat(authentication.getName()).isEqualTo("user");
+        assertThat(authentication.getAuthorities()).extracting("authority").containsExactly(AuthoritiesConstants.USER);
+        assertThat(tokenProvider.resolveAuthentication(token)).isSameAs(authentication);
+
+        assertThat(metricRegistry.meter(CACHE_MISSES).getCount()).isEqualTo(1);
+        assertThat(metricRegistry.meter(CACHE_HITS).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void assertThatTokenWithInvalidSignatureIsRejected() {
+        String token = createTokenProvider().createToken(createAuthentication(), false);
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setSecret("other-secret");
+
+        assertThat(createTokenProvider(new MetricRegistry()).resolveAuthentication(token)).isNull();
+    }
+
+    @Test(expected = ExpiredJwtException.class)
+    public void assertThatExpiredTokenIsRejected() {
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setTokenValidityInSeconds(-1);
+        TokenProvider tokenProvider = createTokenProvider();
+
+        tokenProvider.resolveAuthentication(tokenProvider.createToken(createAuthentication(), false));
+    }
+
+    @Test
+    public void assertThatTokensAreNotCachedWhenCacheIsDisabled() {
+        applicationProperties.getSecurity().getTokenCache().setMaxSize(0);
+        TokenProvider tokenProvider = createTokenProvider();
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.resolveAuthentication(token)).isNotSameAs(tokenProvider.resolveAuthentication(token));
+        assertThat(metricRegistry.meter(CACHE_MISSES).getCount()).isEqualTo(2);
+    }
+
+    private TokenProvider createTokenProvider() {
+        return createTokenProvider(metricRegistry);
+    }
+
+    private TokenProvider createTokenProvider(MetricRegistry metricRegistry) {
+        TokenProvider tokenProvider = new TokenProvider(jHipsterProperties, applicationProperties, metricRegistry);
+        tokenProvider.init();
+        return tokenProvider;
+    }
+
+    private Authentication createAuthentication() {
+        return new UsernamePasswordAuthenticationToken("user", "user",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER)));
+    }
+}
@@ -0,0 +1,122 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.repository.WeightRepository;
+import com.smbsoft.health.security.DomainUserDetailsService;
+import com.smbsoft.health.service.CacheInvalidationBus.Invalidation;
+
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CacheInvalidationService, with the loopback bus.
+ *
+ * @see CacheInvalidationService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+public class CacheInvalidationServiceIntTest {
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WeightRepository weightRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Invalidation> published = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setup() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        cacheInvalidationBus.subscribe(published::add);
+    }
+
+    @Test
+    public void assertThatCommittedChangesArePublished() {
+        Weight weight = transactionTemplate.execute(status -> weightRepository.save(
+            new Weight().date(LocalDate.now()).weight(80).user(userRepository.findOneByLogin("user").get())));
+        User user = transactionTemplate.execute(status -> {
+            User created = new User();
+            created.setLogin("cache-invalidation");
+            created.setPassword(RandomStringUtils.random(60));
+            created.setActivated(true);
+            return userRepository.save(created);
+        });
+        assertThat(published).doesNotContain(
+            new Invalidation(DomainUserDetailsService.USERS_BY_LOGIN_CACHE, "cache-invalidation"));
+        transactionTemplate.execute(status -> {
+            userRepository.findOne(user.getId()).setFirstName("Updated");
+            return null;
+        });
+
+        try {
+            assertThat(published).contains(
+                new Invalidation(UserQueryCache.WEIGHTS_BY_USER, "user"),
+                new Invalidation(DomainUserDetailsService.USERS_BY_LOGIN_CACHE, "cache-invalidation"));
+        } finally {
+            transactionTemplate.execute(status -> {
+                weightRepository.delete(weight.getId());
+                userRepository.delete(user.getId());
+                return null;
+            });
+        }
+    }
+
+    @Test
+    public void assertThatRolledBackChangesAreNotPublished() {
+        transactionTemplate.execute(status -> {
+            weightRepository.saveAndFlush(
+                new Weight().date(LocalDate.now()).weight(80).user(userRepository.findOneByLogin("user").get()));
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(published).isEmpty();
+    }
+
+    @Test
+    public void assertThatInvalidationsEvictTheCachedEntries() {
+        User user = userRepository.findOneByLogin("user").get();
+        cacheManager.getCache(DomainUserDetailsService.USERS_BY_LOGIN_CACHE).put("user", "cached");
+
+        cacheInvalidationBus.publish(Arrays.asList(
+            new Invalidation(User.class.getName(), user.getId()),
+            new Invalidation(DomainUserDetailsService.USERS_BY_LOGIN_CACHE, "user")));
+
+        assertThat(entityManagerFactory.getCache().contains(User.class, user.getId())).isFalse();
+        assertThat(cacheManager.getCache(DomainUserDetailsService.USERS_BY_LOGIN_CACHE).get("user")).isNull();
+    }
+}
@@ -0,0 +1,94 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.security.DomainUserDetailsService;
+import com.smbsoft.health.service.dto.CacheStatisticsDTO;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CacheStatisticsService.
+ *
+ * @see CacheStatisticsService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+@Transactional
+public class CacheStatisticsServiceIntTest {
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    @Before
+    public void init() {
+        cacheManager.getCache(DomainUserDetailsService.USERS_BY_LOGIN_CACHE).clear();
+        cacheStatisticsService.clearStatistics();
+    }
+
+    @After
+    public void clearUsersByLoginCache() {
+        cacheManager.getCache(DomainUserDetailsService.USERS_BY_LOGIN_CACHE).clear();
+    }
+
+    @Test
+    public void assertThatStatisticsCountHitsMissesAndLoads() {
+        userDetailsService.loadUserByUsername("user");
+        userDetailsService.loadUserByUsername("user");
+        userDetailsService.loadUserByUsername("user");
+
+        CacheStatisticsDTO statistics = getStatistics(DomainUserDetailsService.USERS_BY_LOGIN_CACHE);
+        assertThat(statistics.getHits()).isEqualTo(2);
+        assertThat(statistics.getMisses()).isEqualTo(1);
+        assertThat(statistics.getHitRatio()).isEqualTo(2f / 3);
+        assertThat(statistics.getPuts()).isEqualTo(1);
+        assertThat(statistics.getLoads()).isEqualTo(1);
+        assertThat(statistics.getHeapEntries()).isEqualTo(10);
+        assertThat(statistics.getOffHeapMegabytes()).isEqualTo(1);
+    }
+
+    @Test
+    public void assertThatStatisticsCoverTheHibernateRegions() {
+        assertThat(cacheStatisticsService.getStatistics())
+            .extracting(CacheStatisticsDTO::getName)
+            .contains(com.smbsoft.health.domain.User.class.getName(), UserQueryCache.POINTS_BY_USER);
+    }
+
+    @Test
+    public void assertThatStatisticsAreRegisteredAsGauges() {
+        userDetailsService.loadUserByUsername("user");
+        userDetailsService.loadUserByUsername("user");
+
+        assertThat(metricRegistry.getGauges().get(MetricRegistry.name("jcache.statistics",
+            DomainUserDetailsService.USERS_BY_LOGIN_CACHE, "cache-hits")).getValue()).isEqualTo(1L);
+        assertThat(metricRegistry.getTimers()).containsKey(MetricRegistry.name("jcache.loads",
+            DomainUserDetailsService.USERS_BY_LOGIN_CACHE));
+    }
+
+    private CacheStatisticsDTO getStatistics(String cacheName) {
+        return cacheStatisticsService.getStatistics().stream()
+            .filter(statistics -> statistics.getName().equals(cacheName))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("No statistics for " + cacheName));
+    }
+}
@@ -0,0 +1,111 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.domain.CacheInvalidationEvent;
+import com.smbsoft.health.repository.CacheInvalidationEventRepository;
+import com.smbsoft.health.service.CacheInvalidationBus.Invalidation;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the DatabaseCacheInvalidationBus, with two buses standing for two nodes.
+ *
+ * @see DatabaseCacheInvalidationBus
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+public class DatabaseCacheInvalidationBusIntTest {
+
+    @Autowired
+    private CacheInvalidationEventRepository cacheInvalidationEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    private DatabaseCacheInvalidationBus nodeA;
+
+    private DatabaseCacheInvalidationBus nodeB;
+
+    private final List<Invalidation> receivedByA = new ArrayList<>();
+
+    private final List<Invalidation> receivedByB = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        nodeA = createBus();
+        nodeA.subscribe(receivedByA::add);
+        nodeB = createBus();
+        nodeB.subscribe(receivedByB::add);
+    }
+
+    @After
+    public void cleanup() {
+        // The events are committed by the buses
+        cacheInvalidationEventRepository.deleteAll();
+    }
+
+    @Test
+    public void assertThatInvalidationsAreDeliveredToTheOtherNodes() {
+        Invalidation first = new Invalidation("com.smbsoft.health.domain.Weight", 1L);
+        Invalidation second = new Invalidation(UserQueryCache.WEIGHTS_BY_USER, "user");
+
+        nodeA.publish(Arrays.asList(first, second));
+        nodeA.poll();
+        nodeB.poll();
+
+        assertThat(receivedByA).isEmpty();
+        assertThat(receivedByB).containsExactly(first, second);
+        assertThat(cacheInvalidationEventRepository.findAll())
+            .extracting(CacheInvalidationEvent::getNodeId)
+            .containsOnly(nodeA.getNodeId());
+    }
+
+    @Test
+    public void assertThatInvalidationsAreDeliveredOnce() {
+        Invalidation invalidation = new Invalidation(UserQueryCache.WEIGHTS_BY_USER, "user");
+
+        nodeB.publish(Collections.singletonList(invalidation));
+        nodeA.poll();
+        nodeA.poll();
+
+        assertThat(receivedByA).containsExactly(invalidation);
+    }
+
+    @Test
+    public void assertThatNodesIgnoreTheInvalidationsPublishedBeforeTheyStarted() {
+        nodeA.publish(Collections.singletonList(new Invalidation(UserQueryCache.WEIGHTS_BY_USER, "user")));
+
+        DatabaseCacheInvalidationBus nodeC = createBus();
+        List<Invalidation> receivedByC = new ArrayList<>();
+        nodeC.subscribe(receivedByC::add);
+        nodeC.poll();
+
+        assertThat(receivedByC).isEmpty();
+    }
+
+    private DatabaseCacheInvalidationBus createBus() {
+        DatabaseCacheInvalidationBus bus = new DatabaseCacheInvalidationBus(cacheInvalidationEventRepository,
+            transactionManager, applicationProperties, new MetricRegistry());
+        bus.init();
+        return bus;
+    }
+}
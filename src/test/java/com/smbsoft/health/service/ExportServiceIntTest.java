@@ -0,0 +1,132 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.domain.BloodPressure;
+import com.smbsoft.health.domain.Points;
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.repository.BloodPressureRepository;
+import com.smbsoft.health.repository.PointsRepository;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.repository.WeightRepository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.EnumSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ExportService.
+ *
+ * @see ExportService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+@Transactional
+public class ExportServiceIntTest {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PointsRepository pointsRepository;
+
+    @Autowired
+    private WeightRepository weightRepository;
+
+    @Autowired
+    private BloodPressureRepository bloodPressureRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User user;
+
+    private Points points;
+
+    private Weight weight;
+
+    @Before
+    public void init() {
+        user = userRepository.findOneByLogin("user").get();
+        User admin = userRepository.findOneByLogin("admin").get();
+        // Saved out of date order, with notes to be quoted, and a weight of another user
+        points = pointsRepository.saveAndFlush(new Points().date(LocalDate.of(2017, 2, 14))
+            .exercise(1).meals(0).alcohol(1).notes("Run, then \"pizza\"").user(user));
+        pointsRepository.saveAndFlush(new Points().date(LocalDate.of(2017, 2, 13)).exercise(1).user(user));
+        weight = weightRepository.saveAndFlush(new Weight().date(LocalDate.of(2017, 2, 13)).weight(80).user(user));
+        weightRepository.saveAndFlush(new Weight().date(LocalDate.of(2017, 2, 13)).weight(90).user(admin));
+        bloodPressureRepository.saveAndFlush(new BloodPressure().date(LocalDate.of(2017, 2, 15))
+            .systolic(120).diastolic(80).user(user));
+    }
+
+    @Test
+    public void assertThatCsvExportHasOneColumnSetForAllTypes() throws Exception {
+        String[] lines = export(ExportService.Format.CSV, EnumSet.allOf(ExportService.Type.class)).split("\r\n");
+
+        assertThat(lines).hasSize(5);
+        assertThat(lines[0]).isEqualTo("type,id,date,exercise,meals,alcohol,notes,weight,unit,systolic,diastolic");
+        assertThat(lines[1]).startsWith("points,").endsWith(",2017-02-13,1,,,,,,,");
+        assertThat(lines[2]).isEqualTo("points," + points.getId() + ",2017-02-14,1,0,1,\"Run, then \"\"pizza\"\"\",,,,");
+        assertThat(lines[3]).isEqualTo("weight," + weight.getId() + ",2017-02-13,,,,,80,kg,,");
+        assertThat(lines[4]).startsWith("bp,").endsWith(",2017-02-15,,,,,,,120,80");
+    }
+
+    @Test
+    public void assertThatCsvExportLeavesAMissingDateEmpty() throws Exception {
+        Weight undated = weightRepository.saveAndFlush(new Weight().weight(81).user(user));
+
+        String[] lines = export(ExportService.Format.CSV, EnumSet.of(ExportService.Type.WEIGHT)).split("\r\n");
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines).contains("weight," + undated.getId() + ",,,,,,81,kg,,");
+    }
+
+    @Test
+    public void assertThatNdjsonExportHasOneDocumentPerLine() throws Exception {
+        String[] lines = export(ExportService.Format.NDJSON, EnumSet.of(ExportService.Type.POINTS)).split("\n");
+
+        assertThat(lines).hasSize(2);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertThat(second.get("type").asText()).isEqualTo("points");
+        assertThat(second.get("id").asLong()).isEqualTo(points.getId());
+        assertThat(second.get("date").asText()).isEqualTo("2017-02-14");
+        assertThat(second.get("meals").asInt()).isEqualTo(0);
+        assertThat(second.get("notes").asText()).isEqualTo("Run, then \"pizza\"");
+        assertThat(objectMapper.readTree(lines[0]).has("meals")).isFalse();
+    }
+
+    @Test
+    public void assertThatNdjsonExportLinesStartWithTheirDocument() throws Exception {
+        String[] lines = export(ExportService.Format.NDJSON,
+            EnumSet.of(ExportService.Type.WEIGHT, ExportService.Type.BLOOD_PRESSURE)).split("\n", -1);
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).isEqualTo("{\"type\":\"weight\",\"id\":" + weight.getId() +
+            ",\"date\":\"2017-02-13\",\"weight\":80,\"unit\":\"kg\"}");
+        assertThat(lines[1]).startsWith("{\"type\":\"bp\",\"id\":")
+            .endsWith(",\"date\":\"2017-02-15\",\"systolic\":120,\"diastolic\":80}");
+        assertThat(lines[2]).isEmpty();
+    }
+
+    private String export(ExportService.Format format, EnumSet<ExportService.Type> types) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        exportService.export(user.getId(), types, format, output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,126 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.domain.PointsWeeklySummary;
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.domain.UserSettings;
+import com.smbsoft.health.repository.PointsWeeklySummaryRepository;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.repository.UserSettingsRepository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test class for the GoalReminderService.
+ *
+ * @see GoalReminderService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+@Transactional
+public class GoalReminderServiceIntTest {
+
+    private static final LocalDate WEEK_START = LocalDate.of(2017, 4, 10);
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSettingsRepository userSettingsRepository;
+
+    @Autowired
+    private PointsWeeklySummaryRepository pointsWeeklySummaryRepository;
+
+    @Mock
+    private MailService mockMailService;
+
+    private GoalReminderService goalReminderService;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        when(mockMailService.sendGoalReminderEmail(any(User.class), anyInt(), anyInt()))
+            .thenReturn(CompletableFuture.completedFuture(null));
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        // Every user in its own batch
+        applicationProperties.getGoalReminder().setBatchSize(1);
+        applicationProperties.getGoalReminder().setMaxConcurrentSends(1);
+        goalReminderService = new GoalReminderService(dataSource, mockMailService, applicationProperties);
+    }
+
+    @Test
+    public void assertThatUsersBehindTheirGoalAreReminded() {
+        User user = userRepository.findOneByLogin("user").get();
+        User admin = userRepository.findOneByLogin("admin").get();
+        User system = userRepository.findOneByLogin("system").get();
+        userSettingsRepository.saveAndFlush(new UserSettings().weeklyGoal(10).user(user));
+        userSettingsRepository.saveAndFlush(new UserSettings().weeklyGoal(10).user(admin));
+        userSettingsRepository.saveAndFlush(new UserSettings().weeklyGoal(12).user(system));
+        pointsWeeklySummaryRepository.saveAndFlush(new PointsWeeklySummary(user.getId(), WEEK_START).add(1, 1, 1, 1));
+        // The goal of the admin is reached, the system user has no points
+        pointsWeeklySummaryRepository.saveAndFlush(new PointsWeeklySummary(admin.getId(), WEEK_START).add(4, 4, 3, 4));
+        pointsWeeklySummaryRepository.saveAndFlush(new PointsWeeklySummary(system.getId(), WEEK_START.minusWeeks(1)).add(3, 3, 3, 3));
+
+        int reminded = goalReminderService.remindWeeklyGoals(WEEK_START.plusDays(4));
+
+        assertThat(reminded).isEqualTo(2);
+        ArgumentCaptor<User> reminders = ArgumentCaptor.forClass(User.class);
+        verify(mockMailService).sendGoalReminderEmail(reminders.capture(), eq(3), eq(10));
+        assertThat(reminders.getValue().getLogin()).isEqualTo("user");
+        assertThat(reminders.getValue().getEmail()).isEqualTo("user@localhost");
+        verify(mockMailService).sendGoalReminderEmail(reminders.capture(), eq(0), eq(12));
+        assertThat(reminders.getValue().getLogin()).isEqualTo("system");
+        verifyNoMoreInteractions(mockMailService);
+
+        // A second run, on this node or another one, does not remind the same users again in the same week
+        GoalReminderService otherNode = new GoalReminderService(dataSource, mockMailService, new ApplicationProperties());
+        assertThat(otherNode.remindWeeklyGoals(WEEK_START.plusDays(5))).isEqualTo(0);
+        assertThat(goalReminderService.remindWeeklyGoals(WEEK_START.plusDays(4))).isEqualTo(0);
+        verifyNoMoreInteractions(mockMailService);
+    }
+
+    @Test
+    public void assertThatRejectedRemindersAreSentByTheNextRun() {
+        User user = userRepository.findOneByLogin("user").get();
+        userSettingsRepository.saveAndFlush(new UserSettings().weeklyGoal(10).user(user));
+        when(mockMailService.sendGoalReminderEmail(any(User.class), anyInt(), anyInt()))
+            .thenThrow(new RejectedExecutionException())
+            .thenReturn(CompletableFuture.completedFuture(null));
+
+        assertThat(goalReminderService.remindWeeklyGoals(WEEK_START)).isEqualTo(0);
+        assertThat(goalReminderService.remindWeeklyGoals(WEEK_START)).isEqualTo(1);
+        verify(mockMailService, times(2)).sendGoalReminderEmail(any(User.class), eq(0), eq(10));
+    }
+
+    @Test
+    public void assertThatUsersWithoutGoalAreNotReminded() {
+        User user = userRepository.findOneByLogin("user").get();
+        userSettingsRepository.saveAndFlush(new UserSettings().user(user));
+
+        assertThat(goalReminderService.remindWeeklyGoals(WEEK_START)).isEqualTo(0);
+        verifyZeroInteractions(mockMailService);
+    }
+}
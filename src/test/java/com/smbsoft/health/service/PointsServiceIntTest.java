@@ -0,0 +1,94 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.domain.Points;
+import com.smbsoft.health.domain.PointsWeeklySummary;
+import com.smbsoft.health.domain.PointsWeeklySummary.PointsWeeklySummaryId;
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.repository.PointsWeeklySummaryRepository;
+import com.smbsoft.health.repository.UserRepository;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PointsService.
+ * <p>
+ * The concurrent writes run in their own transactions, so the test data is committed, and deleted afterwards.
+ * </p>
+ *
+ * @see PointsService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+public class PointsServiceIntTest {
+
+    private static final LocalDate WEEK_START = LocalDate.of(2017, 3, 6);
+
+    @Autowired
+    private PointsService pointsService;
+
+    @Autowired
+    private PointsWeeklySummaryRepository pointsWeeklySummaryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<Points> points = new CopyOnWriteArrayList<>();
+
+    @After
+    public void cleanup() {
+        points.forEach(saved -> pointsService.delete(saved.getId()));
+    }
+
+    @Test
+    public void assertThatConcurrentFirstWritesOfAWeekAreBothSummed() throws Exception {
+        User user = userRepository.findOneByLogin("user").get();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        CountDownLatch firstWritten = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // The second write of the week starts while the first one is not committed yet
+            Future<?> first = executor.submit(() -> transactionTemplate.execute(status -> {
+                points.add(pointsService.save(new Points().date(WEEK_START).exercise(1).meals(1).alcohol(0).user(user)));
+                firstWritten.countDown();
+                try {
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+            assertThat(firstWritten.await(10, TimeUnit.SECONDS)).isTrue();
+            transactionTemplate.execute(status ->
+                points.add(pointsService.save(new Points().date(WEEK_START.plusDays(1)).exercise(1).meals(0).alcohol(0).user(user))));
+            first.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        PointsWeeklySummary summary = pointsWeeklySummaryRepository.findOne(new PointsWeeklySummaryId(user.getId(), WEEK_START));
+        assertThat(summary.getEntries()).isEqualTo(2);
+        assertThat(summary.getPoints()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,114 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.repository.SearchOutboxEventRepository;
+import com.smbsoft.health.repository.WeightRepository;
+import com.smbsoft.health.repository.search.WeightSearchRepository;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.EntityMapper;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the SearchOutboxRelay, with the SearchIndexingService in asynchronous mode.
+ *
+ * @see SearchOutboxRelay
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+@Transactional
+public class SearchOutboxRelayIntTest {
+
+    @Autowired
+    private ElasticsearchTemplate elasticsearchTemplate;
+
+    @Autowired
+    private EntityMapper entityMapper;
+
+    @Autowired
+    private SearchOutboxEventRepository searchOutboxEventRepository;
+
+    @Autowired
+    private WeightRepository weightRepository;
+
+    @Autowired
+    private WeightSearchRepository weightSearchRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager em;
+
+    private SearchIndexingService searchIndexingService;
+
+    private SearchOutboxRelay searchOutboxRelay;
+
+    @Before
+    public void setup() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getSearch().getIndexing().setAsync(true);
+        searchIndexingService = new SearchIndexingService(elasticsearchTemplate, entityMapper,
+            searchOutboxEventRepository, em, applicationProperties);
+        searchOutboxRelay = new SearchOutboxRelay(searchOutboxEventRepository, searchIndexingService, em,
+            transactionManager, applicationProperties, new MetricRegistry());
+        weightSearchRepository.deleteAll();
+    }
+
+    @Test
+    public void assertThatChangesAreRelayed() {
+        Weight weight = weightRepository.saveAndFlush(new Weight().date(LocalDate.of(2017, 2, 13)).weight(75));
+        searchIndexingService.index(weight);
+        searchIndexingService.index(weight.weight(76));
+
+        // The change is only recorded
+        assertThat(weightSearchRepository.exists(weight.getId())).isFalse();
+        assertThat(searchOutboxRelay.getPendingCount()).isEqualTo(2);
+
+        assertThat(searchOutboxRelay.relay()).isEqualTo(2);
+        assertThat(searchOutboxRelay.getPendingCount()).isZero();
+        assertThat(weightSearchRepository.findOne(weight.getId()).getWeight()).isEqualTo(76);
+    }
+
+    @Test
+    public void assertThatDeletedEntitiesAreRemoved() {
+        Weight weight = weightRepository.saveAndFlush(new Weight().date(LocalDate.of(2017, 2, 13)).weight(75));
+        weightSearchRepository.save(weight);
+        weightRepository.delete(weight);
+        weightRepository.flush();
+        searchIndexingService.delete(Weight.class, weight.getId());
+
+        assertThat(searchOutboxRelay.relay()).isEqualTo(1);
+        assertThat(weightSearchRepository.exists(weight.getId())).isFalse();
+    }
+
+    @Test
+    public void assertThatEventsCanBeReplayed() {
+        Weight weight = weightRepository.saveAndFlush(new Weight().date(LocalDate.of(2017, 2, 13)).weight(75));
+        searchIndexingService.index(weight);
+        searchOutboxRelay.relay();
+        Long offset = searchOutboxEventRepository.findAll().get(0).getId();
+
+        // The index lost the document, for instance after being restored from a snapshot
+        weightSearchRepository.delete(weight.getId());
+
+        assertThat(searchOutboxRelay.replayFrom(offset)).isEqualTo(1);
+        assertThat(searchOutboxRelay.relay()).isEqualTo(1);
+        assertThat(weightSearchRepository.exists(weight.getId())).isTrue();
+    }
+}
@@ -0,0 +1,88 @@
+package com.smbsoft.health.service;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.repository.WeightRepository;
+import com.smbsoft.health.repository.search.UserSearchRepository;
+import com.smbsoft.health.repository.search.WeightSearchRepository;
+import com.smbsoft.health.service.dto.ReindexProgressDTO;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the SearchReindexService.
+ * <p>
+ * The reindex reads the tables from its own transactions, so the test data is committed, and deleted afterwards.
+ * </p>
+ *
+ * @see SearchReindexService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+public class SearchReindexServiceIntTest {
+
+    @Autowired
+    private SearchReindexService searchReindexService;
+
+    @Autowired
+    private WeightRepository weightRepository;
+
+    @Autowired
+    private WeightSearchRepository weightSearchRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSearchRepository userSearchRepository;
+
+    @Autowired
+    private ElasticsearchTemplate elasticsearchTemplate;
+
+    private final List<Weight> weights = new ArrayList<>();
+
+    @After
+    public void cleanup() {
+        weightRepository.delete(weights);
+    }
+
+    @Test
+    public void assertThatAllEntitiesAreReindexedBehindAnAlias() {
+        for (int i = 0; i < 10; i++) {
+            weights.add(weightRepository.save(new Weight().date(LocalDate.of(2017, 2, 13).plusDays(i)).weight(75 + i)));
+        }
+        weightSearchRepository.deleteAll();
+
+        List<ReindexProgressDTO> progress = searchReindexService.reindexAll(3);
+
+        assertThat(progress).extracting(ReindexProgressDTO::getStatus).containsOnly(ReindexProgressDTO.Status.DONE);
+        assertThat(progress).extracting(ReindexProgressDTO::getIndex)
+            .containsOnly("bloodpressure", "points", "user", "usersettings", "weight");
+        assertThat(weightSearchRepository.count()).isEqualTo(weightRepository.count());
+        assertThat(userSearchRepository.count()).isEqualTo(userRepository.count());
+        for (Weight weight : weights) {
+            assertThat(weightSearchRepository.findOne(weight.getId()).getWeight()).isEqualTo(weight.getWeight());
+        }
+
+        // A second reindex moves the alias to a new index, and deletes the previous one
+        String previousIndex = progress.stream().filter(index -> index.getIndex().equals("weight")).findFirst().get()
+            .getTargetIndex();
+        assertThat(elasticsearchTemplate.queryForAlias(previousIndex)).extracting("alias").containsOnly("weight");
+        searchReindexService.reindexAll(1);
+        assertThat(elasticsearchTemplate.indexExists(previousIndex)).isFalse();
+        assertThat(weightSearchRepository.count()).isEqualTo(weightRepository.count());
+    }
+}
@@ -2,18 +2,32 @@ package com.smbsoft.health.service;
 
 import com.smbsoft.health.Application;
 import com.smbsoft.health.domain.User;
+import com.smbsoft.health.repository.AuthorityRepository;
 import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.security.DomainUserDetailsService;
 import java.time.ZonedDateTime;
 import com.smbsoft.health.service.util.RandomUtil;
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 
 import java.util.Optional;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -33,6 +47,86 @@ public class UserServiceIntTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
+    @Autowired
+    private SearchIndexingService searchIndexingService;
+
+    @Autowired
+    private CacheStatisticsService cacheStatisticsService;
+
+    @After
+    public void clearUsersByLoginCache() {
+        // The cache is not rolled back with the test transactions
+        cacheManager.getCache(DomainUserDetailsService.USERS_BY_LOGIN_CACHE).clear();
+    }
+
+    @Test
+    public void assertThatCachedUserDetailsAreCopied() {
+        UserDetails userDetails = userDetailsService.loadUserByUsername("user");
+        ((CredentialsContainer) userDetails).eraseCredentials();
+
+        assertThat(cacheManager.getCache(DomainUserDetailsService.USERS_BY_LOGIN_CACHE).get("user")).isNotNull();
+        assertThat(userDetailsService.loadUserByUsername("USER").getPassword()).isNotNull();
+    }
+
+    @Test
+    @WithMockUser("user")
+    public void assertThatChangingPasswordEvictsCachedUserDetails() {
+        userDetailsService.loadUserByUsername("user");
+
+        userService.changePassword("new-password");
+
+        assertThat(cacheManager.getCache(DomainUserDetailsService.USERS_BY_LOGIN_CACHE).get("user")).isNull();
+        assertThat(passwordEncoder.matches("new-password", userDetailsService.loadUserByUsername("user").getPassword()))
+            .isTrue();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @WithMockUser("user")
+    public void assertThatLoginDuringPasswordChangeDoesNotCacheThePreviousPassword() {
+        // A cache of its own, which the invalidation bus does not evict, as on a node of a cluster
+        CacheManager nodeCacheManager = new ConcurrentMapCacheManager(DomainUserDetailsService.USERS_BY_LOGIN_CACHE);
+        UserService nodeUserService = new UserService(userRepository, passwordEncoder, searchIndexingService,
+            authorityRepository, nodeCacheManager);
+        UserDetailsService nodeUserDetailsService = new DomainUserDetailsService(userRepository, nodeCacheManager,
+            cacheStatisticsService);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        String previousPassword = userRepository.findOneByLogin("user").get().getPassword();
+        try {
+            transactionTemplate.execute(status -> {
+                nodeUserService.changePassword("new-password");
+                // A login on another thread, before the change is committed, still reads the previous password
+                UserDetails concurrentLogin = CompletableFuture
+                    .supplyAsync(() -> nodeUserDetailsService.loadUserByUsername("user")).join();
+                assertThat(concurrentLogin.getPassword()).isEqualTo(previousPassword);
+                return null;
+            });
+
+            assertThat(passwordEncoder.matches("new-password", nodeUserDetailsService.loadUserByUsername("user").getPassword()))
+                .isTrue();
+        } finally {
+            transactionTemplate.execute(status -> {
+                userRepository.findOneByLogin("user").get().setPassword(previousPassword);
+                return null;
+            });
+        }
+    }
+
     @Test
     public void assertThatUserMustExistToResetPassword() {
         Optional<User> maybeUser = userService.requestPasswordReset("john.doe@localhost");
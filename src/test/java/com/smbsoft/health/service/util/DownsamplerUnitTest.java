@@ -0,0 +1,103 @@
+package com.smbsoft.health.service.util;
+
+import com.smbsoft.health.service.dto.ChartDTO;
+import com.smbsoft.health.service.util.Downsampler.Resolution;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the Downsampler utility class.
+ *
+ * @see Downsampler
+ */
+public class DownsamplerUnitTest {
+
+    @Test
+    public void testAveragePerWeek() {
+        Downsampler downsampler = new Downsampler("systolic", "diastolic");
+        // Sunday, then Monday and Wednesday of the next week, then a week without readings
+        downsampler.add(LocalDate.of(2017, 2, 12).toEpochDay(), 110, 70);
+        downsampler.add(LocalDate.of(2017, 2, 13).toEpochDay(), 120, 80);
+        downsampler.add(LocalDate.of(2017, 2, 15).toEpochDay(), 130, 90);
+        downsampler.add(LocalDate.of(2017, 3, 1).toEpochDay(), 140, 100);
+
+        ChartDTO chart = downsampler.average(Resolution.WEEK);
+        assertThat(chart.getResolution()).isEqualTo("week");
+        assertThat(chart.getReadings()).isEqualTo(4);
+        assertThat(chart.getDates()).containsExactly(LocalDate.of(2017, 2, 6), LocalDate.of(2017, 2, 13),
+            LocalDate.of(2017, 2, 27));
+        assertThat(chart.getSeries().get(0).getName()).isEqualTo("systolic");
+        assertThat(chart.getSeries().get(0).getValues()).containsExactly(110, 125, 140);
+        assertThat(chart.getSeries().get(1).getValues()).containsExactly(70, 85, 100);
+    }
+
+    @Test
+    public void testAveragePerMonth() {
+        Downsampler downsampler = new Downsampler("weight");
+        downsampler.add(LocalDate.of(2016, 12, 31).toEpochDay(), 80);
+        downsampler.add(LocalDate.of(2017, 1, 1).toEpochDay(), 81);
+        downsampler.add(LocalDate.of(2017, 1, 31).toEpochDay(), 83);
+
+        ChartDTO chart = downsampler.average(Resolution.MONTH);
+        assertThat(chart.getDates()).containsExactly(LocalDate.of(2016, 12, 1), LocalDate.of(2017, 1, 1));
+        assertThat(chart.getSeries().get(0).getValues()).containsExactly(80, 82);
+    }
+
+    @Test
+    public void testAverageWithoutReadings() {
+        ChartDTO chart = new Downsampler("weight").average(Resolution.WEEK);
+        assertThat(chart.getDates()).isEmpty();
+        assertThat(chart.getSeries().get(0).getValues()).isEmpty();
+    }
+
+    @Test
+    public void testSelectKeepsEveryReadingUnderTheMaximum() {
+        Downsampler downsampler = new Downsampler("weight");
+        downsampler.add(0, 80);
+        downsampler.add(1, 81);
+        downsampler.add(2, 82);
+
+        ChartDTO chart = downsampler.select(3);
+        assertThat(chart.getResolution()).isEqualTo(Downsampler.POINTS);
+        assertThat(chart.getSeries().get(0).getValues()).containsExactly(80, 81, 82);
+    }
+
+    @Test
+    public void testSelectKeepsTheEndsAndThePeaks() {
+        Downsampler downsampler = new Downsampler("weight");
+        for (int day = 0; day < 1000; day++) {
+            downsampler.add(day, day == 300 ? 100 : day == 700 ? 60 : 80);
+        }
+
+        ChartDTO chart = downsampler.select(10);
+        assertThat(chart.getReadings()).isEqualTo(1000);
+        assertThat(chart.getDates()).hasSize(10);
+        assertThat(chart.getDates()[0]).isEqualTo(LocalDate.ofEpochDay(0));
+        assertThat(chart.getDates()[9]).isEqualTo(LocalDate.ofEpochDay(999));
+        assertThat(chart.getDates()).contains(LocalDate.ofEpochDay(300), LocalDate.ofEpochDay(700));
+        assertThat(chart.getSeries().get(0).getValues()).contains(100, 60);
+    }
+
+    @Test
+    public void testSelectReturnsIncreasingDates() {
+        Downsampler downsampler = new Downsampler("weight");
+        for (int day = 0; day < 997; day++) {
+            downsampler.add(day, Math.sin(day / 10.0));
+        }
+
+        LocalDate[] dates = downsampler.select(200).getDates();
+        assertThat(dates).hasSize(200);
+        for (int i = 1; i < dates.length; i++) {
+            assertThat(dates[i]).isGreaterThan(dates[i - 1]);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSelectNeedsThreePoints() {
+        new Downsampler("weight").select(2);
+    }
+}
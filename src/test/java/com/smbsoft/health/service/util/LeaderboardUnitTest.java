@@ -0,0 +1,96 @@
+package com.smbsoft.health.service.util;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the Leaderboard utility class.
+ *
+ * @see Leaderboard
+ */
+public class LeaderboardUnitTest {
+
+    @Test
+    public void testRanks() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.setScore(1L, 10);
+        leaderboard.setScore(2L, 20);
+        leaderboard.setScore(3L, 10);
+        leaderboard.setScore(4L, 5);
+
+        assertThat(leaderboard.size()).isEqualTo(4);
+        assertThat(leaderboard.getRank(2L)).isEqualTo(1);
+        // Users with the same score share their rank
+        assertThat(leaderboard.getRank(1L)).isEqualTo(2);
+        assertThat(leaderboard.getRank(3L)).isEqualTo(2);
+        assertThat(leaderboard.getRank(4L)).isEqualTo(4);
+        assertThat(leaderboard.getRank(5L)).isNull();
+        assertThat(leaderboard.getScore(5L)).isNull();
+    }
+
+    @Test
+    public void testTop() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.setScore(3L, 10);
+        leaderboard.setScore(1L, 10);
+        leaderboard.setScore(2L, 20);
+        leaderboard.setScore(4L, 5);
+
+        List<Leaderboard.Rank> top = leaderboard.getTop(3);
+        assertThat(top).extracting(Leaderboard.Rank::getUserId).containsExactly(2L, 1L, 3L);
+        assertThat(top).extracting(Leaderboard.Rank::getScore).containsExactly(20, 10, 10);
+        assertThat(top).extracting(Leaderboard.Rank::getRank).containsExactly(1, 2, 2);
+        assertThat(leaderboard.getTop(10)).hasSize(4);
+    }
+
+    @Test
+    public void testScoreChanges() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.setScore(1L, 10);
+        leaderboard.setScore(2L, 20);
+
+        leaderboard.setScore(1L, 30);
+        assertThat(leaderboard.getRank(1L)).isEqualTo(1);
+        assertThat(leaderboard.getRank(2L)).isEqualTo(2);
+
+        leaderboard.setScore(1L, 30);
+        assertThat(leaderboard.size()).isEqualTo(2);
+
+        leaderboard.setScore(1L, null);
+        assertThat(leaderboard.size()).isEqualTo(1);
+        assertThat(leaderboard.getRank(1L)).isNull();
+        assertThat(leaderboard.getRank(2L)).isEqualTo(1);
+        assertThat(leaderboard.getTop(10)).extracting(Leaderboard.Rank::getUserId).containsExactly(2L);
+    }
+
+    @Test
+    public void testHighScoresGrowTheTree() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.setScore(1L, 10);
+        leaderboard.setScore(2L, 1000);
+        leaderboard.setScore(3L, 100000);
+
+        assertThat(leaderboard.getRank(3L)).isEqualTo(1);
+        assertThat(leaderboard.getRank(2L)).isEqualTo(2);
+        assertThat(leaderboard.getRank(1L)).isEqualTo(3);
+
+        leaderboard.setScore(3L, 5);
+        assertThat(leaderboard.getRank(3L)).isEqualTo(3);
+        assertThat(leaderboard.getRank(1L)).isEqualTo(2);
+    }
+
+    @Test
+    public void testNegativeScoresRankLast() {
+        Leaderboard leaderboard = new Leaderboard();
+        leaderboard.setScore(1L, -2);
+        leaderboard.setScore(2L, 0);
+        leaderboard.setScore(3L, 1);
+
+        assertThat(leaderboard.getRank(3L)).isEqualTo(1);
+        assertThat(leaderboard.getRank(2L)).isEqualTo(2);
+        assertThat(leaderboard.getRank(1L)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,118 @@
+package com.smbsoft.health.service.util;
+
+import com.smbsoft.health.service.dto.TrendDTO;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+/**
+ * Test class for the TrendCalculator utility class.
+ *
+ * @see TrendCalculator
+ */
+public class TrendCalculatorUnitTest {
+
+    @Test
+    public void testRollingMeansAndSlope() {
+        TrendCalculator calculator = new TrendCalculator(3);
+        calculator.add(100, 1);
+        calculator.add(101, 2);
+        calculator.add(102, 3);
+        calculator.add(103, 4);
+        calculator.add(110, 10);
+
+        TrendDTO.Series series = calculator.toSeries("weight");
+        assertThat(calculator.getDays()).containsExactly(100, 101, 102, 103, 110);
+        assertThat(series.getName()).isEqualTo("weight");
+        assertThat(series.getValues()).containsExactly(1, 2, 3, 4, 10);
+        // The window of the last reading holds only itself
+        assertThat(series.getMeans()).containsExactly(new double[]{1, 1.5, 2, 3, 10}, offset(1e-9));
+        assertThat(series.getSlopePerDay()).isCloseTo(0.8917, offset(1e-4));
+        assertThat(series.getOutliers()).isEmpty();
+    }
+
+    @Test
+    public void testSeveralReadingsOnTheSameDay() {
+        TrendCalculator calculator = new TrendCalculator(1);
+        calculator.add(100, 80);
+        calculator.add(100, 82);
+        calculator.add(101, 90);
+
+        TrendDTO.Series series = calculator.toSeries("weight");
+        assertThat(series.getMeans()).containsExactly(new double[]{80, 81, 90}, offset(1e-9));
+        assertThat(series.getSlopePerDay()).isCloseTo(9, offset(1e-9));
+    }
+
+    @Test
+    public void testOutliers() {
+        TrendCalculator calculator = new TrendCalculator(7);
+        calculator.add(0, 80);
+        calculator.add(1, 80.5);
+        calculator.add(2, 79.5);
+        calculator.add(3, 80);
+        calculator.add(4, 90);
+        calculator.add(5, 80);
+
+        assertThat(calculator.toSeries("weight").getOutliers()).containsExactly(4);
+    }
+
+    @Test
+    public void testOutliersAfterEqualReadings() {
+        TrendCalculator calculator = new TrendCalculator(7);
+        calculator.add(0, 70);
+        calculator.add(1, 70);
+        calculator.add(2, 70);
+        calculator.add(3, 90);
+
+        // A small change from equal readings is not an outlier
+        TrendCalculator stable = new TrendCalculator(7);
+        stable.add(0, 70);
+        stable.add(1, 70);
+        stable.add(2, 70);
+        stable.add(3, 70.5);
+
+        assertThat(calculator.toSeries("weight").getOutliers()).containsExactly(3);
+        assertThat(stable.toSeries("weight").getOutliers()).isEmpty();
+    }
+
+    @Test
+    public void testNoOutlierWithoutEnoughReadings() {
+        TrendCalculator calculator = new TrendCalculator(7);
+        calculator.add(0, 80);
+        calculator.add(1, 80.5);
+        calculator.add(2, 120);
+
+        assertThat(calculator.toSeries("weight").getOutliers()).isEmpty();
+    }
+
+    @Test
+    public void testNoSlopeOnASingleDay() {
+        TrendCalculator calculator = new TrendCalculator(7);
+        assertThat(calculator.toSeries("weight").getSlopePerDay()).isNull();
+        calculator.add(0, 80);
+        calculator.add(0, 81);
+
+        assertThat(calculator.size()).isEqualTo(2);
+        assertThat(calculator.toSeries("weight").getSlopePerDay()).isNull();
+    }
+
+    @Test
+    public void testGrowsPastTheInitialCapacity() {
+        TrendCalculator calculator = new TrendCalculator(7);
+        for (int day = 0; day < 1000; day++) {
+            calculator.add(day, 2 * day);
+        }
+
+        TrendDTO.Series series = calculator.toSeries("weight");
+        assertThat(series.getValues()).hasSize(1000);
+        assertThat(series.getMeans()[999]).isCloseTo(1992, offset(1e-9));
+        assertThat(series.getSlopePerDay()).isCloseTo(2, offset(1e-9));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWindowOfAtLeastOneDay() {
+        new TrendCalculator(0);
+    }
+}
@@ -3,8 +3,14 @@ package com.smbsoft.health.web.rest;
 import com.smbsoft.health.Application;
 
 import com.smbsoft.health.domain.BloodPressure;
+import com.smbsoft.health.domain.User;
 import com.smbsoft.health.repository.BloodPressureRepository;
+import com.smbsoft.health.repository.UserRepository;
 import com.smbsoft.health.repository.search.BloodPressureSearchRepository;
+import com.smbsoft.health.service.BulkImportService;
+import com.smbsoft.health.service.ChartService;
+import com.smbsoft.health.service.BloodPressureService;
+import com.smbsoft.health.service.UserQueryCache;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -13,19 +19,24 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -54,6 +65,21 @@ public class BloodPressureResourceIntTest {
     @Autowired
     private BloodPressureSearchRepository bloodPressureSearchRepository;
 
+    @Autowired
+    private BloodPressureService bloodPressureService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserQueryCache userQueryCache;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private ChartService chartService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -70,7 +96,7 @@ public class BloodPressureResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-            BloodPressureResource bloodPressureResource = new BloodPressureResource(bloodPressureRepository, bloodPressureSearchRepository);
+            BloodPressureResource bloodPressureResource = new BloodPressureResource(bloodPressureRepository, bloodPressureSearchRepository, bloodPressureService, userRepository, userQueryCache, bulkImportService, chartService);
         this.restBloodPressureMockMvc = MockMvcBuilders.standaloneSetup(bloodPressureResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setMessageConverters(jacksonMessageConverter).build();
@@ -157,6 +183,113 @@ public class BloodPressureResourceIntTest {
             .andExpect(jsonPath("$.[*].diastolic").value(hasItem(DEFAULT_DIASTOLIC)));
     }
 
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllBloodPressureInDateRange() throws Exception {
+        // Initialize the database: two entries of the current user in the range, one out of it, and one of another user
+        User user = userRepository.findOneByLogin("user").get();
+        BloodPressure first = bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        BloodPressure last = bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 19)).user(user));
+        bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 20)).user(user));
+        bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 14))
+            .user(userRepository.findOneByLogin("admin").get()));
+
+        // Get the bloodPressure of the current user in the range, most recent first
+        restBloodPressureMockMvc.perform(get("/api/blood-pressures?from=2017-02-13&to=2017-02-19"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(last.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(first.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllBloodPressureWithInvalidDateRange() throws Exception {
+        restBloodPressureMockMvc.perform(get("/api/blood-pressures?from=2017-02-19&to=2017-02-13"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getBloodPressuresPerWeek() throws Exception {
+        User user = userRepository.findOneByLogin("user").get();
+        bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).systolic(120).diastolic(80).user(user));
+        bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 19)).systolic(130).diastolic(90).user(user));
+        // A reading without a value is left out, rather than averaged as 0
+        bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 15)).systolic(null).diastolic(70).user(user));
+
+        restBloodPressureMockMvc.perform(get("/api/blood-pressures?resolution=week"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.dates").value(contains("2017-02-13")))
+            .andExpect(jsonPath("$.series.[0].name").value("systolic"))
+            .andExpect(jsonPath("$.series.[0].values").value(contains(125.0)))
+            .andExpect(jsonPath("$.series.[1].name").value("diastolic"))
+            .andExpect(jsonPath("$.series.[1].values").value(contains(85.0)));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getDownsampledBloodPressures() throws Exception {
+        // Initialize the database: a flat series with a drop of the diastolic pressure only
+        User user = userRepository.findOneByLogin("user").get();
+        for (int day = 0; day < 20; day++) {
+            bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 1, 1).plusDays(day))
+                .systolic(120).diastolic(day == 12 ? 60 : 80).user(user));
+        }
+
+        restBloodPressureMockMvc.perform(get("/api/blood-pressures?maxPoints=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.readings").value(20))
+            .andExpect(jsonPath("$.dates.length()").value(5))
+            .andExpect(jsonPath("$.dates").value(hasItem("2017-01-13")))
+            .andExpect(jsonPath("$.series.[1].values").value(hasItem(60.0)));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllBloodPressureAfterCursor() throws Exception {
+        // Initialize the database: two entries of the current user on the same day, one earlier, and one of another user
+        User user = userRepository.findOneByLogin("user").get();
+        BloodPressure first = bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        BloodPressure second = bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 19)).user(user));
+        BloodPressure third = bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 19)).user(user));
+        bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 14))
+            .user(userRepository.findOneByLogin("admin").get()));
+
+        // Get the first page, without a total count
+        MvcResult result = restBloodPressureMockMvc.perform(get("/api/blood-pressures?after=&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().intValue()))
+            .andReturn();
+
+        // Follow the next link to the last page
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        assertThat(link).endsWith("rel=\"next\"");
+        restBloodPressureMockMvc.perform(get(link.substring(1, link.indexOf('>'))))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllBloodPressureWithInvalidCursor() throws Exception {
+        restBloodPressureMockMvc.perform(get("/api/blood-pressures?after=not-a-cursor"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getBloodPressure() throws Exception {
@@ -256,8 +389,10 @@ public class BloodPressureResourceIntTest {
 
     @Test
     @Transactional
+    @WithMockUser("user")
     public void searchBloodPressure() throws Exception {
         // Initialize the database
+        bloodPressure.setUser(userRepository.findOneByLogin("user").get());
         bloodPressureRepository.saveAndFlush(bloodPressure);
         bloodPressureSearchRepository.save(bloodPressure);
 
@@ -271,6 +406,44 @@ public class BloodPressureResourceIntTest {
             .andExpect(jsonPath("$.[*].diastolic").value(hasItem(DEFAULT_DIASTOLIC)));
     }
 
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void searchBloodPressureOfCurrentUserInDateRange() throws Exception {
+        // Initialize the database: an entry of the current user in the range, one out of it, and one of another user
+        User user = userRepository.findOneByLogin("user").get();
+        BloodPressure inRange = bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        BloodPressure outOfRange = bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 20)).user(user));
+        BloodPressure otherUser = bloodPressureRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 14))
+            .user(userRepository.findOneByLogin("admin").get()));
+        bloodPressureSearchRepository.save(Arrays.asList(inRange, outOfRange, otherUser));
+
+        // Search the bloodPressure of the current user in the range
+        restBloodPressureMockMvc.perform(get("/api/_search/blood-pressures?query=*&from=2017-02-13&to=2017-02-19"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].id").value(contains(inRange.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void importBloodPressures() throws Exception {
+        int databaseSizeBeforeImport = bloodPressureRepository.findAll().size();
+
+        restBloodPressureMockMvc.perform(post("/api/blood-pressures/bulk")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content("[{\"date\":\"2017-02-13\",\"systolic\":120,\"diastolic\":80}," +
+                "{\"date\":\"2017-02-14\",\"systolic\":121,\"diastolic\":81}]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(2))
+            .andExpect(jsonPath("$.rows.[*].id").isNotEmpty());
+
+        List<BloodPressure> bloodPressureList = bloodPressureRepository.findAll();
+        assertThat(bloodPressureList).hasSize(databaseSizeBeforeImport + 2);
+        assertThat(bloodPressureList.get(bloodPressureList.size() - 1).getUser().getLogin()).isEqualTo("user");
+    }
+
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(BloodPressure.class);
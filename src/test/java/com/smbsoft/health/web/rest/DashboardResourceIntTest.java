@@ -0,0 +1,129 @@
+package com.smbsoft.health.web.rest;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.domain.BloodPressure;
+import com.smbsoft.health.domain.Points;
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.domain.UserSettings;
+import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.domain.enumeration.WeightUnits;
+import com.smbsoft.health.repository.BloodPressureRepository;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.repository.UserSettingsRepository;
+import com.smbsoft.health.repository.WeightRepository;
+import com.smbsoft.health.service.DashboardService;
+import com.smbsoft.health.service.PointsService;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the DashboardResource REST controller.
+ *
+ * @see DashboardResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+public class DashboardResourceIntTest {
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private PointsService pointsService;
+
+    @Autowired
+    private WeightRepository weightRepository;
+
+    @Autowired
+    private BloodPressureRepository bloodPressureRepository;
+
+    @Autowired
+    private UserSettingsRepository userSettingsRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    private MockMvc restDashboardMockMvc;
+
+    @Before
+    public void setup() {
+        DashboardResource dashboardResource = new DashboardResource(dashboardService);
+        this.restDashboardMockMvc = MockMvcBuilders.standaloneSetup(dashboardResource)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getDashboard() throws Exception {
+        // Initialize the database: points and weights in the range and before it, and a blood pressure before it
+        User user = userRepository.findOneByLogin("user").get();
+        LocalDate today = LocalDate.now();
+        UserSettings settings = new UserSettings().user(user);
+        settings.setWeeklyGoal(10);
+        settings.setWeightUnit(WeightUnits.kg);
+        userSettingsRepository.saveAndFlush(settings);
+        pointsService.save(new Points().date(today).exercise(1).meals(1).alcohol(1).user(user));
+        pointsService.save(new Points().date(today.minusDays(60)).exercise(1).meals(1).alcohol(1).user(user));
+        weightRepository.saveAndFlush(new Weight().date(today.minusDays(60)).weight(80).user(user));
+        weightRepository.saveAndFlush(new Weight().date(today.minusDays(10)).weight(81).user(user));
+        weightRepository.saveAndFlush(new Weight().date(today).weight(82).user(user));
+        bloodPressureRepository.saveAndFlush(new BloodPressure().date(today.minusDays(60))
+            .systolic(120).diastolic(80).user(user));
+
+        restDashboardMockMvc.perform(get("/api/dashboard?range=30d"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.from").value(today.minusDays(29).toString()))
+            .andExpect(jsonPath("$.to").value(today.toString()))
+            .andExpect(jsonPath("$.weeklyGoal").value(10))
+            .andExpect(jsonPath("$.weightUnit").value("kg"))
+            .andExpect(jsonPath("$.weeks.length()").value(1))
+            .andExpect(jsonPath("$.weeks.[0].points").value(3))
+            .andExpect(jsonPath("$.weeksGoalReached").value(0))
+            .andExpect(jsonPath("$.weights.length()").value(2))
+            .andExpect(jsonPath("$.weights.[0].weight").value(81))
+            .andExpect(jsonPath("$.latestWeight.weight").value(82))
+            .andExpect(jsonPath("$.bloodPressures").isEmpty())
+            .andExpect(jsonPath("$.latestBloodPressure.date").value(today.minusDays(60).toString()))
+            .andExpect(jsonPath("$.latestBloodPressure.systolic").value(120));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getDashboardWithoutData() throws Exception {
+        restDashboardMockMvc.perform(get("/api/dashboard"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.weeks").isEmpty())
+            .andExpect(jsonPath("$.latestWeight").doesNotExist())
+            .andExpect(jsonPath("$.latestBloodPressure").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getDashboardWithInvalidRange() throws Exception {
+        restDashboardMockMvc.perform(get("/api/dashboard?range=30x"))
+            .andExpect(status().isBadRequest());
+        restDashboardMockMvc.perform(get("/api/dashboard?range=3y"))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,98 @@
+package com.smbsoft.health.web.rest;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.service.ExportService;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the ExportResource REST controller.
+ *
+ * @see ExportResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+public class ExportResourceIntTest {
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private MockMvc restExportMockMvc;
+
+    @Before
+    public void setup() {
+        ExportResource exportResource = new ExportResource(exportService, userRepository);
+        this.restExportMockMvc = MockMvcBuilders.standaloneSetup(exportResource).build();
+    }
+
+    @Test
+    @WithMockUser("user")
+    public void exportCompressedCsv() throws Exception {
+        MvcResult result = restExportMockMvc.perform(get("/api/export?types=points,bp")
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andExpect(request().asyncStarted())
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"21points-export.csv\""))
+            .andReturn();
+
+        restExportMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk());
+        // The body is streamed to the response of the request
+        byte[] body = result.getResponse().getContentAsByteArray();
+        try (Scanner scanner = new Scanner(new GZIPInputStream(new ByteArrayInputStream(body)),
+            StandardCharsets.UTF_8.name())) {
+            assertThat(scanner.nextLine()).isEqualTo("type,id,date,exercise,meals,alcohol,notes,weight,unit,systolic,diastolic");
+        }
+    }
+
+    @Test
+    @WithMockUser("user")
+    public void exportNdjson() throws Exception {
+        MvcResult result = restExportMockMvc.perform(get("/api/export?format=ndjson"))
+            .andExpect(request().asyncStarted())
+            .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+            .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+            .andReturn();
+
+        restExportMockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser("user")
+    public void exportUnknownTypeIsRejected() throws Exception {
+        restExportMockMvc.perform(get("/api/export?types=points,steps"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser("user")
+    public void exportUnknownFormatIsRejected() throws Exception {
+        restExportMockMvc.perform(get("/api/export?format=xml"))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,152 @@
+package com.smbsoft.health.web.rest;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.config.ApplicationProperties;
+import com.smbsoft.health.domain.Points;
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.service.LeaderboardService;
+import com.smbsoft.health.service.PointsService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the LeaderboardResource REST controller.
+ * <p>
+ * The leaderboard is updated once the points are committed, so the test data is committed, and deleted afterwards.
+ * </p>
+ *
+ * @see LeaderboardResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+public class LeaderboardResourceIntTest {
+
+    private static final LocalDate WEEK_START = LocalDate.of(2017, 4, 3);
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+
+    @Autowired
+    private PointsService pointsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    private MockMvc restLeaderboardMockMvc;
+
+    private final List<Points> points = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        LeaderboardResource leaderboardResource = new LeaderboardResource(leaderboardService, applicationProperties);
+        this.restLeaderboardMockMvc = MockMvcBuilders.standaloneSetup(leaderboardResource)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @After
+    public void cleanup() {
+        points.forEach(saved -> pointsService.delete(saved.getId()));
+    }
+
+    @Test
+    @WithMockUser("user")
+    public void getLeaderboard() throws Exception {
+        User user = userRepository.findOneByLogin("user").get();
+        User admin = userRepository.findOneByLogin("admin").get();
+        Points userPoints = pointsService.save(new Points().date(WEEK_START).exercise(1).meals(1).alcohol(0).user(user));
+        points.add(userPoints);
+        points.add(pointsService.save(new Points().date(WEEK_START.plusDays(1)).exercise(1).meals(1).alcohol(1).user(admin)));
+        points.add(pointsService.save(new Points().date(WEEK_START.plusDays(2)).exercise(1).meals(0).alcohol(0).user(admin)));
+
+        restLeaderboardMockMvc.perform(get("/api/leaderboard?week=2017-04-05"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.week").value(WEEK_START.toString()))
+            .andExpect(jsonPath("$.users").value(2))
+            .andExpect(jsonPath("$.top.length()").value(2))
+            .andExpect(jsonPath("$.top.[0].login").value("admin"))
+            .andExpect(jsonPath("$.top.[0].points").value(4))
+            .andExpect(jsonPath("$.top.[0].rank").value(1))
+            .andExpect(jsonPath("$.top.[1].login").value("user"))
+            .andExpect(jsonPath("$.me.points").value(2))
+            .andExpect(jsonPath("$.me.rank").value(2));
+
+        // The loaded week is updated when the points change
+        points.add(pointsService.save(new Points().date(WEEK_START.plusDays(6)).exercise(1).meals(1).alcohol(1).user(user)));
+
+        restLeaderboardMockMvc.perform(get("/api/leaderboard?week=2017-04-03&top=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.users").value(2))
+            .andExpect(jsonPath("$.top.length()").value(1))
+            .andExpect(jsonPath("$.top.[0].login").value("user"))
+            .andExpect(jsonPath("$.top.[0].points").value(5))
+            .andExpect(jsonPath("$.me.rank").value(1));
+
+        pointsService.delete(userPoints.getId());
+        points.remove(userPoints);
+
+        restLeaderboardMockMvc.perform(get("/api/leaderboard?week=2017-04-09"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.users").value(2))
+            .andExpect(jsonPath("$.top.[0].login").value("admin"))
+            .andExpect(jsonPath("$.top.[1].points").value(3))
+            .andExpect(jsonPath("$.top.[1].rank").value(2));
+    }
+
+    @Test
+    @WithMockUser("user")
+    public void getLeaderboardWithoutPoints() throws Exception {
+        restLeaderboardMockMvc.perform(get("/api/leaderboard?week=2016-01-06"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.week").value("2016-01-04"))
+            .andExpect(jsonPath("$.users").value(0))
+            .andExpect(jsonPath("$.top").isEmpty())
+            .andExpect(jsonPath("$.me").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser("user")
+    public void getLeaderboardWithInvalidTop() throws Exception {
+        restLeaderboardMockMvc.perform(get("/api/leaderboard?top=0"))
+            .andExpect(status().isBadRequest());
+
+        restLeaderboardMockMvc.perform(get("/api/leaderboard?top=" + (applicationProperties.getLeaderboard().getMaxTop() + 1)))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser("user")
+    public void getLeaderboardOfAWeekToCome() throws Exception {
+        restLeaderboardMockMvc.perform(get("/api/leaderboard?week=" + LocalDate.now().plusWeeks(1)))
+            .andExpect(status().isBadRequest());
+
+        // The rest of the current week is accepted
+        restLeaderboardMockMvc.perform(get("/api/leaderboard?week=" + LocalDate.now().with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY))))
+            .andExpect(status().isOk());
+    }
+}
@@ -3,8 +3,12 @@ package com.smbsoft.health.web.rest;
 import com.smbsoft.health.Application;
 
 import com.smbsoft.health.domain.Points;
+import com.smbsoft.health.domain.User;
 import com.smbsoft.health.repository.PointsRepository;
+import com.smbsoft.health.repository.UserRepository;
 import com.smbsoft.health.repository.search.PointsSearchRepository;
+import com.smbsoft.health.service.BulkImportService;
+import com.smbsoft.health.service.PointsService;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -13,20 +17,26 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -60,6 +70,15 @@ public class PointsResourceIntTest {
     @Autowired
     private PointsSearchRepository pointsSearchRepository;
 
+    @Autowired
+    private PointsService pointsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -76,7 +95,7 @@ public class PointsResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-            PointsResource pointsResource = new PointsResource(pointsRepository, pointsSearchRepository);
+            PointsResource pointsResource = new PointsResource(pointsService, bulkImportService);
         this.restPointsMockMvc = MockMvcBuilders.standaloneSetup(pointsResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setMessageConverters(jacksonMessageConverter).build();
@@ -169,6 +188,75 @@ public class PointsResourceIntTest {
             .andExpect(jsonPath("$.[*].notes").value(hasItem(DEFAULT_NOTES.toString())));
     }
 
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllPointsInDateRange() throws Exception {
+        // Initialize the database: two entries of the current user in the range, one out of it, and one of another user
+        User user = userRepository.findOneByLogin("user").get();
+        Points first = pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        Points last = pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 19)).user(user));
+        pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 20)).user(user));
+        pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 14))
+            .user(userRepository.findOneByLogin("admin").get()));
+
+        // Get the points of the current user in the range, most recent first
+        restPointsMockMvc.perform(get("/api/points?from=2017-02-13&to=2017-02-19"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(last.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(first.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllPointsWithInvalidDateRange() throws Exception {
+        restPointsMockMvc.perform(get("/api/points?from=2017-02-19&to=2017-02-13"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllPointsAfterCursor() throws Exception {
+        // Initialize the database: two entries of the current user on the same day, one earlier, and one of another user
+        User user = userRepository.findOneByLogin("user").get();
+        Points first = pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        Points second = pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 19)).user(user));
+        Points third = pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 19)).user(user));
+        pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 14))
+            .user(userRepository.findOneByLogin("admin").get()));
+
+        // Get the first page, without a total count
+        MvcResult result = restPointsMockMvc.perform(get("/api/points?after=&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().intValue()))
+            .andReturn();
+
+        // Follow the next link to the last page
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        assertThat(link).endsWith("rel=\"next\"");
+        restPointsMockMvc.perform(get(link.substring(1, link.indexOf('>'))))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllPointsWithInvalidCursor() throws Exception {
+        restPointsMockMvc.perform(get("/api/points?after=not-a-cursor"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getPoints() throws Exception {
@@ -274,8 +362,10 @@ public class PointsResourceIntTest {
 
     @Test
     @Transactional
+    @WithMockUser("user")
     public void searchPoints() throws Exception {
         // Initialize the database
+        points.setUser(userRepository.findOneByLogin("user").get());
         pointsRepository.saveAndFlush(points);
         pointsSearchRepository.save(points);
 
@@ -291,6 +381,161 @@ public class PointsResourceIntTest {
             .andExpect(jsonPath("$.[*].notes").value(hasItem(DEFAULT_NOTES.toString())));
     }
 
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getPointsByWeek() throws Exception {
+        // Initialize the database: two entries in the same ISO week, one the week after, and one of another user
+        User user = userRepository.findOneByLogin("user").get();
+        pointsService.save(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        pointsService.save(createEntity(em).date(LocalDate.of(2017, 2, 19)).user(user));
+        pointsService.save(createEntity(em).date(LocalDate.of(2017, 2, 20)).user(user));
+        pointsService.save(createEntity(em).date(LocalDate.of(2017, 2, 14))
+            .user(userRepository.findOneByLogin("admin").get()));
+
+        // Get the weekly totals
+        restPointsMockMvc.perform(get("/api/points-by-week?from=2017-02-15&to=2017-02-20"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].start").value("2017-02-13"))
+            .andExpect(jsonPath("$.[0].exercise").value(2 * DEFAULT_EXERCISE))
+            .andExpect(jsonPath("$.[0].points").value(2 * (DEFAULT_EXERCISE + DEFAULT_MEALS + DEFAULT_ALCOHOL)))
+            .andExpect(jsonPath("$.[1].start").value("2017-02-20"))
+            .andExpect(jsonPath("$.[1].points").value(DEFAULT_EXERCISE + DEFAULT_MEALS + DEFAULT_ALCOHOL));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void updateAndDeletePointsMaintainsWeeklySummary() throws Exception {
+        // Initialize the database
+        User user = userRepository.findOneByLogin("user").get();
+        Points first = pointsService.save(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        Points second = pointsService.save(createEntity(em).date(LocalDate.of(2017, 2, 14)).user(user));
+
+        // Update the first points within its week, and move the second one to the next week
+        em.detach(first);
+        first.exercise(UPDATED_EXERCISE);
+        restPointsMockMvc.perform(put("/api/points")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(first)))
+            .andExpect(status().isOk());
+        em.detach(second);
+        second.date(LocalDate.of(2017, 2, 21));
+        restPointsMockMvc.perform(put("/api/points")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(second)))
+            .andExpect(status().isOk());
+
+        restPointsMockMvc.perform(get("/api/points-by-week?from=2017-02-13&to=2017-02-26"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].start").value("2017-02-13"))
+            .andExpect(jsonPath("$.[0].exercise").value(UPDATED_EXERCISE))
+            .andExpect(jsonPath("$.[1].start").value("2017-02-20"))
+            .andExpect(jsonPath("$.[1].exercise").value(DEFAULT_EXERCISE));
+
+        // Delete the first points: its week must disappear from the rollup
+        restPointsMockMvc.perform(delete("/api/points/{id}", first.getId())
+            .accept(TestUtil.APPLICATION_JSON_UTF8))
+            .andExpect(status().isOk());
+
+        restPointsMockMvc.perform(get("/api/points-by-week?from=2017-02-13&to=2017-02-26"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].start").value("2017-02-20"));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void rebuildWeeklySummaries() throws Exception {
+        // Initialize the database without going through the service, so that the rollup is out of date
+        User user = userRepository.findOneByLogin("user").get();
+        pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 15)).user(user));
+
+        assertThat(pointsService.getPointsByWeek("user", LocalDate.of(2017, 2, 13), LocalDate.of(2017, 2, 19))).isEmpty();
+        pointsService.rebuildWeeklySummaries();
+
+        restPointsMockMvc.perform(get("/api/points-by-week?from=2017-02-13&to=2017-02-19"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].alcohol").value(2 * DEFAULT_ALCOHOL));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getPointsByMonth() throws Exception {
+        // Initialize the database
+        User user = userRepository.findOneByLogin("user").get();
+        pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 1, 31)).user(user));
+        pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 1)).user(user));
+        pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 28)).user(user));
+
+        // Get the monthly totals
+        restPointsMockMvc.perform(get("/api/points-by-month?from=2017-01-01&to=2017-02-28"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].start").value("2017-01-01"))
+            .andExpect(jsonPath("$.[0].meals").value(DEFAULT_MEALS))
+            .andExpect(jsonPath("$.[1].start").value("2017-02-01"))
+            .andExpect(jsonPath("$.[1].meals").value(2 * DEFAULT_MEALS));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getPointsByWeekWithInvalidRange() throws Exception {
+        restPointsMockMvc.perform(get("/api/points-by-week?from=2017-02-20&to=2017-02-13"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void searchPointsOfCurrentUserInDateRange() throws Exception {
+        // Initialize the database: an entry of the current user in the range, one out of it, and one of another user
+        User user = userRepository.findOneByLogin("user").get();
+        Points inRange = pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        Points outOfRange = pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 20)).user(user));
+        Points otherUser = pointsRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 14))
+            .user(userRepository.findOneByLogin("admin").get()));
+        pointsSearchRepository.save(Arrays.asList(inRange, outOfRange, otherUser));
+
+        // Search the points of the current user in the range
+        restPointsMockMvc.perform(get("/api/_search/points?query=*&from=2017-02-13&to=2017-02-19"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].id").value(contains(inRange.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void importPointsUpdatesTheWeeklySummary() throws Exception {
+        // Import two points of the same week, and one with notes which are too long, which is rejected
+        restPointsMockMvc.perform(post("/api/points/bulk")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content("[{\"date\":\"2017-02-13\",\"exercise\":1,\"meals\":1,\"alcohol\":1}," +
+                "{\"date\":\"2017-02-14\",\"exercise\":1,\"notes\":\"" + new String(new char[141]).replace('\0', 'x') + "\"}," +
+                "{\"date\":\"2017-02-15\",\"exercise\":1,\"meals\":0,\"alcohol\":1}]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(2))
+            .andExpect(jsonPath("$.rejected").value(1))
+            .andExpect(jsonPath("$.rows.[1].errors.[0]").value(startsWith("notes")));
+
+        restPointsMockMvc.perform(get("/api/points-by-week?from=2017-02-13&to=2017-02-19"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].exercise").value(2))
+            .andExpect(jsonPath("$.[0].meals").value(1))
+            .andExpect(jsonPath("$.[0].alcohol").value(2));
+    }
+
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(Points.class);
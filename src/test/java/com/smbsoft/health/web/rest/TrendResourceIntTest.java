@@ -0,0 +1,161 @@
+package com.smbsoft.health.web.rest;
+
+import com.smbsoft.health.Application;
+import com.smbsoft.health.domain.BloodPressure;
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.repository.BloodPressureRepository;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.repository.WeightRepository;
+import com.smbsoft.health.service.TrendService;
+import com.smbsoft.health.service.WeightService;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the TrendResource REST controller.
+ *
+ * @see TrendResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+public class TrendResourceIntTest {
+
+    @Autowired
+    private TrendService trendService;
+
+    @Autowired
+    private WeightService weightService;
+
+    @Autowired
+    private WeightRepository weightRepository;
+
+    @Autowired
+    private BloodPressureRepository bloodPressureRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    private MockMvc restTrendMockMvc;
+
+    @Before
+    public void setup() {
+        TrendResource trendResource = new TrendResource(trendService, weightService);
+        this.restTrendMockMvc = MockMvcBuilders.standaloneSetup(trendResource)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getWeightTrend() throws Exception {
+        // Initialize the database
+        User user = userRepository.findOneByLogin("user").get();
+        LocalDate today = LocalDate.now();
+        weightRepository.saveAndFlush(new Weight().date(today.minusDays(2)).weight(80).user(user));
+        weightRepository.saveAndFlush(new Weight().date(today.minusDays(1)).weight(82).user(user));
+
+        restTrendMockMvc.perform(get("/api/weights/trend?window=2d"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.windowDays").value(2))
+            .andExpect(jsonPath("$.dates.length()").value(2))
+            .andExpect(jsonPath("$.dates.[1]").value(today.minusDays(1).toString()))
+            .andExpect(jsonPath("$.series.[0].name").value("weight"))
+            .andExpect(jsonPath("$.series.[0].means.[1]").value(81.0))
+            .andExpect(jsonPath("$.series.[0].slopePerDay").value(2.0));
+
+        // Adding a weight invalidates the cached trend
+        weightRepository.saveAndFlush(new Weight().date(today).weight(84).user(user));
+
+        restTrendMockMvc.perform(get("/api/weights/trend?window=2d"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.dates.length()").value(3))
+            .andExpect(jsonPath("$.series.[0].means.[2]").value(83.0));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getWeightTrendWithoutWeights() throws Exception {
+        restTrendMockMvc.perform(get("/api/weights/trend"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.windowDays").value(7))
+            .andExpect(jsonPath("$.dates").isEmpty())
+            .andExpect(jsonPath("$.series.[0].values").isEmpty())
+            .andExpect(jsonPath("$.series.[0].slopePerDay").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getBloodPressureTrend() throws Exception {
+        // Initialize the database
+        User user = userRepository.findOneByLogin("user").get();
+        LocalDate today = LocalDate.now();
+        bloodPressureRepository.saveAndFlush(new BloodPressure().date(today.minusDays(7)).systolic(130).diastolic(85).user(user));
+        bloodPressureRepository.saveAndFlush(new BloodPressure().date(today).systolic(120).diastolic(80).user(user));
+
+        restTrendMockMvc.perform(get("/api/blood-pressures/trend?window=1w"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.windowDays").value(7))
+            .andExpect(jsonPath("$.series.length()").value(2))
+            .andExpect(jsonPath("$.series.[0].name").value("systolic"))
+            .andExpect(jsonPath("$.series.[0].means.[1]").value(120.0))
+            .andExpect(jsonPath("$.series.[1].name").value("diastolic"))
+            .andExpect(jsonPath("$.series.[1].values.[0]").value(85.0));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getTrendsWithoutDatesOrValues() throws Exception {
+        // Initialize the database
+        User user = userRepository.findOneByLogin("user").get();
+        LocalDate today = LocalDate.now();
+        weightRepository.saveAndFlush(new Weight().date(today).weight(80).user(user));
+        weightRepository.saveAndFlush(new Weight().weight(90).user(user));
+        bloodPressureRepository.saveAndFlush(new BloodPressure().date(today).systolic(120).diastolic(80).user(user));
+        bloodPressureRepository.saveAndFlush(new BloodPressure().systolic(140).diastolic(90).user(user));
+        bloodPressureRepository.saveAndFlush(new BloodPressure().date(today).diastolic(70).user(user));
+
+        // The readings without a date or a value are left out
+        restTrendMockMvc.perform(get("/api/weights/trend"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.dates.length()").value(1))
+            .andExpect(jsonPath("$.series.[0].values.[0]").value(80.0));
+
+        restTrendMockMvc.perform(get("/api/blood-pressures/trend"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.dates.length()").value(1))
+            .andExpect(jsonPath("$.series.[0].means.[0]").value(120.0))
+            .andExpect(jsonPath("$.series.[1].means.[0]").value(80.0));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getTrendWithInvalidWindow() throws Exception {
+        restTrendMockMvc.perform(get("/api/weights/trend?window=7x"))
+            .andExpect(status().isBadRequest());
+        restTrendMockMvc.perform(get("/api/blood-pressures/trend?window=1m"))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -3,8 +3,10 @@ package com.smbsoft.health.web.rest;
 import com.smbsoft.health.Application;
 
 import com.smbsoft.health.domain.UserSettings;
+import com.smbsoft.health.repository.UserRepository;
 import com.smbsoft.health.repository.UserSettingsRepository;
 import com.smbsoft.health.repository.search.UserSettingsSearchRepository;
+import com.smbsoft.health.service.UserSettingsService;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -15,6 +17,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -50,6 +53,12 @@ public class UserSettingsResourceIntTest {
     @Autowired
     private UserSettingsSearchRepository userSettingsSearchRepository;
 
+    @Autowired
+    private UserSettingsService userSettingsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -66,7 +75,7 @@ public class UserSettingsResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-            UserSettingsResource userSettingsResource = new UserSettingsResource(userSettingsRepository, userSettingsSearchRepository);
+            UserSettingsResource userSettingsResource = new UserSettingsResource(userSettingsRepository, userSettingsSearchRepository, userSettingsService, userRepository);
         this.restUserSettingsMockMvc = MockMvcBuilders.standaloneSetup(userSettingsResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setMessageConverters(jacksonMessageConverter).build();
@@ -246,8 +255,10 @@ public class UserSettingsResourceIntTest {
 
     @Test
     @Transactional
+    @WithMockUser("user")
     public void searchUserSettings() throws Exception {
         // Initialize the database
+        userSettings.setUser(userRepository.findOneByLogin("user").get());
         userSettingsRepository.saveAndFlush(userSettings);
         userSettingsSearchRepository.save(userSettings);
 
@@ -260,6 +271,21 @@ public class UserSettingsResourceIntTest {
             .andExpect(jsonPath("$.[*].weightUnit").value(hasItem(DEFAULT_WEIGHT_UNIT.toString())));
     }
 
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void searchUserSettingsOfCurrentUser() throws Exception {
+        // Initialize the database: the settings of another user
+        userSettings.setUser(userRepository.findOneByLogin("admin").get());
+        userSettingsRepository.saveAndFlush(userSettings);
+        userSettingsSearchRepository.save(userSettings);
+
+        // They are not found by the current user
+        restUserSettingsMockMvc.perform(get("/api/_search/user-settings?query=id:" + userSettings.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "0"));
+    }
+
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(UserSettings.class);
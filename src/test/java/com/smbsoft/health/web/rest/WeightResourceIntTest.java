@@ -3,8 +3,19 @@ package com.smbsoft.health.web.rest;
 import com.smbsoft.health.Application;
 
 import com.smbsoft.health.domain.Weight;
+import com.smbsoft.health.domain.User;
+import com.smbsoft.health.domain.UserSettings;
+import com.smbsoft.health.domain.enumeration.WeightUnits;
 import com.smbsoft.health.repository.WeightRepository;
+import com.smbsoft.health.repository.UserRepository;
+import com.smbsoft.health.repository.UserSettingsRepository;
 import com.smbsoft.health.repository.search.WeightSearchRepository;
+import com.smbsoft.health.service.BulkImportService;
+import com.smbsoft.health.service.ChartService;
+import com.smbsoft.health.service.UserQueryCache;
+import com.smbsoft.health.service.WeightService;
+
+import com.codahale.metrics.MetricRegistry;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -13,19 +24,25 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -51,6 +68,27 @@ public class WeightResourceIntTest {
     @Autowired
     private WeightSearchRepository weightSearchRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserQueryCache userQueryCache;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private ChartService chartService;
+
+    @Autowired
+    private WeightService weightService;
+
+    @Autowired
+    private UserSettingsRepository userSettingsRepository;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -67,7 +105,7 @@ public class WeightResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-            WeightResource weightResource = new WeightResource(weightRepository, weightSearchRepository);
+            WeightResource weightResource = new WeightResource(weightRepository, weightSearchRepository, userRepository, userQueryCache, bulkImportService, chartService, weightService);
         this.restWeightMockMvc = MockMvcBuilders.standaloneSetup(weightResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setMessageConverters(jacksonMessageConverter).build();
@@ -110,6 +148,8 @@ public class WeightResourceIntTest {
         Weight testWeight = weightList.get(weightList.size() - 1);
         assertThat(testWeight.getDate()).isEqualTo(DEFAULT_DATE);
         assertThat(testWeight.getWeight()).isEqualTo(DEFAULT_WEIGHT);
+        assertThat(testWeight.getUnit()).isEqualTo(WeightUnits.kg);
+        assertThat(testWeight.getGrams()).isEqualTo(DEFAULT_WEIGHT * 1000L);
 
         // Validate the Weight in Elasticsearch
         Weight weightEs = weightSearchRepository.findOne(testWeight.getId());
@@ -151,6 +191,271 @@ public class WeightResourceIntTest {
             .andExpect(jsonPath("$.[*].weight").value(hasItem(DEFAULT_WEIGHT)));
     }
 
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllWeightInDateRange() throws Exception {
+        // Initialize the database: two entries of the current user in the range, one out of it, and one of another user
+        User user = userRepository.findOneByLogin("user").get();
+        Weight first = weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        Weight last = weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 19)).user(user));
+        weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 20)).user(user));
+        weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 14))
+            .user(userRepository.findOneByLogin("admin").get()));
+
+        // Get the weight of the current user in the range, most recent first
+        restWeightMockMvc.perform(get("/api/weights?from=2017-02-13&to=2017-02-19"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(last.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(first.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllWeightInDateRangeIsCachedUntilTheUserChangesIt() throws Exception {
+        User user = userRepository.findOneByLogin("user").get();
+        weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        long hits = metricRegistry.meter(MetricRegistry.name(UserQueryCache.class, "hits")).getCount();
+
+        restWeightMockMvc.perform(get("/api/weights?from=2017-02-13&to=2017-02-19"))
+            .andExpect(header().string("X-Total-Count", "1"));
+
+        // A change of another user keeps the cached page
+        weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 14))
+            .user(userRepository.findOneByLogin("admin").get()));
+        restWeightMockMvc.perform(get("/api/weights?from=2017-02-13&to=2017-02-19"))
+            .andExpect(header().string("X-Total-Count", "1"));
+        assertThat(metricRegistry.meter(MetricRegistry.name(UserQueryCache.class, "hits")).getCount())
+            .isEqualTo(hits + 1);
+
+        // A change of the user invalidates it
+        Weight added = weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 15)).user(user));
+        restWeightMockMvc.perform(get("/api/weights?from=2017-02-13&to=2017-02-19"))
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[0].id").value(added.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllWeightWithInvalidDateRange() throws Exception {
+        restWeightMockMvc.perform(get("/api/weights?from=2017-02-19&to=2017-02-13"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void createWeightInTheWeightUnitOfTheUser() throws Exception {
+        User user = userRepository.findOneByLogin("user").get();
+        UserSettings settings = new UserSettings().user(user);
+        settings.setWeightUnit(WeightUnits.lb);
+        userSettingsRepository.saveAndFlush(settings);
+
+        restWeightMockMvc.perform(post("/api/weights")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(createEntity(em).weight(176).user(user))))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.unit").value("lb"))
+            .andExpect(jsonPath("$.grams").value(79832));
+
+        // A unit given with the weight is kept
+        restWeightMockMvc.perform(post("/api/weights")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(createEntity(em).weight(80).unit(WeightUnits.kg).user(user))))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.unit").value("kg"))
+            .andExpect(jsonPath("$.grams").value(80000));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getWeightsInTheUnitRequested() throws Exception {
+        // Initialize the database: weights in two units
+        User user = userRepository.findOneByLogin("user").get();
+        weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).weight(80).unit(WeightUnits.kg).user(user));
+        weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 14)).weight(178).unit(WeightUnits.lb).user(user));
+        em.clear();
+
+        restWeightMockMvc.perform(get("/api/weights?from=2017-02-13&to=2017-02-14&unit=lb"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].unit").value(contains("lb", "kg")))
+            .andExpect(jsonPath("$.[*].weight").value(contains(178, 80)))
+            .andExpect(jsonPath("$.[*].displayUnit").value(contains("lb", "lb")))
+            .andExpect(jsonPath("$.[0].displayWeight").value(178.0))
+            .andExpect(jsonPath("$.[1].displayWeight").value(closeTo(176.37, 0.01)));
+        em.clear();
+
+        restWeightMockMvc.perform(get("/api/weights?resolution=month&unit=g"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.unit").value("g"))
+            .andExpect(jsonPath("$.series.[0].values").value(contains((80000 + 80739) / 2.0)));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getWeightsInTheWeightUnitOfTheUser() throws Exception {
+        User user = userRepository.findOneByLogin("user").get();
+        UserSettings settings = new UserSettings().user(user);
+        settings.setWeightUnit(WeightUnits.lb);
+        userSettingsRepository.saveAndFlush(settings);
+        Weight saved = weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).weight(80).unit(WeightUnits.kg).user(user));
+        em.clear();
+
+        restWeightMockMvc.perform(get("/api/weights/{id}", saved.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.weight").value(80))
+            .andExpect(jsonPath("$.unit").value("kg"))
+            .andExpect(jsonPath("$.grams").value(80000))
+            .andExpect(jsonPath("$.displayWeight").value(closeTo(176.37, 0.01)))
+            .andExpect(jsonPath("$.displayUnit").value("lb"));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void updateWeightReadInAnotherUnit() throws Exception {
+        User user = userRepository.findOneByLogin("user").get();
+        UserSettings settings = new UserSettings().user(user);
+        settings.setWeightUnit(WeightUnits.lb);
+        userSettingsRepository.saveAndFlush(settings);
+        Weight saved = weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).weight(70).unit(WeightUnits.kg).user(user));
+        em.clear();
+
+        // The weight read is sent back as it is
+        byte[] read = restWeightMockMvc.perform(get("/api/weights/{id}", saved.getId()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsByteArray();
+        restWeightMockMvc.perform(put("/api/weights")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(read))
+            .andExpect(status().isOk());
+        em.flush();
+        em.clear();
+
+        Weight updated = weightRepository.findOne(saved.getId());
+        assertThat(updated.getWeight()).isEqualTo(70);
+        assertThat(updated.getUnit()).isEqualTo(WeightUnits.kg);
+        assertThat(updated.getGrams()).isEqualTo(70000);
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getWeightsWithInvalidUnit() throws Exception {
+        restWeightMockMvc.perform(get("/api/weights?from=2017-02-13&unit=stone"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getWeightsPerWeekAndMonth() throws Exception {
+        // Initialize the database: two weeks of entries of the current user, and one of another user
+        User user = userRepository.findOneByLogin("user").get();
+        weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).weight(80).user(user));
+        weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 15)).weight(82).user(user));
+        weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 20)).weight(84).user(user));
+        weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 14)).weight(100)
+            .user(userRepository.findOneByLogin("admin").get()));
+
+        restWeightMockMvc.perform(get("/api/weights?resolution=week&from=2017-02-01&to=2017-02-28"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.resolution").value("week"))
+            .andExpect(jsonPath("$.readings").value(3))
+            .andExpect(jsonPath("$.dates").value(contains("2017-02-13", "2017-02-20")))
+            .andExpect(jsonPath("$.series.[0].name").value("weight"))
+            .andExpect(jsonPath("$.series.[0].values").value(contains(81.0, 84.0)));
+
+        restWeightMockMvc.perform(get("/api/weights?resolution=month"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.dates").value(contains("2017-02-01")))
+            .andExpect(jsonPath("$.series.[0].values").value(contains(82.0)));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getDownsampledWeights() throws Exception {
+        // Initialize the database: a flat series with a peak
+        User user = userRepository.findOneByLogin("user").get();
+        for (int day = 0; day < 20; day++) {
+            weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 1, 1).plusDays(day))
+                .weight(day == 8 ? 90 : 80).user(user));
+        }
+
+        restWeightMockMvc.perform(get("/api/weights?maxPoints=5"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.resolution").value("points"))
+            .andExpect(jsonPath("$.readings").value(20))
+            .andExpect(jsonPath("$.dates.length()").value(5))
+            .andExpect(jsonPath("$.dates.[0]").value("2017-01-01"))
+            .andExpect(jsonPath("$.dates.[4]").value("2017-01-20"))
+            .andExpect(jsonPath("$.dates").value(hasItem("2017-01-09")))
+            .andExpect(jsonPath("$.series.[0].values").value(hasItem(90.0)));
+
+        restWeightMockMvc.perform(get("/api/weights?maxPoints=200"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.dates.length()").value(20));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getDownsampledWeightsWithInvalidParameters() throws Exception {
+        restWeightMockMvc.perform(get("/api/weights?resolution=day"))
+            .andExpect(status().isBadRequest());
+        restWeightMockMvc.perform(get("/api/weights?maxPoints=2"))
+            .andExpect(status().isBadRequest());
+        restWeightMockMvc.perform(get("/api/weights?resolution=week&from=2017-02-19&to=2017-02-13"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllWeightAfterCursor() throws Exception {
+        // Initialize the database: two entries of the current user on the same day, one earlier, and one of another user
+        User user = userRepository.findOneByLogin("user").get();
+        Weight first = weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        Weight second = weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 19)).user(user));
+        Weight third = weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 19)).user(user));
+        weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 14))
+            .user(userRepository.findOneByLogin("admin").get()));
+
+        // Get the first page, without a total count
+        MvcResult result = restWeightMockMvc.perform(get("/api/weights?after=&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].id").value(third.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(second.getId().intValue()))
+            .andReturn();
+
+        // Follow the next link to the last page
+        String link = result.getResponse().getHeader(HttpHeaders.LINK);
+        assertThat(link).endsWith("rel=\"next\"");
+        restWeightMockMvc.perform(get(link.substring(1, link.indexOf('>'))))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(HttpHeaders.LINK))
+            .andExpect(jsonPath("$.length()").value(1))
+            .andExpect(jsonPath("$.[0].id").value(first.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void getAllWeightWithInvalidCursor() throws Exception {
+        restWeightMockMvc.perform(get("/api/weights?after=not-a-cursor"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getWeight() throws Exception {
@@ -247,8 +552,10 @@ public class WeightResourceIntTest {
 
     @Test
     @Transactional
+    @WithMockUser("user")
     public void searchWeight() throws Exception {
         // Initialize the database
+        weight.setUser(userRepository.findOneByLogin("user").get());
         weightRepository.saveAndFlush(weight);
         weightSearchRepository.save(weight);
 
@@ -261,6 +568,74 @@ public class WeightResourceIntTest {
             .andExpect(jsonPath("$.[*].weight").value(hasItem(DEFAULT_WEIGHT)));
     }
 
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void searchWeightOfCurrentUserInDateRange() throws Exception {
+        // Initialize the database: an entry of the current user in the range, one out of it, and one of another user
+        User user = userRepository.findOneByLogin("user").get();
+        Weight inRange = weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 13)).user(user));
+        Weight outOfRange = weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 20)).user(user));
+        Weight otherUser = weightRepository.saveAndFlush(createEntity(em).date(LocalDate.of(2017, 2, 14))
+            .user(userRepository.findOneByLogin("admin").get()));
+        weightSearchRepository.save(Arrays.asList(inRange, outOfRange, otherUser));
+
+        // Search the weight of the current user in the range
+        restWeightMockMvc.perform(get("/api/_search/weights?query=*&from=2017-02-13&to=2017-02-19"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"))
+            .andExpect(jsonPath("$.[*].id").value(contains(inRange.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void importWeightsFromJsonArray() throws Exception {
+        int databaseSizeBeforeImport = weightRepository.findAll().size();
+
+        // Import two weights and one with an id, which is rejected
+        restWeightMockMvc.perform(post("/api/weights/bulk")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content("[{\"date\":\"2017-02-13\",\"weight\":80}," +
+                "{\"id\":1,\"date\":\"2017-02-14\",\"weight\":81}," +
+                "{\"date\":\"2017-02-15\",\"weight\":82}]"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(2))
+            .andExpect(jsonPath("$.rejected").value(1))
+            .andExpect(jsonPath("$.truncated").value(false))
+            .andExpect(jsonPath("$.rows.[*].status").value(contains("imported", "rejected", "imported")));
+
+        // Validate the Weights in the database, for the current user
+        List<Weight> weightList = weightRepository.findAll();
+        assertThat(weightList).hasSize(databaseSizeBeforeImport + 2);
+        assertThat(weightList.subList(databaseSizeBeforeImport, weightList.size()))
+            .extracting(imported -> imported.getUser().getLogin()).containsOnly("user");
+
+        // Validate the Weights in Elasticsearch
+        assertThat(weightSearchRepository.findAll()).hasSize(2);
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser("user")
+    public void importWeightsFromNdjson() throws Exception {
+        int databaseSizeBeforeImport = weightRepository.findAll().size();
+
+        // Import two weights and one with an invalid date, which is rejected
+        restWeightMockMvc.perform(post("/api/weights/bulk")
+            .contentType(BulkImportService.APPLICATION_NDJSON_VALUE)
+            .content("{\"date\":\"2017-02-13\",\"weight\":80}\n" +
+                "{\"date\":\"not-a-date\",\"weight\":81}\n" +
+                "{\"date\":\"2017-02-15\",\"weight\":82}\n"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(2))
+            .andExpect(jsonPath("$.rejected").value(1))
+            .andExpect(jsonPath("$.rows.[1].index").value(1))
+            .andExpect(jsonPath("$.rows.[1].status").value("rejected"));
+
+        assertThat(weightRepository.findAll()).hasSize(databaseSizeBeforeImport + 2);
+    }
+
     @Test
     public void equalsVerifier() throws Exception {
         TestUtil.equalsVerifier(Weight.class);
@@ -0,0 +1,165 @@
+package com.smbsoft.health.domain;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark of the insert throughput of the id allocation strategies.
+ * <p>
+ * Concurrent transactions insert points and weights, whose ids come either from the shared hibernate_sequence with
+ * the previous mapping, or from a sequence per entity with the pooled-lo optimizer. The database is an in-memory H2 by
+ * default, set the "url", "username" and "password" parameters to measure a real database.
+ * </p>
+ * <p>
+ * Run with: ./gradlew jmh -PjmhIncludes=SequenceAllocationBenchmark
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class SequenceAllocationBenchmark {
+
+    private static final int ROWS_PER_TRANSACTION = 100;
+
+    @Param("jdbc:h2:mem:sequence-benchmark;DB_CLOSE_DELAY=-1")
+    private String url;
+
+    @Param("sa")
+    private String username;
+
+    @Param("")
+    private String password;
+
+    private StandardServiceRegistry registry;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setup() {
+        registry = new StandardServiceRegistryBuilder()
+            .applySetting(AvailableSettings.URL, url)
+            .applySetting(AvailableSettings.USER, username)
+            .applySetting(AvailableSettings.PASS, password)
+            .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+            .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, 25)
+            .build();
+        sessionFactory = new MetadataSources(registry)
+            .addAnnotatedClass(SharedSequencePoints.class)
+            .addAnnotatedClass(SharedSequenceWeight.class)
+            .addAnnotatedClass(PooledLoPoints.class)
+            .addAnnotatedClass(PooledLoWeight.class)
+            .buildMetadata()
+            .buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2 * ROWS_PER_TRANSACTION)
+    public void sharedSequence() {
+        insert(SharedSequencePoints::new, SharedSequenceWeight::new);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2 * ROWS_PER_TRANSACTION)
+    public void pooledLoSequencePerEntity() {
+        insert(PooledLoPoints::new, PooledLoWeight::new);
+    }
+
+    private void insert(Supplier<Reading> points, Supplier<Reading> weight) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                session.persist(points.get());
+                session.persist(weight.get());
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    @MappedSuperclass
+    public abstract static class Reading {
+
+        @Column(name = "date")
+        private LocalDate date = LocalDate.now();
+
+        @Column(name = "reading")
+        private Integer reading = 1;
+    }
+
+    /**
+     * The mapping of the entities before they had their own sequences.
+     */
+    @Entity
+    @Table(name = "shared_sequence_points")
+    public static class SharedSequencePoints extends Reading {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+        @SequenceGenerator(name = "sequenceGenerator")
+        private Long id;
+    }
+
+    @Entity
+    @Table(name = "shared_sequence_weight")
+    public static class SharedSequenceWeight extends Reading {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+        @SequenceGenerator(name = "sequenceGenerator")
+        private Long id;
+    }
+
+    /**
+     * The mapping of the entities, as in {@link Points}.
+     */
+    @Entity
+    @Table(name = "pooled_lo_points")
+    public static class PooledLoPoints extends Reading {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooledLoPointsSequenceGenerator")
+        @GenericGenerator(name = "pooledLoPointsSequenceGenerator", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                @Parameter(name = "sequence_name", value = "pooled_lo_points_seq"),
+                @Parameter(name = "increment_size", value = "50"),
+                @Parameter(name = "optimizer", value = "pooled-lo")
+            })
+        private Long id;
+    }
+
+    @Entity
+    @Table(name = "pooled_lo_weight")
+    public static class PooledLoWeight extends Reading {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pooledLoWeightSequenceGenerator")
+        @GenericGenerator(name = "pooledLoWeightSequenceGenerator", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                @Parameter(name = "sequence_name", value = "pooled_lo_weight_seq"),
+                @Parameter(name = "increment_size", value = "50"),
+                @Parameter(name = "optimizer", value = "pooled-lo")
+            })
+        private Long id;
+    }
+}